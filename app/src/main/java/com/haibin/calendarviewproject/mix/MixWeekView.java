@@ -10,6 +10,8 @@ import com.haibin.calendarview.Calendar;
 import com.haibin.calendarview.CalendarUtil;
 import com.haibin.calendarview.WeekView;
 
+import java.util.List;
+
 /**
  * 演示一个变态需求的周视图
  * Created by huanghaibin on 2018/2/9.
@@ -100,10 +102,11 @@ public class MixWeekView extends WeekView {
     @Override
     protected void onDraw(Canvas canvas) {
 
-        if (mItems == null || mItems.size() == 0) {
+        List<Calendar> items = getItems();
+        if (items == null || items.size() == 0) {
             return;
         }
-        Calendar calendar = mItems.get(0);
+        Calendar calendar = items.get(0);
         int weekStart = CalendarUtil.getWeekCountBetweenBothCalendar(calendar.getYear(), 1, 1,
                 calendar.getYear(), calendar.getMonth(), calendar.getDay(), getWeekStartWith());
         int width = dipToPx(getContext(), 52);
@@ -0,0 +1,101 @@
+package com.haibin.calendarview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 缓存测试
+ */
+public class CalendarCacheTest {
+
+    /**
+     * 按条目数LRU淘汰，切换为字节预算后重新计算大小
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void lru() throws Exception {
+        CalendarCache<Integer, String[]> cache = new CalendarCache<>("test", 2, CalendarCache.STRING_ARRAY_SIZER);
+        cache.put(2019, new String[]{"a"});
+        cache.put(2020, new String[]{"b"});
+        cache.get(2019);
+        cache.put(2021, new String[]{"c"});
+        assertEquals(null, cache.get(2020));
+        assertEquals("a", cache.get(2019)[0]);
+
+        CalendarCacheManager.CacheStats stats = cache.getStats();
+        assertEquals(2, stats.getEntryCount());
+        assertEquals(1, stats.getEvictionCount());
+        assertEquals(2, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+
+        int bytes = CalendarCache.STRING_ARRAY_SIZER.sizeOf(new String[]{"a"});
+        cache.setBudget(bytes, true);
+        assertEquals(1, cache.getStats().getEntryCount());
+        assertEquals(bytes, cache.getStats().getSize());
+        assertEquals("a", cache.get(2019)[0]);
+
+        cache.evictAll();
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    /**
+     * 多线程同时请求相同的年份，每年只计算一次
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void loadOnceUnderContention() throws Exception {
+        final int yearCount = 50;
+        final CalendarCache<Integer, String[]> cache =
+                new CalendarCache<>("test", yearCount, CalendarCache.STRING_ARRAY_SIZER);
+        final AtomicInteger loadCount = new AtomicInteger();
+        final CalendarCache.Loader<Integer, String[]> loader = new CalendarCache.Loader<Integer, String[]>() {
+            @Override
+            public String[] load(Integer key) {
+                loadCount.incrementAndGet();
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new String[]{String.valueOf(key)};
+            }
+        };
+        final int threadCount = 8;
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            futures.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    startSignal.await();
+                    for (int year = 2000; year < 2000 + yearCount; year++) {
+                        if (!String.valueOf(year).equals(cache.getOrLoad(year, loader)[0])) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }));
+        }
+        startSignal.countDown();
+        for (Future<Boolean> future : futures) {
+            assertEquals(true, future.get());
+        }
+        executor.shutdown();
+        assertEquals(yearCount, loadCount.get());
+        assertEquals(yearCount, cache.getStats().getEntryCount());
+    }
+}
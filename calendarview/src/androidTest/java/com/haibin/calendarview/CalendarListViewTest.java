@@ -0,0 +1,56 @@
+package com.haibin.calendarview;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 纵向月份列表测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class CalendarListViewTest {
+
+    /**
+     * 已经绑定的页面在修改重复规则后立即显示新的标记
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void setSchemeRules() throws Exception {
+        final boolean[] hasScheme = new boolean[3];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Context context = InstrumentationRegistry.getTargetContext();
+                CalendarListView listView = new CalendarListView(context);
+                listView.measure(View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(1920, View.MeasureSpec.EXACTLY));
+                listView.layout(0, 0, 1080, 1920);
+                BaseMonthView monthView = (BaseMonthView) listView.getChildAt(0);
+                hasScheme[0] = monthView.mGrid.get(0).hasScheme();
+
+                Calendar scheme = new Calendar();
+                scheme.setScheme("记");
+                scheme.setSchemeColor(0xFF40db25);
+                listView.setSchemeRules(Collections.singletonList(
+                        SchemeRule.daily(monthView.mGrid.get(0), 1, scheme)));
+                hasScheme[1] = monthView.mGrid.get(0).hasScheme();
+
+                listView.setSchemeRules(null);
+                hasScheme[2] = monthView.mGrid.get(0).hasScheme();
+            }
+        });
+        assertEquals(false, hasScheme[0]);
+        assertEquals(true, hasScheme[1]);
+        assertEquals(false, hasScheme[2]);
+    }
+}
@@ -0,0 +1,96 @@
+package com.haibin.calendarview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 多区间选择的区间集合测试
+ */
+public class CalendarRangeSetTest {
+
+    /**
+     * 重叠和相邻的区间合并，取消选择时拆分
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void addAndRemove() throws Exception {
+        CalendarRangeSet set = new CalendarRangeSet();
+        set.add(10, 12);
+        set.add(20, 25);
+        set.add(0, 3);
+        assertRanges(set, 0, 3, 10, 12, 20, 25);
+
+        set.add(13, 14);
+        assertRanges(set, 0, 3, 10, 14, 20, 25);
+        set.add(2, 21);
+        assertRanges(set, 0, 25);
+
+        set.remove(5, 7);
+        assertRanges(set, 0, 4, 8, 25);
+        set.remove(-5, 0);
+        set.remove(25, 30);
+        assertRanges(set, 1, 4, 8, 24);
+        set.remove(4, 8);
+        assertRanges(set, 1, 3, 9, 24);
+        set.remove(50, 60);
+        assertRanges(set, 1, 3, 9, 24);
+        assertEquals(19, set.getDayCount());
+
+        assertEquals(false, set.contains(0));
+        assertEquals(true, set.contains(1));
+        assertEquals(false, set.contains(4));
+        assertEquals(true, set.contains(24));
+        assertEquals(false, set.contains(25));
+
+        set.remove(0, 100);
+        assertEquals(true, set.isEmpty());
+    }
+
+    /**
+     * 页面掩码
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void getMask() throws Exception {
+        CalendarRangeSet set = new CalendarRangeSet();
+        for (int i = 0; i < 100; i += 4) {
+            set.add(i, i + 1);
+        }
+        assertEquals(25, set.size());
+        long mask = set.getMask(6, 42);
+        for (int i = 0; i < 42; i++) {
+            assertEquals(set.contains(6 + i), (mask & (1L << i)) != 0);
+        }
+        set.add(-100, 100);
+        assertEquals(-1L, set.getMask(0, 64));
+        assertEquals((1L << 42) - 1, set.getMask(0, 42));
+
+        Calendar calendar = new Calendar();
+        calendar.setYear(2021);
+        calendar.setMonth(3);
+        calendar.setDay(1);
+        int day = CalendarRangeSet.toEpochDay(calendar);
+        set.add(day, day + 30);
+        assertEquals(2, set.size());
+        assertEquals("20210301", set.getStart(1).toString());
+        assertEquals("20210331", set.getEnd(1).toString());
+        assertEquals(true, set.contains(calendar));
+        assertEquals(false, new CalendarRangeSet(set).contains(day + 31));
+    }
+
+    private static void assertRanges(CalendarRangeSet set, int... ranges) {
+        assertEquals(ranges.length / 2, set.size());
+        long mask = set.getMask(0, 64);
+        for (int i = 0; i < 64; i++) {
+            boolean expected = false;
+            for (int j = 0; j < ranges.length; j += 2) {
+                expected |= i >= ranges[j] && i <= ranges[j + 1];
+            }
+            assertEquals(expected, set.contains(i));
+            assertEquals(expected, (mask & (1L << i)) != 0);
+        }
+    }
+}
@@ -283,4 +283,175 @@ public class CalendarUtilTest {
 
         assertEquals(7,CalendarUtil.differ(calendar1,calendar2));
     }
-}
\ No newline at end of file
+
+    /**
+     * 周视图索引闭式计算，1900-2099每一天、周起始日一六，与原来基于java.util.Calendar毫秒差的实现逐一对比
+     * 原实现使用默认时区，夏令时会差一天，所以对比时使用UTC
+     */
+    @Test
+    public void weekIndexExhaustive() throws Exception {
+        java.util.TimeZone timeZone = java.util.TimeZone.getDefault();
+        java.util.TimeZone.setDefault(java.util.TimeZone.getTimeZone("UTC"));
+        try {
+            java.util.Calendar date = java.util.Calendar.getInstance();
+            date.clear();
+            date.set(1900, 0, 1, 12, 0);
+            int[] weekStarts = {1, 2, 7};
+            int[] minYearDays = {1, 2, 3, 4, 5, 6, 7};//1900-01-01到07，覆盖所有周偏移量
+            Calendar calendar = new Calendar();
+            Calendar epochCalendar = new Calendar();
+            int index = 0;
+            while (date.get(java.util.Calendar.YEAR) <= 2099) {
+                int year = date.get(java.util.Calendar.YEAR);
+                int month = date.get(java.util.Calendar.MONTH) + 1;
+                int day = date.get(java.util.Calendar.DAY_OF_MONTH);
+                int week = date.get(java.util.Calendar.DAY_OF_WEEK);
+                calendar.setYear(year);
+                calendar.setMonth(month);
+                calendar.setDay(day);
+
+                int epochDay = CalendarUtil.getEpochDay(year, month, day);
+                assertEquals(-25567 + index, epochDay);//1900-01-01距离1970-01-01为-25567天
+                assertEquals(week - 1, CalendarUtil.getDayOfWeek(epochDay));
+                CalendarUtil.setupCalendarFromEpochDay(epochCalendar, epochDay);
+                assertEquals(calendar, epochCalendar);
+
+                for (int weekStart : weekStarts) {
+                    assertEquals(BaselineWeekUtil.getWeekViewEndDiff(year, month, day, weekStart),
+                            CalendarUtil.getWeekViewEndDiff(year, month, day, weekStart));
+                    boolean isWeekFirstDay = BaselineWeekUtil.getWeekViewStartDiff(year, month, day, weekStart) == 0;
+                    for (int minDay : minYearDays) {
+                        if (index < minDay - 1) {
+                            continue;
+                        }
+                        int position = CalendarUtil.getWeekFromCalendarStartWithMinCalendar(calendar,
+                                1900, 1, minDay, weekStart);
+                        assertEquals(BaselineWeekUtil.getWeekFromCalendarStartWithMinCalendar(calendar,
+                                1900, 1, minDay, weekStart), position);
+                        assertEquals(BaselineWeekUtil.getWeekCountBetweenBothCalendar(1900, 1, minDay,
+                                year, month, day, weekStart),
+                                CalendarUtil.getWeekCountBetweenBothCalendar(1900, 1, minDay,
+                                        year, month, day, weekStart));
+                        if (isWeekFirstDay) {
+                            assertEquals(BaselineWeekUtil.getFirstCalendarStartWithMinCalendar(1900, 1, minDay,
+                                    position, weekStart),
+                                    CalendarUtil.getFirstCalendarStartWithMinCalendar(1900, 1, minDay,
+                                            position, weekStart));
+                        }
+                    }
+                }
+                date.add(java.util.Calendar.DAY_OF_MONTH, 1);
+                ++index;
+            }
+        } finally {
+            java.util.TimeZone.setDefault(timeZone);
+        }
+    }
+
+    /**
+     * 改为按天数计算之前的CalendarUtil周视图算法，原样保留作为对比基准
+     */
+    private static final class BaselineWeekUtil {
+
+        private static final long ONE_DAY = 1000 * 3600 * 24;
+
+        static int getWeekCountBetweenBothCalendar(int minYear, int minYearMonth, int minYearDay,
+                                                   int maxYear, int maxYearMonth, int maxYearDay,
+                                                   int weekStart) {
+            java.util.Calendar date = java.util.Calendar.getInstance();
+            date.set(minYear, minYearMonth - 1, minYearDay);
+            long minTimeMills = date.getTimeInMillis();
+            int preDiff = getWeekViewStartDiff(minYear, minYearMonth, minYearDay, weekStart);
+
+            date.set(maxYear, maxYearMonth - 1, maxYearDay);
+
+            long maxTimeMills = date.getTimeInMillis();
+
+            int nextDiff = getWeekViewEndDiff(maxYear, maxYearMonth, maxYearDay, weekStart);
+
+            int count = preDiff + nextDiff;
+
+            int c = (int) ((maxTimeMills - minTimeMills) / ONE_DAY) + 1;
+            count += c;
+            return count / 7;
+        }
+
+        static int getWeekFromCalendarStartWithMinCalendar(Calendar calendar,
+                                                           int minYear, int minYearMonth, int minYearDay,
+                                                           int weekStart) {
+            java.util.Calendar date = java.util.Calendar.getInstance();
+            date.set(minYear, minYearMonth - 1, minYearDay);
+            long firstTimeMill = date.getTimeInMillis();
+
+            int preDiff = getWeekViewStartDiff(minYear, minYearMonth, minYearDay, weekStart);
+
+            int weekStartDiff = getWeekViewStartDiff(calendar.getYear(),
+                    calendar.getMonth(),
+                    calendar.getDay(),
+                    weekStart);
+
+            date.set(calendar.getYear(),
+                    calendar.getMonth() - 1,
+                    weekStartDiff == 0 ? calendar.getDay() + 1 : calendar.getDay());
+
+            long curTimeMills = date.getTimeInMillis();
+
+            int c = (int) ((curTimeMills - firstTimeMill) / ONE_DAY);
+
+            int count = preDiff + c;
+
+            return count / 7 + 1;
+        }
+
+        static Calendar getFirstCalendarStartWithMinCalendar(int minYear, int minYearMonth, int minYearDay,
+                                                             int week, int weekStart) {
+            java.util.Calendar date = java.util.Calendar.getInstance();
+
+            date.set(minYear, minYearMonth - 1, minYearDay, 12, 0);
+
+            long firstTimeMills = date.getTimeInMillis();
+
+            long weekTimeMills = (week - 1) * 7 * ONE_DAY;
+
+            long timeCountMills = weekTimeMills + firstTimeMills;
+
+            date.setTimeInMillis(timeCountMills);
+
+            int startDiff = getWeekViewStartDiff(date.get(java.util.Calendar.YEAR),
+                    date.get(java.util.Calendar.MONTH) + 1,
+                    date.get(java.util.Calendar.DAY_OF_MONTH), weekStart);
+
+            timeCountMills -= startDiff * ONE_DAY;
+            date.setTimeInMillis(timeCountMills);
+
+            Calendar calendar = new Calendar();
+            calendar.setYear(date.get(java.util.Calendar.YEAR));
+            calendar.setMonth(date.get(java.util.Calendar.MONTH) + 1);
+            calendar.setDay(date.get(java.util.Calendar.DAY_OF_MONTH));
+
+            return calendar;
+        }
+
+        static int getWeekViewStartDiff(int year, int month, int day, int weekStart) {
+            java.util.Calendar date = java.util.Calendar.getInstance();
+            date.set(year, month - 1, day, 12, 0);
+            int week = date.get(java.util.Calendar.DAY_OF_WEEK);
+            int diff = week - weekStart;
+            if (diff < 0) {
+                diff += 7;
+            }
+            return diff;
+        }
+
+        static int getWeekViewEndDiff(int year, int month, int day, int weekStart) {
+            java.util.Calendar date = java.util.Calendar.getInstance();
+            date.set(year, month - 1, day, 12, 0);
+            int week = date.get(java.util.Calendar.DAY_OF_WEEK);
+            int diff = week - weekStart;
+            if (diff < 0) {
+                diff += 7;
+            }
+            return 6 - diff;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.haibin.calendarview;
+
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 日期变化监听测试
+ */
+public class DayChangeWatcherTest {
+
+    /**
+     * 距离下一个零点的时间，包括夏令时切换的日子
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void getMillisUntilNextDay() throws Exception {
+        TimeZone shanghai = TimeZone.getTimeZone("Asia/Shanghai");
+        java.util.Calendar date = java.util.Calendar.getInstance(shanghai);
+        date.clear();
+        date.set(2020, java.util.Calendar.DECEMBER, 31, 23, 59, 0);
+        assertEquals(60 * 1000L, DayChangeWatcher.getMillisUntilNextDay(date.getTimeInMillis(), shanghai));
+        date.set(2021, java.util.Calendar.JANUARY, 1, 0, 0, 0);
+        assertEquals(24 * 60 * 60 * 1000L, DayChangeWatcher.getMillisUntilNextDay(date.getTimeInMillis(), shanghai));
+
+        TimeZone newYork = TimeZone.getTimeZone("America/New_York");
+        date = java.util.Calendar.getInstance(newYork);
+        date.clear();
+        date.set(2021, java.util.Calendar.MARCH, 14, 0, 0, 0);
+        assertEquals(23 * 60 * 60 * 1000L, DayChangeWatcher.getMillisUntilNextDay(date.getTimeInMillis(), newYork));
+    }
+}
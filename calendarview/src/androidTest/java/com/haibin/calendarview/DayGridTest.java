@@ -0,0 +1,194 @@
+package com.haibin.calendarview;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 日历网格测试
+ */
+public class DayGridTest {
+
+    /**
+     * 网格生成的日期与initCalendarForMonthView一致，包括农历、节日
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void initMonth() throws Exception {
+        Calendar currentDate = new Calendar();
+        currentDate.setYear(2020);
+        currentDate.setMonth(2);
+        currentDate.setDay(29);
+        DayGrid grid = new DayGrid();
+        int[] weekStarts = {CalendarViewDelegate.WEEK_START_WITH_SUN,
+                CalendarViewDelegate.WEEK_START_WITH_MON,
+                CalendarViewDelegate.WEEK_START_WITH_SAT};
+        for (int weekStart : weekStarts) {
+            for (int year = 2019; year <= 2021; year++) {
+                for (int month = 1; month <= 12; month++) {
+                    List<Calendar> expected = CalendarUtil.initCalendarForMonthView(year, month, currentDate, weekStart);
+                    grid.initMonth(year, month, currentDate, weekStart, true);
+                    assertEquals(expected.size(), grid.size());
+                    for (int i = 0; i < grid.size(); i++) {
+                        assertCalendar(expected.get(i), grid.get(i));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 周视图跨年、标记、今天更新
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void initWeek() throws Exception {
+        Calendar start = new Calendar();
+        start.setYear(2020);
+        start.setMonth(12);
+        start.setDay(27);
+        Calendar currentDate = new Calendar();
+        currentDate.setYear(2020);
+        currentDate.setMonth(12);
+        currentDate.setDay(31);
+
+        DayGrid grid = new DayGrid();
+        grid.initWeek(start, currentDate, false);
+        assertEquals(7, grid.size());
+        assertEquals("20201227", grid.get(0).toString());
+        assertEquals("20210102", grid.get(6).toString());
+        assertEquals(0, grid.get(0).getWeek());
+        assertEquals(4, grid.indexOf(currentDate));
+        assertEquals(true, grid.get(4).isCurrentDay());
+
+        Map<String, Calendar> schemes = new HashMap<>();
+        Calendar scheme = new Calendar();
+        scheme.setSchemeColor(0xFF40db25);
+        schemes.put("20210101", scheme);
+        assertEquals(1, grid.updateSchemes(schemes, null, "记"));
+        assertEquals("记", grid.get(5).getScheme());
+        assertEquals(false, grid.get(4).hasScheme());
+
+        currentDate.setDay(28);
+        assertEquals(true, grid.updateCurrentDay(currentDate));
+        assertEquals(false, grid.get(4).isCurrentDay());
+        assertEquals(true, grid.get(1).isCurrentDay());
+        assertEquals(false, grid.updateCurrentDay(currentDate));
+
+        currentDate.setMonth(11);
+        assertEquals(true, grid.updateCurrentDay(currentDate));
+        assertEquals(false, grid.updateCurrentDay(currentDate));
+    }
+
+    /**
+     * 按版本绑定标记：版本相同时跳过，单日修改增量更新，整体修改完全重新绑定
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void bindSchemes() throws Exception {
+        Calendar start = new Calendar();
+        start.setYear(2020);
+        start.setMonth(12);
+        start.setDay(27);
+        DayGrid grid = new DayGrid();
+        grid.initWeek(start, start, false);
+
+        SchemeChangeLog log = new SchemeChangeLog();
+        Map<String, Calendar> schemes = new HashMap<>();
+        schemes.put("20201228", new Calendar());
+        assertEquals(1, grid.bindSchemes(log.getVersion(), log, schemes, null, "记"));
+        assertEquals(-1, grid.bindSchemes(log.getVersion(), log, schemes, null, "记"));
+
+        schemes.put("20210101", new Calendar());
+        log.markChanged(20210101);
+        log.markChanged(20210301);
+        assertEquals(1, grid.bindSchemes(log.getVersion(), log, schemes, null, "记"));
+        assertEquals(true, grid.get(5).hasScheme());
+        assertEquals(true, grid.get(1).hasScheme());
+
+        schemes.remove("20201228");
+        log.markChanged(20201228);
+        assertEquals(0, grid.bindSchemes(log.getVersion(), log, schemes, null, "记"));
+        assertEquals(false, grid.get(1).hasScheme());
+
+        for (int i = 0; i <= SchemeChangeLog.CAPACITY; i++) {
+            log.markChanged(20210301);
+        }
+        assertEquals(true, log.isFullChange(log.getVersion() - SchemeChangeLog.CAPACITY - 1));
+        assertEquals(1, grid.bindSchemes(log.getVersion(), log, schemes, null, "记"));
+
+        log.markAll();
+        schemes.clear();
+        assertEquals(0, grid.bindSchemes(log.getVersion(), log, schemes, null, "记"));
+        assertEquals(false, grid.get(5).hasScheme());
+    }
+
+    /**
+     * 范围和拦截掩码，按版本只计算一次
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void updateRangeMask() throws Exception {
+        Calendar start = new Calendar();
+        start.setYear(2020);
+        start.setMonth(12);
+        start.setDay(27);
+        DayGrid grid = new DayGrid();
+        grid.initWeek(start, start, false);
+        assertEquals(0, grid.getRangeVersion());
+
+        final int[] count = new int[1];
+        grid.updateRangeMask(3, 20201229, 20210101, new InterceptCache(new CalendarView.OnCalendarRangeInterceptListener() {
+            @Override
+            public void onCalendarRangeIntercept(Calendar start, int dayCount, BitSet intercepted) {
+                ++count[0];
+                if (start.getMonth() == 12) {
+                    intercepted.set(29);
+                }
+            }
+
+            @Override
+            public void onCalendarInterceptClick(Calendar calendar, boolean isClick) {
+
+            }
+        }));
+        assertEquals(3, grid.getRangeVersion());
+        assertEquals(2, count[0]);
+        for (int i = 0; i < 7; i++) {
+            assertEquals(i >= 2 && i <= 5, grid.isInRange(i));
+            assertEquals(i == 3, grid.isIntercepted(i));
+        }
+        assertEquals(5, grid.indexOf(grid.get(5)));
+        assertEquals(true, grid.intersects(20201201, 20201227));
+        assertEquals(true, grid.intersects(20210102, 20210110));
+        assertEquals(false, grid.intersects(20210103, 20210110));
+
+        grid.initWeek(start, start, false);
+        assertEquals(0, grid.getRangeVersion());
+    }
+
+    private static void assertCalendar(Calendar expected, Calendar actual) {
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(expected.getWeek(), actual.getWeek());
+        assertEquals(expected.isWeekend(), actual.isWeekend());
+        assertEquals(expected.isLeapYear(), actual.isLeapYear());
+        assertEquals(expected.isCurrentMonth(), actual.isCurrentMonth());
+        assertEquals(expected.isCurrentDay(), actual.isCurrentDay());
+        assertEquals(expected.getLeapMonth(), actual.getLeapMonth());
+        assertEquals(expected.getLunar(), actual.getLunar());
+        assertEquals(expected.getSolarTerm(), actual.getSolarTerm());
+        assertEquals(expected.getGregorianFestival(), actual.getGregorianFestival());
+        assertEquals(expected.getTraditionFestival(), actual.getTraditionFestival());
+        assertEquals(expected.getLunarCalendar().toString(), actual.getLunarCalendar().toString());
+        assertEquals(expected.getLunarCalendar().getLunar(), actual.getLunarCalendar().getLunar());
+    }
+}
@@ -0,0 +1,63 @@
+package com.haibin.calendarview;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 按月缓存的日期拦截测试
+ */
+public class InterceptCacheTest {
+
+    private int mQueryCount;
+
+    /**
+     * 每个月只回调一次，清空缓存后重新查询
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void intercept() throws Exception {
+        InterceptCache cache = new InterceptCache(new CalendarView.OnCalendarRangeInterceptListener() {
+            @Override
+            public void onCalendarRangeIntercept(Calendar start, int dayCount, BitSet intercepted) {
+                ++mQueryCount;
+                assertEquals(1, start.getDay());
+                for (int i = 0; i < dayCount; i++) {
+                    if ((i + 1) % 7 == 0) {
+                        intercepted.set(i);
+                    }
+                }
+                intercepted.set(dayCount + 3);
+            }
+
+            @Override
+            public void onCalendarInterceptClick(Calendar calendar, boolean isClick) {
+
+            }
+        });
+        for (int day = 1; day <= 29; day++) {
+            assertEquals(day % 7 == 0, cache.isIntercepted(2020, 2, day));
+        }
+        assertEquals(false, cache.isIntercepted(2020, 3, 3));
+        assertEquals(2, mQueryCount);
+        assertEquals(true, cache.isIntercepted(2020, 2, 14));
+        assertEquals(false, cache.isIntercepted(2100, 1, 7));
+        assertEquals(2, mQueryCount);
+
+        Calendar from = new Calendar();
+        from.setYear(2020);
+        from.setMonth(3);
+        from.setDay(10);
+        cache.invalidate(from, from);
+        assertEquals(true, cache.isIntercepted(2020, 2, 7));
+        assertEquals(true, cache.isIntercepted(2020, 3, 7));
+        assertEquals(3, mQueryCount);
+
+        cache.invalidate();
+        assertEquals(true, cache.isIntercepted(2020, 2, 7));
+        assertEquals(4, mQueryCount);
+    }
+}
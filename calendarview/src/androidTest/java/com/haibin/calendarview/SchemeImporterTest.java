@@ -0,0 +1,81 @@
+package com.haibin.calendarview;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 导入合并测试
+ */
+public class SchemeImporterTest {
+
+    /**
+     * 普通Map，不修改App原来的Calendar
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void mergePlainMap() throws Exception {
+        Map<String, Calendar> schemes = new HashMap<>();
+        Calendar origin = new Calendar();
+        origin.setScheme("假");
+        origin.setSchemeColor(0xFFFF0000);
+        schemes.put("20210101", origin);
+        Set<Calendar> merged = Collections.newSetFromMap(new IdentityHashMap<Calendar, Boolean>());
+
+        SchemeImporter.merge(schemes, merged, 20210101, 0xFF00FF00, 1, "会");
+        SchemeImporter.merge(schemes, merged, 20210101, 0xFF0000FF, 2, "记");
+        SchemeImporter.merge(schemes, merged, 20210102, 0xFF0000FF, 2, "记");
+
+        assertEquals(null, origin.getSchemes());
+        Calendar calendar = schemes.get("20210101");
+        assertEquals(3, calendar.getSchemes().size());
+        assertEquals("假", calendar.getSchemes().get(0).getScheme());
+        assertEquals("会", calendar.getSchemes().get(1).getScheme());
+        assertEquals(2, calendar.getSchemes().get(2).getType());
+        assertEquals(1, schemes.get("20210102").getSchemes().size());
+        assertEquals("记", schemes.get("20210102").getScheme());
+    }
+
+    /**
+     * 快照Map每次get都是副本，合并结果要放回Map
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void mergeSnapshotMap() throws Exception {
+        Map<String, Calendar> source = new HashMap<>();
+        Calendar origin = new Calendar();
+        origin.addScheme(0, 0xFFFF0000, "假");
+        source.put("20210101", origin);
+
+        File file = File.createTempFile("scheme", ".snapshot");
+        try {
+            SchemeSnapshot.write(file, source);
+            Map<String, Calendar> schemes = SchemeSnapshot.open(file).asMap();
+            Set<Calendar> merged = Collections.newSetFromMap(new IdentityHashMap<Calendar, Boolean>());
+
+            SchemeImporter.merge(schemes, merged, 20210101, 0xFF00FF00, 1, "会");
+            SchemeImporter.merge(schemes, merged, 20210101, 0xFF0000FF, 2, "记");
+
+            assertEquals(1, schemes.size());
+            Calendar calendar = schemes.get("20210101");
+            assertEquals(3, calendar.getSchemes().size());
+            assertEquals("假", calendar.getSchemes().get(0).getScheme());
+            assertEquals("记", calendar.getSchemes().get(2).getScheme());
+
+            SchemeIndex index = new SchemeIndex();
+            index.sync(schemes);
+            assertEquals(3, index.getCount(2021, 1, 1));
+        } finally {
+            file.delete();
+        }
+    }
+}
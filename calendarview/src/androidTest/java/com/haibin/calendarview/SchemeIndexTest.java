@@ -0,0 +1,145 @@
+package com.haibin.calendarview;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 标记月份索引测试
+ */
+public class SchemeIndexTest {
+
+    /**
+     * 重建、增量更新、直接修改Map后重建
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void mask() throws Exception {
+        Map<String, Calendar> schemes = new HashMap<>();
+        schemes.put("20210301", scheme(0));
+        schemes.put("20210331", scheme(3));
+        schemes.put("20210401", scheme(0));
+        SchemeIndex index = new SchemeIndex();
+        index.sync(schemes);
+        assertEquals(1 | 1 << 30, index.getMask(2021, 3));
+        assertEquals(1, index.getMask(2021, 4));
+        assertEquals(3, index.getCount(2021, 3, 31));
+        assertEquals(1, index.getCount(2021, 3, 1));
+        assertEquals(0, index.getCount(2021, 3, 2));
+
+        schemes.remove("20210301");
+        index.onSchemeChanged(schemes, "20210301");
+        schemes.put("20210302", scheme(2));
+        index.onSchemeChanged(schemes, "20210302");
+        assertEquals(1 << 1 | 1 << 30, index.getMask(2021, 3));
+        assertEquals(2, index.getCount(2021, 3, 2));
+
+        schemes.put("20210315", scheme(0));
+        index.sync(schemes);
+        assertEquals(1 << 1 | 1 << 14 | 1 << 30, index.getMask(2021, 3));
+
+        index.sync(null);
+        assertEquals(0, index.getMask(2021, 3));
+    }
+
+    /**
+     * 修改后重新设置同一个Map，大小不变时也要重建
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void invalidate() throws Exception {
+        Map<String, Calendar> schemes = new HashMap<>();
+        schemes.put("20210301", scheme(0));
+        SchemeIndex index = new SchemeIndex();
+        index.sync(schemes);
+        assertEquals(1, index.getMask(2021, 3));
+
+        schemes.remove("20210301");
+        schemes.put("20210302", scheme(0));
+        index.sync(schemes);
+        assertEquals(1, index.getMask(2021, 3));
+
+        index.invalidate();
+        index.sync(schemes);
+        assertEquals(1 << 1, index.getMask(2021, 3));
+        assertEquals(20210302, index.nextDate(20210301));
+    }
+
+    /**
+     * 七万天内三万五千个标记中二分查找上一个、下一个和范围，增删后保持有序
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void navigate() throws Exception {
+        Map<String, Calendar> schemes = new HashMap<>();
+        Calendar calendar = new Calendar();
+        int first = CalendarUtil.getEpochDay(1901, 1, 1);
+        for (int i = 0; i < 70000; i += 2) {
+            CalendarUtil.setupCalendarFromEpochDay(calendar, first + i);
+            schemes.put(calendar.toString(), scheme(0));
+        }
+        SchemeIndex index = new SchemeIndex();
+        index.sync(schemes);
+        assertEquals(35000, index.getDateCount());
+        assertEquals(19010103, index.nextDate(19010101));
+        assertEquals(19010103, index.nextDate(19010102));
+        assertEquals(19010101, index.previousDate(19010103));
+        assertEquals(0, index.previousDate(19010101));
+        assertEquals(0, index.nextDate(21000101));
+        assertEquals(3, index.getDates(19010101, 19010106).length);
+
+        schemes.put("19010102", scheme(0));
+        index.onSchemeChanged(schemes, "19010102");
+        assertEquals(19010102, index.nextDate(19010101));
+        schemes.remove("19010103");
+        index.onSchemeChanged(schemes, "19010103");
+        assertEquals(19010105, index.nextDate(19010102));
+        assertEquals(35000, index.getDateCount());
+    }
+
+    /**
+     * 年视图网格只为掩码中的日期查找标记
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void updateMonthSchemes() throws Exception {
+        Map<String, Calendar> schemes = new HashMap<>();
+        schemes.put("20210228", scheme(0));
+        schemes.put("20210310", scheme(0));
+        SchemeIndex index = new SchemeIndex();
+        index.sync(schemes);
+        Calendar currentDate = new Calendar();
+        currentDate.setYear(2021);
+        currentDate.setMonth(3);
+        currentDate.setDay(1);
+        DayGrid grid = new DayGrid();
+        grid.initMonth(2021, 3, currentDate, CalendarViewDelegate.WEEK_START_WITH_SUN, false);
+        assertEquals(1, grid.updateMonthSchemes(index.getMask(2021, 3), schemes, null, "记"));
+        assertEquals(true, grid.get(grid.indexOf(create(2021, 3, 10))).hasScheme());
+        assertEquals(false, grid.get(grid.indexOf(create(2021, 2, 28))).hasScheme());
+    }
+
+    private static Calendar scheme(int count) {
+        Calendar calendar = new Calendar();
+        calendar.setScheme("记");
+        for (int i = 0; i < count; i++) {
+            calendar.addScheme(0xFF40db25, String.valueOf(i));
+        }
+        return calendar;
+    }
+
+    private static Calendar create(int year, int month, int day) {
+        Calendar calendar = new Calendar();
+        calendar.setYear(year);
+        calendar.setMonth(month);
+        calendar.setDay(day);
+        return calendar;
+    }
+}
@@ -0,0 +1,98 @@
+package com.haibin.calendarview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 重复事件规则测试
+ */
+public class SchemeRuleTest {
+
+    /**
+     * 各种重复规则在2021年3月的月视图窗口内展开
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void expand() throws Exception {
+        assertEquals("[20210302, 20210316, 20210330]",
+                expand(SchemeRule.daily(create(2021, 2, 16), 14, scheme("账")), 20210301, 20210331));
+        assertEquals("[20210301, 20210303, 20210315, 20210317, 20210329, 20210331]",
+                expand(SchemeRule.weekly(create(2021, 2, 15), 2, 1 << 1 | 1 << 3, scheme("会")), 20210301, 20210331));
+        assertEquals("[20210131, 20210331]",
+                expand(SchemeRule.monthly(create(2021, 1, 31), 1, scheme("月")), 20210101, 20210430));
+        assertEquals("[20210129, 20210226, 20210326]",
+                expand(SchemeRule.monthlyByWeek(create(2021, 1, 1), 1, -1, 5, scheme("五")), 20210101, 20210331));
+        assertEquals("[20210301]",
+                expand(SchemeRule.monthlyByWeek(create(2021, 1, 1), 1, 1, 1, scheme("一")), 20210228, 20210331));
+        assertEquals("[20200229, 20240229]",
+                expand(SchemeRule.yearly(create(2016, 2, 29), 1, scheme("年")), 20170101, 20241231));
+        //农历八月十五
+        assertEquals("[20201001, 20210921]",
+                expand(SchemeRule.lunarYearly(create(2019, 1, 1), 8, 15, scheme("秋")), 20200101, 20211231));
+    }
+
+    /**
+     * 结束日期、同一天多个规则合并
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void untilAndMerge() throws Exception {
+        SchemeRuleSet set = new SchemeRuleSet();
+        set.add(SchemeRule.daily(create(2021, 3, 1), 1, scheme("日")).setUntil(create(2021, 3, 3)));
+        set.add(SchemeRule.weekly(create(2021, 3, 1), 1, 0, scheme("周")));
+        Map<Integer, Calendar> schemes = set.expand(20210301, 20210310);
+        assertEquals(4, schemes.size());
+        assertEquals(2, schemes.get(20210301).getSchemes().size());
+        assertEquals("日", schemes.get(20210302).getScheme());
+        assertEquals("周", schemes.get(20210308).getScheme());
+        assertEquals(schemes, set.expand(20210301, 20210310));
+        assertEquals("周", set.get(2021, 3, 15).getScheme());
+        assertEquals(null, set.get(2021, 3, 16));
+    }
+
+    /**
+     * 查找之后、之前最近的一次事件，超过边界时没有
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void findOccurrence() throws Exception {
+        SchemeRuleSet set = new SchemeRuleSet();
+        set.add(SchemeRule.yearly(create(2000, 6, 1), 1, scheme("年")));
+        assertEquals(20210601, set.findOccurrence(20210101, 20991231, true));
+        assertEquals(20200601, set.findOccurrence(20210601, 19000101, false));
+        assertEquals(0, set.findOccurrence(20210101, 20210531, true));
+        assertEquals(0, set.findOccurrence(20000601, 19000101, false));
+    }
+
+    private static String expand(SchemeRule rule, int startDate, int endDate) {
+        SchemeRuleSet set = new SchemeRuleSet();
+        set.setRules(Collections.singletonList(rule));
+        List<Integer> dates = new ArrayList<>(set.expand(startDate, endDate).keySet());
+        Collections.sort(dates);
+        return dates.toString();
+    }
+
+    private static Calendar create(int year, int month, int day) {
+        Calendar calendar = new Calendar();
+        calendar.setYear(year);
+        calendar.setMonth(month);
+        calendar.setDay(day);
+        return calendar;
+    }
+
+    private static Calendar scheme(String text) {
+        Calendar calendar = new Calendar();
+        calendar.setScheme(text);
+        calendar.setSchemeColor(0xFF40db25);
+        return calendar;
+    }
+}
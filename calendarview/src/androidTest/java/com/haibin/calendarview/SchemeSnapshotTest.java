@@ -0,0 +1,105 @@
+package com.haibin.calendarview;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 标记快照测试
+ */
+public class SchemeSnapshotTest {
+
+    /**
+     * 写入后内存映射读取，Map视图的增删和索引
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void writeAndOpen() throws Exception {
+        Map<String, Calendar> schemes = new HashMap<>();
+        Calendar single = new Calendar();
+        single.setScheme("假");
+        single.setSchemeColor(0xFFFF0000);
+        schemes.put("20210101", single);
+        Calendar multi = new Calendar();
+        multi.setSchemeColor(0xFF00FF00);
+        multi.addScheme(1, 0xFF0000FF, "会", "10:00");
+        multi.addScheme(2, 0xFF00FFFF, "假", null);
+        schemes.put("20201231", multi);
+
+        File file = File.createTempFile("scheme", ".snapshot");
+        try {
+            SchemeSnapshot.write(file, schemes);
+            SchemeSnapshot snapshot = SchemeSnapshot.open(file);
+            assertEquals(2, snapshot.size());
+            assertEquals(null, snapshot.get(2021, 1, 2));
+            Calendar calendar = snapshot.get(2021, 1, 1);
+            assertEquals("假", calendar.getScheme());
+            assertEquals(0xFFFF0000, calendar.getSchemeColor());
+            calendar = snapshot.get(2020, 12, 31);
+            assertEquals(null, calendar.getScheme());
+            assertEquals(2, calendar.getSchemes().size());
+            assertEquals(1, calendar.getSchemes().get(0).getType());
+            assertEquals("10:00", calendar.getSchemes().get(0).getOther());
+            assertEquals("假", calendar.getSchemes().get(1).getScheme());
+            assertEquals(null, calendar.getSchemes().get(1).getOther());
+
+            Map<String, Calendar> map = snapshot.asMap();
+            map.remove("20210101");
+            map.put("20210105", single);
+            assertEquals(2, map.size());
+            assertEquals(null, map.get("20210101"));
+            assertEquals("假", map.get("20210105").getScheme());
+
+            SchemeIndex index = new SchemeIndex();
+            index.sync(map);
+            assertEquals(20210105, index.nextDate(20201231));
+            assertEquals(2, index.getCount(2020, 12, 31));
+            assertEquals(0, index.getMask(2021, 1) & 1);
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * clear后快照中的日期全部失效，之后新增的仍然可见
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void clear() throws Exception {
+        Map<String, Calendar> schemes = new HashMap<>();
+        Calendar calendar = new Calendar();
+        calendar.setScheme("假");
+        schemes.put("20210101", calendar);
+        schemes.put("20210102", calendar);
+
+        File file = File.createTempFile("scheme", ".snapshot");
+        try {
+            SchemeSnapshot.write(file, schemes);
+            Map<String, Calendar> map = SchemeSnapshot.open(file).asMap();
+            map.put("20210103", calendar);
+            map.clear();
+            assertEquals(0, map.size());
+            assertEquals(null, map.get("20210101"));
+            assertEquals(false, map.entrySet().iterator().hasNext());
+
+            map.put("20210102", calendar);
+            assertEquals(1, map.size());
+            assertEquals(null, map.get("20210101"));
+            assertEquals("假", map.get("20210102").getScheme());
+            Map.Entry<String, Calendar> entry = map.entrySet().iterator().next();
+            assertEquals("20210102", entry.getKey());
+
+            SchemeIndex index = new SchemeIndex();
+            index.sync(map);
+            assertEquals(1 << 1, index.getMask(2021, 1));
+        } finally {
+            file.delete();
+        }
+    }
+}
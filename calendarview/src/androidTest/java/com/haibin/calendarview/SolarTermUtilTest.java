@@ -2,6 +2,15 @@ package com.haibin.calendarview;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.Assert.*;
 
 /**
@@ -14,4 +23,44 @@ public class SolarTermUtilTest {
         SolarTermUtil.getSolarTerms(2017);
     }
 
+    /**
+     * 多线程同时计算节气，结果与单线程一致
+     *
+     * @throws Exception Exception
+     */
+    @Test
+    public void getSolarTermsConcurrent() throws Exception {
+        final int minYear = 1990;
+        final int maxYear = 2030;
+        final String[][] expected = new String[maxYear - minYear + 1][];
+        for (int year = minYear; year <= maxYear; year++) {
+            expected[year - minYear] = SolarTermUtil.getSolarTerms(year);
+        }
+        final int threadCount = 8;
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            final int offset = t;
+            futures.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    startSignal.await();
+                    for (int i = 0; i < expected.length; i++) {
+                        int index = (i + offset * 5) % expected.length;
+                        if (!Arrays.equals(expected[index], SolarTermUtil.getSolarTerms(minYear + index))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }));
+        }
+        startSignal.countDown();
+        for (Future<Boolean> future : futures) {
+            assertTrue(future.get());
+        }
+        executor.shutdown();
+    }
+
 }
\ No newline at end of file
@@ -68,8 +68,7 @@ public abstract class BaseMonthView extends BaseView {
         mYear = year;
         mMonth = month;
         initCalendar();
-        mHeight = CalendarUtil.getMonthViewHeight(year, month, mItemHeight, mDelegate.getWeekStart(),
-                mDelegate.getMonthViewShowMode());
+        mHeight = mDelegate.getMonthViewLineCount(year, month) * mItemHeight;
 
     }
 
@@ -78,17 +77,17 @@ public abstract class BaseMonthView extends BaseView {
      */
     @SuppressLint("WrongConstant")
     private void initCalendar() {
+        CalendarMetrics metrics = mDelegate.mMetrics;
+        long start = metrics == null ? 0 : metrics.begin(CalendarView.CalendarMetricsListener.EVENT_MONTH_GRID_BUILD);
 
         mNextDiff = CalendarUtil.getMonthEndDiff(mYear, mMonth, mDelegate.getWeekStart());
-        int preDiff = CalendarUtil.getMonthViewStartDiff(mYear, mMonth, mDelegate.getWeekStart());
-        int monthDayCount = CalendarUtil.getMonthDaysCount(mYear, mMonth);
 
-        mItems = CalendarUtil.initCalendarForMonthView(mYear, mMonth, mDelegate.getCurrentDay(), mDelegate.getWeekStart());
+        mGrid.initMonth(mYear, mMonth, mDelegate.getCurrentDay(), mDelegate.getWeekStart(), true);
 
-        if (mItems.contains(mDelegate.getCurrentDay())) {
-            mCurrentItem = mItems.indexOf(mDelegate.getCurrentDay());
+        if (mGrid.contains(mDelegate.getCurrentDay())) {
+            mCurrentItem = mGrid.indexOf(mDelegate.getCurrentDay());
         } else {
-            mCurrentItem = mItems.indexOf(mDelegate.mSelectedCalendar);
+            mCurrentItem = mGrid.indexOf(mDelegate.mSelectedCalendar);
         }
 
         if (mCurrentItem > 0 &&
@@ -97,12 +96,13 @@ public abstract class BaseMonthView extends BaseView {
             mCurrentItem = -1;
         }
 
-        if (mDelegate.getMonthViewShowMode() == CalendarViewDelegate.MODE_ALL_MONTH) {
-            mLineCount = 6;
-        } else {
-            mLineCount = (preDiff + monthDayCount + mNextDiff) / 7;
-        }
+        mLineCount = mDelegate.getMonthViewLineCount(mYear, mMonth);
         addSchemesFromMap();
+        if (metrics != null) {
+            metrics.end(CalendarView.CalendarMetricsListener.EVENT_MONTH_GRID_BUILD, start);
+            metrics.count(CalendarView.CalendarMetricsListener.COUNT_LUNAR, mGrid.size());
+            metrics.countCacheStats();
+        }
         invalidate();
     }
 
@@ -125,8 +125,8 @@ public abstract class BaseMonthView extends BaseView {
         }
         int indexY = (int) mY / mItemHeight;
         int position = indexY * 7 + indexX;// 选择项
-        if (position >= 0 && position < mItems.size()) {
-            return mItems.get(position);
+        if (position >= 0 && position < mGrid.size()) {
+            return mGrid.get(position);
         }
         return null;
     }
@@ -142,8 +142,8 @@ public abstract class BaseMonthView extends BaseView {
         }
         int indexY = (int) mY / mItemHeight;
         int position = indexY * 7 + indexX;// 选择项
-        if (position >= 0 && position < mItems.size()) {
-            calendar = mItems.get(position);
+        if (position >= 0 && position < mGrid.size()) {
+            calendar = mGrid.get(position);
         }
         if (calendar == null) {
             return;
@@ -171,7 +171,7 @@ public abstract class BaseMonthView extends BaseView {
      * @param calendar calendar
      */
     final void setSelectedCalendar(Calendar calendar) {
-        mCurrentItem = mItems.indexOf(calendar);
+        mCurrentItem = mGrid.indexOf(calendar);
     }
 
 
@@ -179,10 +179,8 @@ public abstract class BaseMonthView extends BaseView {
      * 更新显示模式
      */
     final void updateShowMode() {
-        mLineCount = CalendarUtil.getMonthViewLineCount(mYear, mMonth,
-                mDelegate.getWeekStart(), mDelegate.getMonthViewShowMode());
-        mHeight = CalendarUtil.getMonthViewHeight(mYear, mMonth, mItemHeight, mDelegate.getWeekStart(),
-                mDelegate.getMonthViewShowMode());
+        mLineCount = mDelegate.getMonthViewLineCount(mYear, mMonth);
+        mHeight = mLineCount * mItemHeight;
         invalidate();
     }
 
@@ -191,30 +189,21 @@ public abstract class BaseMonthView extends BaseView {
      */
     final void updateWeekStart() {
         initCalendar();
-        mHeight = CalendarUtil.getMonthViewHeight(mYear, mMonth, mItemHeight, mDelegate.getWeekStart(),
-                mDelegate.getMonthViewShowMode());
+        mHeight = mDelegate.getMonthViewLineCount(mYear, mMonth) * mItemHeight;
     }
 
     @Override
     void updateItemHeight() {
         super.updateItemHeight();
-        mHeight = CalendarUtil.getMonthViewHeight(mYear, mMonth, mItemHeight, mDelegate.getWeekStart(),
-                mDelegate.getMonthViewShowMode());
+        mHeight = mDelegate.getMonthViewLineCount(mYear, mMonth) * mItemHeight;
     }
 
 
     @Override
     void updateCurrentDate() {
-        if (mItems == null)
-            return;
-        if (mItems.contains(mDelegate.getCurrentDay())) {
-            for (Calendar a : mItems) {//添加操作
-                a.setCurrentDay(false);
-            }
-            int index = mItems.indexOf(mDelegate.getCurrentDay());
-            mItems.get(index).setCurrentDay(true);
+        if (mGrid.updateCurrentDay(mDelegate.getCurrentDay())) {
+            onCurrentDayChanged();
         }
-        invalidate();
     }
 
 
@@ -225,7 +214,7 @@ public abstract class BaseMonthView extends BaseView {
      * @return 获取选中的下标
      */
     protected final int getSelectedIndex(Calendar calendar) {
-        return mItems.indexOf(calendar);
+        return mGrid.indexOf(calendar);
     }
 
     @Override
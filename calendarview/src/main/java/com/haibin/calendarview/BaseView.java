@@ -17,15 +17,16 @@ package com.haibin.calendarview;
 
 
 import android.content.Context;
+import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
 
 import androidx.annotation.Nullable;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -103,10 +104,30 @@ public abstract class BaseView extends View implements View.OnClickListener, Vie
     CalendarLayout mParentLayout;
 
     /**
-     * 日历项
+     * 日历项，绘制不使用，调用getItems时才由mGrid填充，子类请使用getItems
      */
     protected List<Calendar> mItems;
 
+    /**
+     * mGrid变化后mItems需要重新填充
+     */
+    private boolean isItemsChanged = true;
+
+    /**
+     * 日历网格
+     */
+    final DayGrid mGrid = new DayGrid();
+
+    /**
+     * 绘制时复用的日历对象
+     */
+    private final Calendar mDrawCalendar = new Calendar();
+
+    /**
+     * 绘制时判断相邻日期复用的日历对象
+     */
+    private final Calendar mAdjacentCalendar = new Calendar();
+
     /**
      * 每一项的高度
      */
@@ -281,38 +302,109 @@ public abstract class BaseView extends View implements View.OnClickListener, Vie
 
 
     /**
-     * 移除事件
+     * 添加事件标记，来自Map和重复规则，标记版本没有变化时跳过，只有少量日期修改时增量更新
+     * 网格重新生成后标记版本清零，所以这里也负责标记mItems需要重新填充
      */
-    final void removeSchemes() {
-        for (Calendar a : mItems) {
-            a.setScheme("");
-            a.setSchemeColor(0);
-            a.setSchemes(null);
+    final void addSchemesFromMap() {
+        int count = mGrid.bindSchemes(mDelegate.getSchemeVersion(), mDelegate.mSchemeLog,
+                mDelegate.mSchemeDatesMap, mDelegate.mSchemeRules, mDelegate.getSchemeText());
+        if (count < 0) {
+            return;
+        }
+        isItemsChanged = true;
+        if (mDelegate.mMetrics != null && count > 0) {
+            mDelegate.mMetrics.count(CalendarView.CalendarMetricsListener.COUNT_SCHEME, count);
         }
     }
 
     /**
-     * 添加事件标记，来自Map
+     * 今天变化后刷新
      */
-    final void addSchemesFromMap() {
-        if (mDelegate.mSchemeDatesMap == null || mDelegate.mSchemeDatesMap.size() == 0) {
-            return;
+    final void onCurrentDayChanged() {
+        isItemsChanged = true;
+        invalidate();
+    }
+
+    /**
+     * 获取绘制用的日历，复用同一个对象，不要在绘制回调外持有
+     *
+     * @param index index
+     * @return 绘制用的日历
+     */
+    final Calendar getDrawCalendar(int index) {
+        mGrid.fillCalendar(index, mDrawCalendar);
+        return mDrawCalendar;
+    }
+
+    /**
+     * 获取相邻日期，用于范围、多选绘制时判断前后日期是否选中
+     *
+     * @param index index
+     * @return 复用的日历
+     */
+    final Calendar getAdjacentCalendar(int index) {
+        mGrid.fillCalendar(index, mAdjacentCalendar);
+        return mAdjacentCalendar;
+    }
+
+    /**
+     * 获取当前页面的日历项，第一次调用或日期、标记变化后才从mGrid填充
+     *
+     * @return 日历项
+     */
+    protected final List<Calendar> getItems() {
+        if (mItems == null || isItemsChanged) {
+            fillItems();
+            isItemsChanged = false;
         }
-        for (Calendar a : mItems) {
-            if (mDelegate.mSchemeDatesMap.containsKey(a.toString())) {
-                Calendar d = mDelegate.mSchemeDatesMap.get(a.toString());
-                if (d == null) {
-                    continue;
-                }
-                a.setScheme(TextUtils.isEmpty(d.getScheme()) ? mDelegate.getSchemeText() : d.getScheme());
-                a.setSchemeColor(d.getSchemeColor());
-                a.setSchemes(d.getSchemes());
+        return mItems;
+    }
+
+    /**
+     * 用网格数据填充mItems，复用已有的Calendar，只在格子数增加时创建
+     */
+    private void fillItems() {
+        int size = mGrid.size();
+        if (mItems == null) {
+            mItems = new ArrayList<>(size);
+        }
+        while (mItems.size() > size) {
+            mItems.remove(mItems.size() - 1);
+        }
+        int allocCount = 0;
+        for (int i = 0; i < size; i++) {
+            Calendar calendar;
+            if (i < mItems.size()) {
+                calendar = mItems.get(i);
             } else {
-                a.setScheme("");
-                a.setSchemeColor(0);
-                a.setSchemes(null);
+                calendar = new Calendar();
+                mItems.add(calendar);
+                ++allocCount;
             }
+            boolean hasLunar = calendar.getLunarCalendar() != null;
+            mGrid.fillCalendar(i, calendar);
+            if (!hasLunar && calendar.getLunarCalendar() != null) {
+                ++allocCount;
+            }
+        }
+        if (mDelegate.mMetrics != null) {
+            mDelegate.mMetrics.count(CalendarView.CalendarMetricsListener.COUNT_CALENDAR_ALLOC, allocCount);
+        }
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        CalendarMetrics metrics = mDelegate == null ? null : mDelegate.mMetrics;
+        if (metrics == null) {
+            super.draw(canvas);
+            return;
         }
+        int event = this instanceof BaseMonthView ?
+                CalendarView.CalendarMetricsListener.EVENT_MONTH_DRAW :
+                CalendarView.CalendarMetricsListener.EVENT_WEEK_DRAW;
+        long start = metrics.begin(event);
+        super.draw(canvas);
+        metrics.end(event, start);
     }
 
 
@@ -360,18 +452,13 @@ public abstract class BaseView extends View implements View.OnClickListener, Vie
      * @return true or false
      */
     protected boolean isSelected(Calendar calendar) {
-        return mItems != null && mItems.indexOf(calendar) == mCurrentItem;
+        return mGrid.size() != 0 && mGrid.indexOf(calendar) == mCurrentItem;
     }
 
     /**
      * 更新事件
      */
     final void update() {
-        if (mDelegate.mSchemeDatesMap == null || mDelegate.mSchemeDatesMap.size() == 0) {//清空操作
-            removeSchemes();
-            invalidate();
-            return;
-        }
         addSchemesFromMap();
         invalidate();
     }
@@ -384,8 +471,16 @@ public abstract class BaseView extends View implements View.OnClickListener, Vie
      * @return 是否拦截日期
      */
     protected final boolean onCalendarIntercept(Calendar calendar) {
-        return mDelegate.mCalendarInterceptListener != null &&
-                mDelegate.mCalendarInterceptListener.onCalendarIntercept(calendar);
+        if (mDelegate.mCalendarInterceptListener == null) {
+            return false;
+        }
+        //普通拦截事件的结果可能依赖App的状态，每次都回调，只有按月缓存的拦截使用掩码
+        int index = mDelegate.mCalendarInterceptListener instanceof InterceptCache ? mGrid.indexOf(calendar) : -1;
+        if (index < 0) {
+            return mDelegate.mCalendarInterceptListener.onCalendarIntercept(calendar);
+        }
+        updateRangeMask();
+        return mGrid.isIntercepted(index);
     }
 
     /**
@@ -395,7 +490,66 @@ public abstract class BaseView extends View implements View.OnClickListener, Vie
      * @return 是否在日期范围内
      */
     protected final boolean isInRange(Calendar calendar) {
-        return mDelegate != null && CalendarUtil.isCalendarInRange(calendar, mDelegate);
+        if (mDelegate == null) {
+            return false;
+        }
+        int index = mGrid.indexOf(calendar);
+        if (index < 0) {
+            return CalendarUtil.isCalendarInRange(calendar, mDelegate);
+        }
+        updateRangeMask();
+        return mGrid.isInRange(index);
+    }
+
+    /**
+     * 页面内第index个格子是否在日期范围内
+     *
+     * @param index index
+     * @return 是否在日期范围内
+     */
+    final boolean isInRangeAt(int index) {
+        updateRangeMask();
+        return mGrid.isInRange(index);
+    }
+
+    /**
+     * 多区间选择模式下是否在选中的区间内，页面内的日期使用预先计算的掩码
+     *
+     * @param calendar calendar
+     * @return 是否在选中的区间内
+     */
+    protected final boolean isInSelectedRanges(Calendar calendar) {
+        int index = mGrid.indexOf(calendar);
+        if (index < 0) {
+            return mDelegate.mSelectedRanges.contains(calendar);
+        }
+        return mGrid.isRangeSelected(index, mDelegate.mSelectedRanges);
+    }
+
+    /**
+     * 是否有范围选择，包括正在选择的区间第一天
+     *
+     * @return 是否有范围选择
+     */
+    final boolean hasRangeSelection() {
+        return mDelegate.mSelectedStartRangeCalendar != null ||
+                (mDelegate.getSelectMode() == CalendarViewDelegate.SELECT_MODE_MULTI_RANGE &&
+                        !mDelegate.mSelectedRanges.isEmpty());
+    }
+
+    /**
+     * 页面的日期范围和拦截掩码，范围版本变化后重新计算一次
+     */
+    private void updateRangeMask() {
+        int version = mDelegate.getRangeVersion();
+        if (mGrid.getRangeVersion() == version) {
+            return;
+        }
+        mGrid.updateRangeMask(version,
+                mDelegate.getRangeMinDate(),
+                mDelegate.getRangeMaxDate(),
+                mDelegate.mCalendarInterceptListener instanceof InterceptCache ?
+                        (InterceptCache) mDelegate.mCalendarInterceptListener : null);
     }
 
     /**
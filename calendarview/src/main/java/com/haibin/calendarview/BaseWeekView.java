@@ -34,8 +34,15 @@ public abstract class BaseWeekView extends BaseView {
      * @param calendar calendar
      */
     final void setup(Calendar calendar) {
-        mItems = CalendarUtil.initCalendarForWeekView(calendar, mDelegate, mDelegate.getWeekStart());
+        CalendarMetrics metrics = mDelegate.mMetrics;
+        long start = metrics == null ? 0 : metrics.begin(CalendarView.CalendarMetricsListener.EVENT_WEEK_GRID_BUILD);
+        mGrid.initWeek(calendar, mDelegate.getCurrentDay(), true);
         addSchemesFromMap();
+        if (metrics != null) {
+            metrics.end(CalendarView.CalendarMetricsListener.EVENT_WEEK_GRID_BUILD, start);
+            metrics.count(CalendarView.CalendarMetricsListener.COUNT_LUNAR, mGrid.size());
+            metrics.countCacheStats();
+        }
         invalidate();
     }
 
@@ -50,7 +57,7 @@ public abstract class BaseWeekView extends BaseView {
                 !calendar.equals(mDelegate.mSelectedCalendar)) {
             return;
         }
-        mCurrentItem = mItems.indexOf(calendar);
+        mCurrentItem = mGrid.indexOf(calendar);
     }
 
 
@@ -64,29 +71,33 @@ public abstract class BaseWeekView extends BaseView {
 
         if (mParentLayout == null ||
                 mDelegate.mInnerListener == null ||
-                mItems == null || mItems.size() == 0) {
+                mGrid.size() == 0) {
             return;
         }
 
         int week = CalendarUtil.getWeekViewIndexFromCalendar(calendar, mDelegate.getWeekStart());
-        if (mItems.contains(mDelegate.getCurrentDay())) {
+        if (mGrid.contains(mDelegate.getCurrentDay())) {
             week = CalendarUtil.getWeekViewIndexFromCalendar(mDelegate.getCurrentDay(), mDelegate.getWeekStart());
         }
 
         int curIndex = week;
 
-        Calendar currentCalendar = mItems.get(week);
+        //回调和mIndexCalendar会持有这个日期，从网格创建新的Calendar
+        Calendar currentCalendar = null;
         if (mDelegate.getSelectMode() != CalendarViewDelegate.SELECT_MODE_DEFAULT) {
-            if (mItems.contains(mDelegate.mSelectedCalendar)) {
+            if (mGrid.contains(mDelegate.mSelectedCalendar)) {
                 currentCalendar = mDelegate.mSelectedCalendar;
             } else {
                 mCurrentItem = -1;
             }
         }
+        if (currentCalendar == null) {
+            currentCalendar = mGrid.get(week);
+        }
 
         if (!isInRange(currentCalendar)) {
             curIndex = getEdgeIndex(isMinRangeEdge(currentCalendar));
-            currentCalendar = mItems.get(curIndex);
+            currentCalendar = mGrid.get(curIndex);
         }
 
 
@@ -125,12 +136,7 @@ public abstract class BaseWeekView extends BaseView {
      * @return 是否是最小访问边界了
      */
     final boolean isMinRangeEdge(Calendar calendar) {
-        java.util.Calendar c = java.util.Calendar.getInstance();
-        c.set(mDelegate.getMinYear(), mDelegate.getMinYearMonth() - 1, mDelegate.getMinYearDay());
-        long minTime = c.getTimeInMillis();
-        c.set(calendar.getYear(), calendar.getMonth() - 1, calendar.getDay());
-        long curTime = c.getTimeInMillis();
-        return curTime < minTime;
+        return calendar.getYear() * 10000 + calendar.getMonth() * 100 + calendar.getDay() < mDelegate.getRangeMinDate();
     }
 
     /**
@@ -140,9 +146,8 @@ public abstract class BaseWeekView extends BaseView {
      * @return 获得边界范围内下标
      */
     final int getEdgeIndex(boolean isMinEdge) {
-        for (int i = 0; i < mItems.size(); i++) {
-            Calendar item = mItems.get(i);
-            boolean isInRange = isInRange(item);
+        for (int i = 0; i < mGrid.size(); i++) {
+            boolean isInRange = isInRangeAt(i);
             if (isMinEdge && isInRange) {
                 return i;
             } else if (!isMinEdge && !isInRange) {
@@ -170,8 +175,8 @@ public abstract class BaseWeekView extends BaseView {
         }
         int indexY = (int) mY / mItemHeight;
         int position = indexY * 7 + indexX;// 选择项
-        if (position >= 0 && position < mItems.size())
-            return mItems.get(position);
+        if (position >= 0 && position < mGrid.size())
+            return mGrid.get(position);
         return null;
     }
 
@@ -187,8 +192,8 @@ public abstract class BaseWeekView extends BaseView {
         }
         int indexY = (int) mY / mItemHeight;
         int position = indexY * 7 + indexX;// 选择项
-        if (position >= 0 && position < mItems.size()) {
-            calendar = mItems.get(position);
+        if (position >= 0 && position < mGrid.size()) {
+            calendar = mGrid.get(position);
         }
         if (calendar == null) {
             return;
@@ -238,7 +243,7 @@ public abstract class BaseWeekView extends BaseView {
      * 更新当选模式
      */
     final void updateSingleSelect() {
-        if (!mItems.contains(mDelegate.mSelectedCalendar)) {
+        if (!mGrid.contains(mDelegate.mSelectedCalendar)) {
             mCurrentItem = -1;
             invalidate();
         }
@@ -246,16 +251,9 @@ public abstract class BaseWeekView extends BaseView {
 
     @Override
     void updateCurrentDate() {
-        if (mItems == null)
-            return;
-        if (mItems.contains(mDelegate.getCurrentDay())) {
-            for (Calendar a : mItems) {//添加操作
-                a.setCurrentDay(false);
-            }
-            int index = mItems.indexOf(mDelegate.getCurrentDay());
-            mItems.get(index).setCurrentDay(true);
+        if (mGrid.updateCurrentDay(mDelegate.getCurrentDay())) {
+            onCurrentDayChanged();
         }
-        invalidate();
     }
 
     @Override
@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * LRU缓存，按条目数或估算字节数限制大小，由CalendarCacheManager统一管理
+ * 不使用android.util.LruCache，它的resize需要API 21
+ * 线程安全，锁只保护map读写，计算在锁外进行，同一个key并发时只计算一次
+ */
+final class CalendarCache<K, V> {
+
+    /**
+     * 估算缓存值占用的字节数
+     */
+    interface Sizer<V> {
+        int sizeOf(V value);
+    }
+
+    /**
+     * 缓存未命中时计算缓存值
+     */
+    interface Loader<K, V> {
+        V load(K key);
+    }
+
+    /**
+     * 字符串数组字节数估算：数组头和引用，加上每个String对象和char数组
+     */
+    static final Sizer<String[]> STRING_ARRAY_SIZER = new Sizer<String[]>() {
+        @Override
+        public int sizeOf(String[] value) {
+            int size = 16 + 4 * value.length;
+            for (String s : value) {
+                if (s != null) {
+                    size += 40 + 2 * s.length();
+                }
+            }
+            return size;
+        }
+    };
+
+    private final String mName;
+
+    private final Sizer<? super V> mSizer;
+
+    private final LinkedHashMap<K, V> mMap = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 正在计算的key，其它线程等待同一个任务
+     */
+    private final Map<K, FutureTask<V>> mLoadingTasks = new HashMap<>();
+
+    /**
+     * 是否按字节限制，否则按条目数
+     */
+    private boolean isByteBudget;
+
+    private int mMaxSize;
+
+    /**
+     * 当前大小，单位和mMaxSize一致
+     */
+    private int mSize;
+
+    /**
+     * 估算字节数
+     */
+    private int mBytes;
+
+    private int mHitCount;
+
+    private int mMissCount;
+
+    private int mEvictionCount;
+
+    CalendarCache(String name, int maxEntries, Sizer<? super V> sizer) {
+        this.mName = name;
+        this.mMaxSize = maxEntries;
+        this.mSizer = sizer;
+    }
+
+    String getName() {
+        return mName;
+    }
+
+    synchronized V get(K key) {
+        V value = mMap.get(key);
+        if (value != null) {
+            ++mHitCount;
+        } else {
+            ++mMissCount;
+        }
+        return value;
+    }
+
+    /**
+     * 获取缓存，不存在时计算，同一个key并发请求只有一个线程计算，其它线程等待结果
+     *
+     * @param key    key
+     * @param loader loader
+     * @return value
+     */
+    V getOrLoad(final K key, final Loader<K, V> loader) {
+        FutureTask<V> task;
+        boolean isLoader = false;
+        synchronized (this) {
+            V value = get(key);
+            if (value != null) {
+                return value;
+            }
+            task = mLoadingTasks.get(key);
+            if (task == null) {
+                task = new FutureTask<>(new Callable<V>() {
+                    @Override
+                    public V call() {
+                        return loader.load(key);
+                    }
+                });
+                mLoadingTasks.put(key, task);
+                isLoader = true;
+            }
+        }
+        if (!isLoader) {
+            return await(task);
+        }
+        task.run();
+        try {
+            V value = await(task);
+            put(key, value);
+            return value;
+        } finally {
+            synchronized (this) {
+                mLoadingTasks.remove(key);
+            }
+        }
+    }
+
+    private static <V> V await(FutureTask<V> task) {
+        boolean isInterrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    isInterrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            if (isInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    synchronized void put(K key, V value) {
+        V previous = mMap.put(key, value);
+        if (previous != null) {
+            remove(previous);
+        }
+        int bytes = mSizer.sizeOf(value);
+        mBytes += bytes;
+        mSize += isByteBudget ? bytes : 1;
+        trimToSize(mMaxSize);
+    }
+
+    private void remove(V value) {
+        int bytes = mSizer.sizeOf(value);
+        mBytes -= bytes;
+        mSize -= isByteBudget ? bytes : 1;
+    }
+
+    /**
+     * 按LRU移除直到不超过maxSize
+     *
+     * @param maxSize maxSize
+     */
+    synchronized void trimToSize(int maxSize) {
+        Iterator<Map.Entry<K, V>> iterator = mMap.entrySet().iterator();
+        while (mSize > maxSize && iterator.hasNext()) {
+            V value = iterator.next().getValue();
+            iterator.remove();
+            remove(value);
+            ++mEvictionCount;
+        }
+    }
+
+    synchronized void evictAll() {
+        trimToSize(-1);
+    }
+
+    /**
+     * 设置预算
+     *
+     * @param maxSize      最大条目数或字节数
+     * @param isByteBudget 是否按字节
+     */
+    synchronized void setBudget(int maxSize, boolean isByteBudget) {
+        this.mMaxSize = maxSize;
+        this.isByteBudget = isByteBudget;
+        mSize = isByteBudget ? mBytes : mMap.size();
+        trimToSize(maxSize);
+    }
+
+    /**
+     * 按条目限制时保证至少能容纳entries条，按字节限制时不变
+     *
+     * @param entries 条目数
+     */
+    synchronized void ensureEntryCapacity(int entries) {
+        if (!isByteBudget && mMaxSize < entries) {
+            mMaxSize = entries;
+        }
+    }
+
+    synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    synchronized int getMaxSize() {
+        return mMaxSize;
+    }
+
+    synchronized CalendarCacheManager.CacheStats getStats() {
+        return new CalendarCacheManager.CacheStats(mName, isByteBudget, mSize, mMaxSize,
+                mMap.size(), mBytes, mHitCount, mMissCount, mEvictionCount);
+    }
+}
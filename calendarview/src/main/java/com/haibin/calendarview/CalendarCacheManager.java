@@ -0,0 +1,440 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 日历缓存管理，所有静态缓存在这里注册，统一设置预算、统计和在内存紧张时释放
+ * 第一次创建CalendarView时注册onTrimMemory回调
+ */
+@SuppressWarnings("unused")
+public final class CalendarCacheManager {
+
+    /**
+     * 每年24节气
+     */
+    public static final String CACHE_SOLAR_TERMS = "solar_terms";
+
+    /**
+     * 每年母亲节、父亲节、感恩节
+     */
+    public static final String CACHE_SPECIAL_FESTIVAL = "special_festival";
+
+    private static final List<CalendarCache<?, ?>> CACHES = new ArrayList<>();
+
+    private static boolean isRegistered;
+
+    private CalendarCacheManager() {
+    }
+
+    /**
+     * 注册缓存
+     *
+     * @param cache cache
+     * @return cache
+     */
+    static <K, V> CalendarCache<K, V> register(CalendarCache<K, V> cache) {
+        synchronized (CACHES) {
+            CACHES.add(cache);
+        }
+        return cache;
+    }
+
+    /**
+     * 注册系统内存回调，只注册一次
+     *
+     * @param context context
+     */
+    static void init(Context context) {
+        synchronized (CACHES) {
+            if (isRegistered) {
+                return;
+            }
+            isRegistered = true;
+        }
+        context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                trimMemory(level);
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+
+            }
+
+            @Override
+            public void onLowMemory() {
+                evictAll();
+            }
+        });
+    }
+
+    /**
+     * 在后台并行计算范围内每年的节气和特殊节日，翻到新的年份时不再在主线程计算
+     * 从当前年份开始由近及远提交，按条目限制的缓存会扩大到能容纳整个范围
+     *
+     * @param context  context
+     * @param minYear  最小年份
+     * @param maxYear  最大年份
+     * @param executor 执行任务的线程池，null时使用内部线程池，完成后关闭
+     * @param listener 进度回调，在主线程回调，可为null
+     * @return 任务，可取消
+     */
+    public static WarmUpTask warmUp(Context context, int minYear, int maxYear,
+                                    Executor executor, OnWarmUpListener listener) {
+        LunarCalendar.init(context);
+        minYear = Math.max(minYear, CalendarViewDelegate.MIN_YEAR);
+        maxYear = Math.min(maxYear, CalendarViewDelegate.MAX_YEAR);
+        int total = Math.max(0, maxYear - minYear + 1);
+        for (CalendarCache<?, ?> cache : getCaches()) {
+            cache.ensureEntryCapacity(total);
+        }
+        ExecutorService ownExecutor = null;
+        if (executor == null) {
+            ownExecutor = Executors.newFixedThreadPool(
+                    Math.max(1, Math.min(total, Runtime.getRuntime().availableProcessors() - 1)));
+            executor = ownExecutor;
+        }
+        WarmUpTask task = new WarmUpTask(total, ownExecutor, listener);
+        if (total == 0) {
+            task.onYearDone(false);
+            return task;
+        }
+        int year = Math.min(maxYear, Math.max(minYear, java.util.Calendar.getInstance().get(java.util.Calendar.YEAR)));
+        executor.execute(task.createRunnable(year));
+        for (int i = 1; year - i >= minYear || year + i <= maxYear; i++) {
+            if (year + i <= maxYear) {
+                executor.execute(task.createRunnable(year + i));
+            }
+            if (year - i >= minYear) {
+                executor.execute(task.createRunnable(year - i));
+            }
+        }
+        return task;
+    }
+
+    /**
+     * 设置缓存预算
+     *
+     * @param name         缓存名称，如CACHE_SOLAR_TERMS
+     * @param maxSize      最大条目数或字节数
+     * @param isByteBudget true按估算字节数，false按条目数
+     */
+    public static void setBudget(String name, int maxSize, boolean isByteBudget) {
+        CalendarCache<?, ?> cache = findCache(name);
+        if (cache != null) {
+            cache.setBudget(maxSize, isByteBudget);
+        }
+    }
+
+    /**
+     * 根据系统内存等级释放缓存：后台或内存偏低时减半，更严重时全部清空
+     *
+     * @param level ComponentCallbacks2.TRIM_MEMORY_*
+     */
+    public static void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            evictAll();
+            return;
+        }
+        for (CalendarCache<?, ?> cache : getCaches()) {
+            cache.trimToSize(cache.getMaxSize() / 2);
+        }
+    }
+
+    /**
+     * 清空所有缓存
+     */
+    public static void evictAll() {
+        for (CalendarCache<?, ?> cache : getCaches()) {
+            cache.evictAll();
+        }
+    }
+
+    /**
+     * 获取所有缓存的统计
+     *
+     * @return 缓存统计
+     */
+    public static List<CacheStats> getStats() {
+        List<CacheStats> stats = new ArrayList<>();
+        for (CalendarCache<?, ?> cache : getCaches()) {
+            stats.add(cache.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * 所有缓存的命中次数之和
+     *
+     * @return 命中次数
+     */
+    static int getTotalHitCount() {
+        int count = 0;
+        for (CalendarCache<?, ?> cache : getCaches()) {
+            count += cache.getHitCount();
+        }
+        return count;
+    }
+
+    /**
+     * 所有缓存的未命中次数之和
+     *
+     * @return 未命中次数
+     */
+    static int getTotalMissCount() {
+        int count = 0;
+        for (CalendarCache<?, ?> cache : getCaches()) {
+            count += cache.getMissCount();
+        }
+        return count;
+    }
+
+    private static CalendarCache<?, ?> findCache(String name) {
+        for (CalendarCache<?, ?> cache : getCaches()) {
+            if (cache.getName().equals(name)) {
+                return cache;
+            }
+        }
+        return null;
+    }
+
+    private static List<CalendarCache<?, ?>> getCaches() {
+        synchronized (CACHES) {
+            return new ArrayList<>(CACHES);
+        }
+    }
+
+    /**
+     * 预计算进度回调
+     */
+    public interface OnWarmUpListener {
+
+        /**
+         * 完成一年
+         *
+         * @param completed 已完成年数
+         * @param total     总年数
+         */
+        void onWarmUpProgress(int completed, int total);
+
+        /**
+         * 全部完成或取消
+         *
+         * @param isCancelled 是否被取消
+         */
+        void onWarmUpFinish(boolean isCancelled);
+    }
+
+    /**
+     * 预计算任务
+     */
+    public static final class WarmUpTask {
+
+        private final int mTotal;
+
+        private final ExecutorService mOwnExecutor;
+
+        private final OnWarmUpListener mListener;
+
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        private final AtomicBoolean isCancelled = new AtomicBoolean();
+
+        /**
+         * 已处理的年数，包括取消后跳过的
+         */
+        private final AtomicInteger mDoneCount = new AtomicInteger();
+
+        private final AtomicInteger mCompletedCount = new AtomicInteger();
+
+        WarmUpTask(int total, ExecutorService ownExecutor, OnWarmUpListener listener) {
+            this.mTotal = total;
+            this.mOwnExecutor = ownExecutor;
+            this.mListener = listener;
+        }
+
+        /**
+         * 取消，已经开始计算的年份会算完，剩余的跳过
+         */
+        public void cancel() {
+            isCancelled.set(true);
+        }
+
+        public boolean isCancelled() {
+            return isCancelled.get();
+        }
+
+        public boolean isFinished() {
+            return mDoneCount.get() >= mTotal;
+        }
+
+        public int getCompletedCount() {
+            return mCompletedCount.get();
+        }
+
+        public int getTotal() {
+            return mTotal;
+        }
+
+        private Runnable createRunnable(final int year) {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    boolean isComputed = false;
+                    if (!isCancelled.get()) {
+                        LunarCalendar.warmUp(year);
+                        isComputed = true;
+                    }
+                    onYearDone(isComputed);
+                }
+            };
+        }
+
+        private void onYearDone(boolean isComputed) {
+            final int completed = isComputed ? mCompletedCount.incrementAndGet() : mCompletedCount.get();
+            boolean isFinished = mTotal == 0 || mDoneCount.incrementAndGet() == mTotal;
+            if (isFinished && mOwnExecutor != null) {
+                mOwnExecutor.shutdown();
+            }
+            if (mListener == null) {
+                return;
+            }
+            if (isComputed) {
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mListener.onWarmUpProgress(completed, mTotal);
+                    }
+                });
+            }
+            if (isFinished) {
+                final boolean cancelled = isCancelled.get();
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mListener.onWarmUpFinish(cancelled);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * 缓存统计
+     */
+    public static final class CacheStats {
+
+        private final String name;
+
+        private final boolean isByteBudget;
+
+        private final int size;
+
+        private final int maxSize;
+
+        private final int entryCount;
+
+        private final int byteCount;
+
+        private final int hitCount;
+
+        private final int missCount;
+
+        private final int evictionCount;
+
+        CacheStats(String name, boolean isByteBudget, int size, int maxSize, int entryCount,
+                   int byteCount, int hitCount, int missCount, int evictionCount) {
+            this.name = name;
+            this.isByteBudget = isByteBudget;
+            this.size = size;
+            this.maxSize = maxSize;
+            this.entryCount = entryCount;
+            this.byteCount = byteCount;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isByteBudget() {
+            return isByteBudget;
+        }
+
+        /**
+         * 当前大小，单位和maxSize一致
+         *
+         * @return 当前大小
+         */
+        public int getSize() {
+            return size;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public int getEntryCount() {
+            return entryCount;
+        }
+
+        /**
+         * 估算字节数
+         *
+         * @return 估算字节数
+         */
+        public int getByteCount() {
+            return byteCount;
+        }
+
+        public int getHitCount() {
+            return hitCount;
+        }
+
+        public int getMissCount() {
+            return missCount;
+        }
+
+        public int getEvictionCount() {
+            return evictionCount;
+        }
+
+        @Override
+        public String toString() {
+            return name + " size=" + size + "/" + maxSize + (isByteBudget ? "B" : "") +
+                    " entries=" + entryCount + " bytes=" + byteCount +
+                    " hit=" + hitCount + " miss=" + missCount + " evict=" + evictionCount;
+        }
+    }
+}
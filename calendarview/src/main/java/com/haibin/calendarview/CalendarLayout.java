@@ -18,9 +18,6 @@ package com.haibin.calendarview;
 
 import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
-import android.animation.ObjectAnimator;
-import android.animation.ValueAnimator;
-import android.animation.ValueAnimator.AnimatorUpdateListener;
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.res.TypedArray;
@@ -32,11 +29,17 @@ import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
 import android.view.animation.LinearInterpolator;
 import android.widget.AbsListView;
 import android.widget.LinearLayout;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.view.NestedScrollingParent3;
+import androidx.core.view.NestedScrollingParentHelper;
+import androidx.core.view.ViewCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
 
@@ -44,7 +47,7 @@ import androidx.recyclerview.widget.RecyclerView;
  * 日历布局
  */
 @SuppressWarnings("unused")
-public class CalendarLayout extends LinearLayout {
+public class CalendarLayout extends LinearLayout implements NestedScrollingParent3 {
 
     /**
      * 多点触控支持
@@ -164,6 +167,18 @@ public class CalendarLayout extends LinearLayout {
 
     private CalendarViewDelegate mDelegate;
 
+    /**
+     * 展开收缩动画插值器，ContentView和月视图共用，保证两者同步
+     */
+    private final Interpolator mTranslationInterpolator = new AccelerateDecelerateInterpolator();
+
+    private final NestedScrollingParentHelper mNestedScrollingParentHelper = new NestedScrollingParentHelper(this);
+
+    /**
+     * ContentView中的嵌套滑动子View正在滑动，此时不再手动拦截事件
+     */
+    private boolean isNestedScrolling;
+
     public CalendarLayout(Context context, AttributeSet attrs) {
         super(context, attrs);
         setOrientation(LinearLayout.VERTICAL);
@@ -191,6 +206,11 @@ public class CalendarLayout extends LinearLayout {
                 delegate.mSelectedCalendar :
                 delegate.createCurrentDate());
         updateContentViewTranslateY();
+        //周视图预先布局，展开收缩时只切换可见性，不会重新测量
+        if (mWeekPager != null && mWeekPager.getVisibility() == GONE &&
+                mCalendarShowMode == CALENDAR_SHOW_MODE_BOTH_MONTH_WEEK_VIEW) {
+            mWeekPager.setVisibility(INVISIBLE);
+        }
     }
 
     /**
@@ -232,9 +252,8 @@ public class CalendarLayout extends LinearLayout {
         if (mDelegate.getMonthViewShowMode() == CalendarViewDelegate.MODE_ALL_MONTH) {
             mContentViewTranslateY = 5 * mItemHeight;
         } else {
-            mContentViewTranslateY = CalendarUtil.getMonthViewHeight(calendar.getYear(),
-                    calendar.getMonth(), mItemHeight, mDelegate.getWeekStart())
-                    - mItemHeight;
+            mContentViewTranslateY = (mDelegate.getMonthViewLineCount(calendar.getYear(), calendar.getMonth()) - 1)
+                    * mItemHeight;
         }
         //已经显示周视图，则需要动态平移contentView的高度
         if (mWeekPager.getVisibility() == VISIBLE) {
@@ -256,8 +275,8 @@ public class CalendarLayout extends LinearLayout {
         if (mDelegate.getMonthViewShowMode() == CalendarViewDelegate.MODE_ALL_MONTH) {
             mContentViewTranslateY = 5 * mItemHeight;
         } else {
-            mContentViewTranslateY = CalendarUtil.getMonthViewHeight(calendar.getYear(), calendar.getMonth(),
-                    mItemHeight, mDelegate.getWeekStart()) - mItemHeight;
+            mContentViewTranslateY = (mDelegate.getMonthViewLineCount(calendar.getYear(), calendar.getMonth()) - 1)
+                    * mItemHeight;
         }
         translationViewPager();
         if (mWeekPager.getVisibility() == VISIBLE) {
@@ -429,6 +448,9 @@ public class CalendarLayout extends LinearLayout {
         if (mYearView.getVisibility() == VISIBLE || mDelegate.isShowYearSelectedLayout) {
             return super.dispatchTouchEvent(ev);
         }
+        if (isNestedScrolling) {
+            return super.dispatchTouchEvent(ev);
+        }
         final int action = ev.getAction();
         float y = ev.getY();
         if (action == MotionEvent.ACTION_MOVE) {
@@ -471,6 +493,9 @@ public class CalendarLayout extends LinearLayout {
         if (mYearView.getVisibility() == VISIBLE || mDelegate.isShowYearSelectedLayout) {
             return super.onInterceptTouchEvent(ev);
         }
+        if (isNestedScrolling) {
+            return false;
+        }
         final int action = ev.getAction();
         float y = ev.getY();
         float x = ev.getX();
@@ -519,6 +544,173 @@ public class CalendarLayout extends LinearLayout {
     }
 
 
+    /**
+     * 是否可以处理ContentView的嵌套滑动
+     *
+     * @return 是否可以处理嵌套滑动
+     */
+    private boolean isNestedScrollEnable() {
+        if (isAnimating || mGestureMode == GESTURE_MODE_DISABLED) {
+            return false;
+        }
+        if (mCalendarShowMode != CALENDAR_SHOW_MODE_BOTH_MONTH_WEEK_VIEW) {
+            return false;
+        }
+        if (mYearView == null || mDelegate == null ||
+                mCalendarView == null || mCalendarView.getVisibility() == GONE ||
+                mContentView == null || mContentView.getVisibility() != VISIBLE) {
+            return false;
+        }
+        return mYearView.getVisibility() != VISIBLE && !mDelegate.isShowYearSelectedLayout;
+    }
+
+    @Override
+    public boolean onStartNestedScroll(@NonNull View child, @NonNull View target, int axes, int type) {
+        return type == ViewCompat.TYPE_TOUCH &&
+                (axes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0 &&
+                isNestedScrollEnable();
+    }
+
+    @Override
+    public void onNestedScrollAccepted(@NonNull View child, @NonNull View target, int axes, int type) {
+        mNestedScrollingParentHelper.onNestedScrollAccepted(child, target, axes, type);
+        isNestedScrolling = true;
+    }
+
+    @Override
+    public void onStopNestedScroll(@NonNull View target, int type) {
+        mNestedScrollingParentHelper.onStopNestedScroll(target, type);
+        if (type != ViewCompat.TYPE_TOUCH) {
+            return;
+        }
+        isNestedScrolling = false;
+        if (isAnimating || mContentView == null) {
+            return;
+        }
+        float translationY = mContentView.getTranslationY();
+        if (translationY == 0 || translationY == -mContentViewTranslateY) {
+            return;
+        }
+        //手指松开但没有fling，停在中间时就近展开或收缩
+        if (translationY > -mContentViewTranslateY / 2f) {
+            expand();
+        } else {
+            shrink();
+        }
+    }
+
+    /**
+     * 手指上滑，先收缩日历，收缩完成后再交给子View滚动
+     */
+    @Override
+    public void onNestedPreScroll(@NonNull View target, int dx, int dy, @NonNull int[] consumed, int type) {
+        if (dy > 0 && isNestedScrolling) {
+            consumed[1] = offsetContentView(-dy);
+        }
+    }
+
+    /**
+     * 手指下滑，子View已经滚动到顶部，剩下的距离用来展开日历
+     */
+    @Override
+    public void onNestedScroll(@NonNull View target, int dxConsumed, int dyConsumed,
+                               int dxUnconsumed, int dyUnconsumed, int type, @NonNull int[] consumed) {
+        if (dyUnconsumed < 0 && isNestedScrolling) {
+            consumed[1] += offsetContentView(-dyUnconsumed);
+        }
+    }
+
+    @Override
+    public void onNestedScroll(@NonNull View target, int dxConsumed, int dyConsumed,
+                               int dxUnconsumed, int dyUnconsumed, int type) {
+        if (dyUnconsumed < 0 && isNestedScrolling) {
+            offsetContentView(-dyUnconsumed);
+        }
+    }
+
+    /**
+     * 日历没有完全展开或收缩时，fling直接用来完成展开或收缩
+     */
+    @Override
+    public boolean onNestedPreFling(@NonNull View target, float velocityX, float velocityY) {
+        if (!isNestedScrolling || isAnimating || mContentView == null) {
+            return false;
+        }
+        float translationY = mContentView.getTranslationY();
+        if (velocityY > 0 && translationY > -mContentViewTranslateY) {
+            shrink();
+            return true;
+        }
+        if (velocityY < 0 && translationY < 0 && !target.canScrollVertically(-1)) {
+            expand();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean onNestedFling(@NonNull View target, float velocityX, float velocityY, boolean consumed) {
+        return false;
+    }
+
+    @Override
+    public boolean onStartNestedScroll(@NonNull View child, @NonNull View target, int axes) {
+        return onStartNestedScroll(child, target, axes, ViewCompat.TYPE_TOUCH);
+    }
+
+    @Override
+    public void onNestedScrollAccepted(@NonNull View child, @NonNull View target, int axes) {
+        onNestedScrollAccepted(child, target, axes, ViewCompat.TYPE_TOUCH);
+    }
+
+    @Override
+    public void onStopNestedScroll(@NonNull View target) {
+        onStopNestedScroll(target, ViewCompat.TYPE_TOUCH);
+    }
+
+    @Override
+    public void onNestedScroll(@NonNull View target, int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed) {
+        onNestedScroll(target, dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, ViewCompat.TYPE_TOUCH);
+    }
+
+    @Override
+    public void onNestedPreScroll(@NonNull View target, int dx, int dy, @NonNull int[] consumed) {
+        onNestedPreScroll(target, dx, dy, consumed, ViewCompat.TYPE_TOUCH);
+    }
+
+    @Override
+    public int getNestedScrollAxes() {
+        return mNestedScrollingParentHelper.getNestedScrollAxes();
+    }
+
+    /**
+     * 嵌套滑动时平移ContentView，到达最大距离时切换周视图
+     *
+     * @param dy 平移量，负数收缩，正数展开
+     * @return 实际消耗的距离，符号和嵌套滑动的dy一致
+     */
+    private int offsetContentView(int dy) {
+        float translationY = mContentView.getTranslationY();
+        float target = Math.max(-mContentViewTranslateY, Math.min(0, translationY + dy));
+        int offset = (int) (target - translationY);
+        if (offset == 0) {
+            return 0;
+        }
+        hideWeek(false);
+        mContentView.setTranslationY(target);
+        translationViewPager();
+        if (target == -mContentViewTranslateY) {
+            showWeek();
+            isWeekView = true;
+        } else if (target == 0) {
+            if (isWeekView && mDelegate.mViewChangeListener != null) {
+                mDelegate.mViewChangeListener.onViewChange(true);
+            }
+            isWeekView = false;
+        }
+        return -offset;
+    }
+
     private int getPointerIndex(MotionEvent ev, int id) {
         int activePointerIndex = ev.findPointerIndex(id);
         if (activePointerIndex == -1) {
@@ -540,11 +732,7 @@ public class CalendarLayout extends LinearLayout {
         int weekBarHeight = CalendarUtil.dipToPx(getContext(), 1)
                 + mDelegate.getWeekBarHeight();
 
-        int monthHeight = CalendarUtil.getMonthViewHeight(year, month,
-                mDelegate.getCalendarItemHeight(),
-                mDelegate.getWeekStart(),
-                mDelegate.getMonthViewShowMode())
-                + weekBarHeight;
+        int monthHeight = mDelegate.getMonthViewHeight(year, month) + weekBarHeight;
 
         int height = MeasureSpec.getSize(heightMeasureSpec);
 
@@ -603,8 +791,13 @@ public class CalendarLayout extends LinearLayout {
      * 平移ViewPager月视图
      */
     private void translationViewPager() {
+        CalendarMetrics metrics = mDelegate.mMetrics;
+        long start = metrics == null ? 0 : metrics.begin(CalendarView.CalendarMetricsListener.EVENT_LAYOUT_TRANSLATE);
         float percent = mContentView.getTranslationY() * 1.0f / mContentViewTranslateY;
         mMonthView.setTranslationY(mViewPagerTranslateY * percent);
+        if (metrics != null) {
+            metrics.end(CalendarView.CalendarMetricsListener.EVENT_LAYOUT_TRANSLATE, start);
+        }
     }
 
 
@@ -685,24 +878,12 @@ public class CalendarLayout extends LinearLayout {
                 mContentView == null)
             return false;
         if (mMonthView.getVisibility() != VISIBLE) {
-            mWeekPager.setVisibility(GONE);
+            mWeekPager.setVisibility(INVISIBLE);
             onShowMonthView();
             isWeekView = false;
             mMonthView.setVisibility(VISIBLE);
         }
-        ObjectAnimator objectAnimator = ObjectAnimator.ofFloat(mContentView,
-                "translationY", mContentView.getTranslationY(), 0f);
-        objectAnimator.setDuration(duration);
-        objectAnimator.addUpdateListener(new AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                float currentValue = (Float) animation.getAnimatedValue();
-                float percent = currentValue * 1.0f / mContentViewTranslateY;
-                mMonthView.setTranslationY(mViewPagerTranslateY * percent);
-                isAnimating = true;
-            }
-        });
-        objectAnimator.addListener(new AnimatorListenerAdapter() {
+        startTranslationAnimation(0, duration, new AnimatorListenerAdapter() {
             @Override
             public void onAnimationEnd(Animator animation) {
                 super.onAnimationEnd(animation);
@@ -718,7 +899,6 @@ public class CalendarLayout extends LinearLayout {
 
             }
         });
-        objectAnimator.start();
         return true;
     }
 
@@ -739,19 +919,7 @@ public class CalendarLayout extends LinearLayout {
         if (isAnimating || mContentView == null) {
             return false;
         }
-        ObjectAnimator objectAnimator = ObjectAnimator.ofFloat(mContentView,
-                "translationY", mContentView.getTranslationY(), -mContentViewTranslateY);
-        objectAnimator.setDuration(duration);
-        objectAnimator.addUpdateListener(new AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                float currentValue = (Float) animation.getAnimatedValue();
-                float percent = currentValue * 1.0f / mContentViewTranslateY;
-                mMonthView.setTranslationY(mViewPagerTranslateY * percent);
-                isAnimating = true;
-            }
-        });
-        objectAnimator.addListener(new AnimatorListenerAdapter() {
+        startTranslationAnimation(-mContentViewTranslateY, duration, new AnimatorListenerAdapter() {
             @Override
             public void onAnimationEnd(Animator animation) {
                 super.onAnimationEnd(animation);
@@ -761,10 +929,45 @@ public class CalendarLayout extends LinearLayout {
 
             }
         });
-        objectAnimator.start();
         return true;
     }
 
+    /**
+     * ContentView和月视图同时平移，使用ViewPropertyAnimator，不设置UpdateListener，
+     * 硬件加速时在RenderThread执行，动画过程中不会requestLayout
+     *
+     * @param contentTranslationY ContentView目标平移量
+     * @param duration            时长
+     * @param listener            ContentView动画结束监听，结束后从ContentView的animator移除
+     */
+    private void startTranslationAnimation(float contentTranslationY, int duration,
+                                           final Animator.AnimatorListener listener) {
+        float percent = mContentViewTranslateY == 0 ? 0 : contentTranslationY / mContentViewTranslateY;
+        isAnimating = true;
+        mMonthView.animate()
+                .translationY(mViewPagerTranslateY * percent)
+                .setDuration(duration)
+                .setInterpolator(mTranslationInterpolator)
+                .setListener(null);
+        mContentView.animate()
+                .translationY(contentTranslationY)
+                .setDuration(duration)
+                .setInterpolator(mTranslationInterpolator)
+                .setListener(new AnimatorListenerAdapter() {
+                    @Override
+                    public void onAnimationCancel(Animator animation) {
+                        listener.onAnimationCancel(animation);
+                    }
+
+                    @Override
+                    public void onAnimationEnd(Animator animation) {
+                        //ContentView的animator使用者也会用，不移除的话之后的animate()还会回调这里
+                        mContentView.animate().setListener(null);
+                        listener.onAnimationEnd(animation);
+                    }
+                });
+    }
+
     /**
      * 初始化状态
      */
@@ -781,19 +984,7 @@ public class CalendarLayout extends LinearLayout {
             post(new Runnable() {
                 @Override
                 public void run() {
-                    ObjectAnimator objectAnimator = ObjectAnimator.ofFloat(mContentView,
-                            "translationY", mContentView.getTranslationY(), -mContentViewTranslateY);
-                    objectAnimator.setDuration(0);
-                    objectAnimator.addUpdateListener(new AnimatorUpdateListener() {
-                        @Override
-                        public void onAnimationUpdate(ValueAnimator animation) {
-                            float currentValue = (Float) animation.getAnimatedValue();
-                            float percent = currentValue * 1.0f / mContentViewTranslateY;
-                            mMonthView.setTranslationY(mViewPagerTranslateY * percent);
-                            isAnimating = true;
-                        }
-                    });
-                    objectAnimator.addListener(new AnimatorListenerAdapter() {
+                    startTranslationAnimation(-mContentViewTranslateY, 0, new AnimatorListenerAdapter() {
                         @Override
                         public void onAnimationEnd(Animator animation) {
                             super.onAnimationEnd(animation);
@@ -807,7 +998,6 @@ public class CalendarLayout extends LinearLayout {
 
                         }
                     });
-                    objectAnimator.start();
                 }
             });
         } else {
@@ -830,7 +1020,7 @@ public class CalendarLayout extends LinearLayout {
         if (isNotify) {
             onShowMonthView();
         }
-        mWeekPager.setVisibility(GONE);
+        mWeekPager.setVisibility(INVISIBLE);
         mMonthView.setVisibility(VISIBLE);
     }
 
@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.lang.reflect.Constructor;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 纵向连续月份列表，如机票、酒店的日期选择
+ * 使用RecyclerView复用BaseMonthView，属性和CalendarView一致，
+ * 建议 month_view_show_mode="mode_only_current" 只显示当月日期
+ */
+@SuppressWarnings("unused")
+public class CalendarListView extends RecyclerView {
+
+    private final CalendarViewDelegate mDelegate;
+
+    private final MonthListAdapter mAdapter;
+
+    private int mMonthCount;
+
+    public CalendarListView(@NonNull Context context) {
+        this(context, null);
+    }
+
+    public CalendarListView(@NonNull Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        mDelegate = new CalendarViewDelegate(context, attrs);
+        if (mDelegate.getSelectMode() == CalendarViewDelegate.SELECT_MODE_DEFAULT) {
+            mDelegate.mSelectedCalendar = CalendarUtil.isCalendarInRange(mDelegate.getCurrentDay(), mDelegate) ?
+                    mDelegate.createCurrentDate() :
+                    mDelegate.getMinRangeCalendar();
+        } else {
+            mDelegate.mSelectedCalendar = new Calendar();
+        }
+        mDelegate.mIndexCalendar = mDelegate.mSelectedCalendar;
+        mDelegate.mInnerListener = new CalendarView.OnInnerDateSelectedListener() {
+            @Override
+            public void onMonthDateSelected(Calendar calendar, boolean isClick) {
+                mDelegate.mIndexCalendar = calendar;
+                if (mDelegate.getSelectMode() == CalendarViewDelegate.SELECT_MODE_DEFAULT || isClick) {
+                    mDelegate.mSelectedCalendar = calendar;
+                }
+                updateSelected();
+            }
+
+            @Override
+            public void onWeekDateSelected(Calendar calendar, boolean isClick) {
+
+            }
+        };
+        updateMonthCount();
+        LinearLayoutManager layoutManager = new LinearLayoutManager(context, VERTICAL, false);
+        layoutManager.setItemPrefetchEnabled(true);
+        setLayoutManager(layoutManager);
+        mAdapter = new MonthListAdapter();
+        setAdapter(mAdapter);
+        scrollToPosition(getPosition(mDelegate.mIndexCalendar.isAvailable() ?
+                mDelegate.mIndexCalendar : mDelegate.getCurrentDay()));
+    }
+
+    /**
+     * 设置日期范围
+     *
+     * @param minYear      最小年份
+     * @param minYearMonth 最小年份对应月份
+     * @param minYearDay   最小年份对应天
+     * @param maxYear      最大月份
+     * @param maxYearMonth 最大月份对应月份
+     * @param maxYearDay   最大月份对应天
+     */
+    public void setRange(int minYear, int minYearMonth, int minYearDay,
+                         int maxYear, int maxYearMonth, int maxYearDay) {
+        if (CalendarUtil.compareTo(minYear, minYearMonth, minYearDay,
+                maxYear, maxYearMonth, maxYearDay) > 0) {
+            return;
+        }
+        mDelegate.setRange(minYear, minYearMonth, minYearDay,
+                maxYear, maxYearMonth, maxYearDay);
+        updateMonthCount();
+        mAdapter.notifyDataSetChanged();
+    }
+
+    /**
+     * 设置月视图，可以使用RangeMonthView、MultiMonthView等子类
+     *
+     * @param cls MonthView.class
+     */
+    public final void setMonthView(Class<?> cls) {
+        if (cls == null || cls == mDelegate.getMonthViewClass()) {
+            return;
+        }
+        mDelegate.setMonthViewClass(cls);
+        getRecycledViewPool().clear();
+        setAdapter(mAdapter);
+    }
+
+    /**
+     * 标记哪些日期有事件
+     *
+     * @param schemeDates 标记
+     */
+    public final void setSchemeDate(Map<String, Calendar> schemeDates) {
+        mDelegate.mSchemeDatesMap = schemeDates;
+        mDelegate.onSchemesChanged();
+        mDelegate.updateSelectCalendarScheme();
+        for (int i = 0; i < getChildCount(); i++) {
+            ((BaseMonthView) getChildAt(i)).update();
+        }
+    }
+
+    /**
+     * 设置重复事件规则，只在显示的月份内计算
+     *
+     * @param rules 规则，null清空
+     */
+    public final void setSchemeRules(List<SchemeRule> rules) {
+        mDelegate.mSchemeRules.setRules(rules);
+        mDelegate.onSchemesChanged();
+        mDelegate.updateSelectCalendarScheme();
+        for (int i = 0; i < getChildCount(); i++) {
+            ((BaseMonthView) getChildAt(i)).update();
+        }
+    }
+
+    /**
+     * 设置最小范围和最大访问，default：minRange = -1，maxRange = -1 没有限制
+     *
+     * @param minRange minRange
+     * @param maxRange maxRange
+     */
+    public final void setSelectRange(int minRange, int maxRange) {
+        if (minRange > maxRange) {
+            return;
+        }
+        mDelegate.setSelectRange(minRange, maxRange);
+    }
+
+    /**
+     * 清除选择范围
+     */
+    public final void clearSelectRange() {
+        mDelegate.clearSelectRange();
+        updateSelected();
+    }
+
+    /**
+     * 获取选中范围
+     *
+     * @return return
+     */
+    public final List<Calendar> getSelectCalendarRange() {
+        return mDelegate.getSelectCalendarRange();
+    }
+
+    /**
+     * 滚动到某个月
+     *
+     * @param year  year
+     * @param month month
+     */
+    public void scrollToMonth(int year, int month) {
+        Calendar calendar = new Calendar();
+        calendar.setYear(year);
+        calendar.setMonth(month);
+        calendar.setDay(1);
+        scrollToPosition(getPosition(calendar));
+    }
+
+    public void setOnCalendarSelectListener(CalendarView.OnCalendarSelectListener listener) {
+        mDelegate.mCalendarSelectListener = listener;
+    }
+
+    public final void setOnCalendarRangeSelectListener(CalendarView.OnCalendarRangeSelectListener listener) {
+        mDelegate.mCalendarRangeSelectListener = listener;
+    }
+
+    public final void setOnCalendarMultiSelectListener(CalendarView.OnCalendarMultiSelectListener listener) {
+        mDelegate.mCalendarMultiSelectListener = listener;
+    }
+
+    public final void setOnCalendarInterceptListener(CalendarView.OnCalendarInterceptListener listener) {
+        mDelegate.mCalendarInterceptListener = listener;
+        mDelegate.onRangeChanged();
+    }
+
+    /**
+     * 按日期范围查询的拦截事件，结果按月缓存
+     *
+     * @param listener listener
+     */
+    public final void setOnCalendarRangeInterceptListener(CalendarView.OnCalendarRangeInterceptListener listener) {
+        mDelegate.mCalendarInterceptListener = listener == null ? null : new InterceptCache(listener);
+        mDelegate.onRangeChanged();
+    }
+
+    /**
+     * 选择改变后刷新可见的月份，范围选择可能跨越多个月
+     */
+    private void updateSelected() {
+        for (int i = 0; i < getChildCount(); i++) {
+            BaseMonthView view = (BaseMonthView) getChildAt(i);
+            view.setSelectedCalendar(mDelegate.mSelectedCalendar);
+            view.invalidate();
+        }
+    }
+
+    private void updateMonthCount() {
+        mMonthCount = 12 * (mDelegate.getMaxYear() - mDelegate.getMinYear())
+                - mDelegate.getMinYearMonth() + 1 +
+                mDelegate.getMaxYearMonth();
+    }
+
+    private int getPosition(Calendar calendar) {
+        int position = 12 * (calendar.getYear() - mDelegate.getMinYear()) +
+                calendar.getMonth() - mDelegate.getMinYearMonth();
+        return Math.max(0, Math.min(mMonthCount - 1, position));
+    }
+
+    /**
+     * 月份列表Adapter，月视图作为ViewHolder复用，绑定时只重新生成日期
+     */
+    private final class MonthListAdapter extends Adapter<MonthViewHolder> {
+
+        @NonNull
+        @Override
+        public MonthViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            BaseMonthView view;
+            try {
+                Constructor constructor = mDelegate.getMonthViewClass().getConstructor(Context.class);
+                view = (BaseMonthView) constructor.newInstance(getContext());
+            } catch (Exception e) {
+                e.printStackTrace();
+                view = new DefaultMonthView(getContext());
+            }
+            view.setup(mDelegate);
+            view.setLayoutParams(new LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                    ViewGroup.LayoutParams.WRAP_CONTENT));
+            return new MonthViewHolder(view);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull MonthViewHolder holder, int position) {
+            int year = (position + mDelegate.getMinYearMonth() - 1) / 12 + mDelegate.getMinYear();
+            int month = (position + mDelegate.getMinYearMonth() - 1) % 12 + 1;
+            holder.mMonthView.initMonthWithDate(year, month);
+            holder.mMonthView.setSelectedCalendar(mDelegate.mSelectedCalendar);
+            holder.mMonthView.requestLayout();
+        }
+
+        @Override
+        public int getItemCount() {
+            return mMonthCount;
+        }
+    }
+
+    private static final class MonthViewHolder extends ViewHolder {
+
+        private final BaseMonthView mMonthView;
+
+        MonthViewHolder(BaseMonthView view) {
+            super(view);
+            this.mMonthView = view;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * 性能指标采集，只有设置了CalendarMetricsListener才会创建
+ * 调用方先判断 mDelegate.mMetrics != null，未设置监听时没有任何开销
+ */
+final class CalendarMetrics {
+
+    /**
+     * Trace名称，和CalendarMetricsListener.EVENT_*一一对应
+     */
+    private static final String[] TRACE_NAMES = {
+            "CalendarView:monthInstantiate",
+            "CalendarView:weekInstantiate",
+            "CalendarView:yearInstantiate",
+            "CalendarView:monthGridBuild",
+            "CalendarView:weekGridBuild",
+            "CalendarView:yearGridBuild",
+            "CalendarView:monthDraw",
+            "CalendarView:weekDraw",
+            "CalendarView:yearDraw",
+            "CalendarView:layoutTranslate"
+    };
+
+    private final CalendarView.CalendarMetricsListener mListener;
+
+    /**
+     * 上次回调时农历缓存的命中、未命中次数
+     */
+    private int mLastCacheHitCount;
+
+    private int mLastCacheMissCount;
+
+    CalendarMetrics(CalendarView.CalendarMetricsListener listener) {
+        this.mListener = listener;
+        this.mLastCacheHitCount = CalendarCacheManager.getTotalHitCount();
+        this.mLastCacheMissCount = CalendarCacheManager.getTotalMissCount();
+    }
+
+    /**
+     * 开始计时，同时开始Trace区段
+     *
+     * @param event CalendarMetricsListener.EVENT_*
+     * @return 开始时间 ns
+     */
+    long begin(int event) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(TRACE_NAMES[event]);
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * 结束计时并回调
+     *
+     * @param event CalendarMetricsListener.EVENT_*
+     * @param start begin()的返回值
+     */
+    void end(int event, long start) {
+        long duration = System.nanoTime() - start;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+        mListener.onTiming(event, duration);
+    }
+
+    /**
+     * 计数回调
+     *
+     * @param count CalendarMetricsListener.COUNT_*
+     * @param value 数量
+     */
+    void count(int count, int value) {
+        if (value == 0) {
+            return;
+        }
+        mListener.onCount(count, value);
+    }
+
+    /**
+     * 回调农历节气、节日缓存自上次以来的命中和未命中次数，缓存是全局的，包括其它视图和后台预计算
+     */
+    void countCacheStats() {
+        int hitCount = CalendarCacheManager.getTotalHitCount();
+        int missCount = CalendarCacheManager.getTotalMissCount();
+        count(CalendarView.CalendarMetricsListener.COUNT_LUNAR_CACHE_HIT, hitCount - mLastCacheHitCount);
+        count(CalendarView.CalendarMetricsListener.COUNT_LUNAR_CACHE_MISS, missCount - mLastCacheMissCount);
+        mLastCacheHitCount = hitCount;
+        mLastCacheMissCount = missCount;
+    }
+}
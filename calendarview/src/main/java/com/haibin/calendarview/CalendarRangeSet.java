@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+import java.util.Arrays;
+
+/**
+ * 多个不相交的日期区间，多区间选择模式的选中状态
+ * 区间按开始日期升序保存为距离1970-01-01的天数，重叠或相邻的区间自动合并，取消选择时拆分
+ * 查询某天是否选中为二分查找
+ */
+@SuppressWarnings("unused")
+public final class CalendarRangeSet {
+
+    private int[] mStarts = new int[8];
+
+    private int[] mEnds = new int[8];
+
+    private int mSize;
+
+    /**
+     * 每次修改递增，页面按版本重新计算选中掩码
+     */
+    private int mVersion = 1;
+
+    public CalendarRangeSet() {
+    }
+
+    CalendarRangeSet(CalendarRangeSet other) {
+        mStarts = Arrays.copyOf(other.mStarts, Math.max(8, other.mSize));
+        mEnds = Arrays.copyOf(other.mEnds, Math.max(8, other.mSize));
+        mSize = other.mSize;
+    }
+
+    /**
+     * 区间数量
+     *
+     * @return 区间数量
+     */
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * 第index个区间的开始日期
+     *
+     * @param index index
+     * @return 开始日期
+     */
+    public Calendar getStart(int index) {
+        return toCalendar(mStarts[checkIndex(index)]);
+    }
+
+    /**
+     * 第index个区间的结束日期
+     *
+     * @param index index
+     * @return 结束日期，包含
+     */
+    public Calendar getEnd(int index) {
+        return toCalendar(mEnds[checkIndex(index)]);
+    }
+
+    /**
+     * 某天是否在区间内
+     *
+     * @param calendar calendar
+     * @return 是否在区间内
+     */
+    public boolean contains(Calendar calendar) {
+        return calendar != null && contains(toEpochDay(calendar));
+    }
+
+    /**
+     * 全部区间包含的天数
+     *
+     * @return 天数
+     */
+    public int getDayCount() {
+        int count = 0;
+        for (int i = 0; i < mSize; i++) {
+            count += mEnds[i] - mStarts[i] + 1;
+        }
+        return count;
+    }
+
+    int getVersion() {
+        return mVersion;
+    }
+
+    boolean contains(int day) {
+        int index = lowerBound(mEnds, day);
+        return index < mSize && mStarts[index] <= day;
+    }
+
+    /**
+     * 添加区间，和重叠或相邻的区间合并
+     *
+     * @param start 开始，距离1970-01-01的天数
+     * @param end   结束，包含
+     */
+    void add(int start, int end) {
+        int lo = lowerBound(mEnds, start - 1);
+        int hi = lowerBound(mStarts, end + 2) - 1;
+        if (lo <= hi) {
+            start = Math.min(start, mStarts[lo]);
+            end = Math.max(end, mEnds[hi]);
+        }
+        replace(lo, hi, 1);
+        mStarts[lo] = start;
+        mEnds[lo] = end;
+        ++mVersion;
+    }
+
+    /**
+     * 移除区间，部分重叠的区间拆分
+     *
+     * @param start 开始，距离1970-01-01的天数
+     * @param end   结束，包含
+     */
+    void remove(int start, int end) {
+        int lo = lowerBound(mEnds, start);
+        int hi = lowerBound(mStarts, end + 1) - 1;
+        if (lo > hi) {
+            return;
+        }
+        int leftStart = mStarts[lo];
+        int rightEnd = mEnds[hi];
+        boolean hasLeft = leftStart < start;
+        boolean hasRight = rightEnd > end;
+        replace(lo, hi, (hasLeft ? 1 : 0) + (hasRight ? 1 : 0));
+        int index = lo;
+        if (hasLeft) {
+            mStarts[index] = leftStart;
+            mEnds[index] = start - 1;
+            ++index;
+        }
+        if (hasRight) {
+            mStarts[index] = end + 1;
+            mEnds[index] = rightEnd;
+        }
+        ++mVersion;
+    }
+
+    void clear() {
+        if (mSize == 0) {
+            return;
+        }
+        mSize = 0;
+        ++mVersion;
+    }
+
+    /**
+     * 连续count天的选中掩码，用于页面预先计算
+     *
+     * @param firstDay 第一天，距离1970-01-01的天数
+     * @param count    天数，不超过64
+     * @return 第i位表示firstDay之后第i天被选中
+     */
+    long getMask(int firstDay, int count) {
+        long mask = 0;
+        int lastDay = firstDay + count - 1;
+        for (int i = lowerBound(mEnds, firstDay); i < mSize && mStarts[i] <= lastDay; i++) {
+            int from = Math.max(mStarts[i], firstDay) - firstDay;
+            int to = Math.min(mEnds[i], lastDay) - firstDay;
+            int length = to - from + 1;
+            mask |= (length == 64 ? -1L : (1L << length) - 1) << from;
+        }
+        return mask;
+    }
+
+    /**
+     * 用count个空位替换[lo, hi]的区间
+     *
+     * @param lo    开始位置
+     * @param hi    结束位置，包含，小于lo时表示插入
+     * @param count 空位数量
+     */
+    private void replace(int lo, int hi, int count) {
+        int removed = hi - lo + 1;
+        int size = mSize - removed + count;
+        if (size > mStarts.length) {
+            mStarts = Arrays.copyOf(mStarts, Math.max(size, mStarts.length * 2));
+            mEnds = Arrays.copyOf(mEnds, mStarts.length);
+        }
+        System.arraycopy(mStarts, hi + 1, mStarts, lo + count, mSize - hi - 1);
+        System.arraycopy(mEnds, hi + 1, mEnds, lo + count, mSize - hi - 1);
+        mSize = size;
+    }
+
+    /**
+     * 第一个不小于key的位置
+     *
+     * @param values 升序数组
+     * @param key    key
+     * @return 位置，都小于key时为mSize
+     */
+    private int lowerBound(int[] values, int key) {
+        int lo = 0;
+        int hi = mSize;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + mSize);
+        }
+        return index;
+    }
+
+    static int toEpochDay(Calendar calendar) {
+        return CalendarUtil.getEpochDay(calendar.getYear(), calendar.getMonth(), calendar.getDay());
+    }
+
+    private static Calendar toCalendar(int epochDay) {
+        Calendar calendar = new Calendar();
+        CalendarUtil.setupCalendarFromEpochDay(calendar, epochDay);
+        return calendar;
+    }
+}
@@ -317,14 +317,9 @@ public final class CalendarUtil {
     static boolean isCalendarInRange(Calendar calendar,
                                      int minYear, int minYearMonth, int minYearDay,
                                      int maxYear, int maxYearMonth, int maxYearDay) {
-        java.util.Calendar c = java.util.Calendar.getInstance();
-        c.set(minYear, minYearMonth - 1, minYearDay);
-        long minTime = c.getTimeInMillis();
-        c.set(maxYear, maxYearMonth - 1, maxYearDay);
-        long maxTime = c.getTimeInMillis();
-        c.set(calendar.getYear(), calendar.getMonth() - 1, calendar.getDay());
-        long curTime = c.getTimeInMillis();
-        return curTime >= minTime && curTime <= maxTime;
+        int date = calendar.getYear() * 10000 + calendar.getMonth() * 100 + calendar.getDay();
+        return date >= minYear * 10000 + minYearMonth * 100 + minYearDay &&
+                date <= maxYear * 10000 + maxYearMonth * 100 + maxYearDay;
     }
 
     /**
@@ -344,22 +339,11 @@ public final class CalendarUtil {
     public static int getWeekCountBetweenBothCalendar(int minYear, int minYearMonth, int minYearDay,
                                                       int maxYear, int maxYearMonth, int maxYearDay,
                                                       int weekStart) {
-        java.util.Calendar date = java.util.Calendar.getInstance();
-        date.set(minYear, minYearMonth - 1, minYearDay);
-        long minTimeMills = date.getTimeInMillis();//给定时间戳
-        int preDiff = getWeekViewStartDiff(minYear, minYearMonth, minYearDay, weekStart);
-
-        date.set(maxYear, maxYearMonth - 1, maxYearDay);
-
-        long maxTimeMills = date.getTimeInMillis();//给定时间戳
-
-        int nextDiff = getWeekViewEndDiff(maxYear, maxYearMonth, maxYearDay, weekStart);
-
-        int count = preDiff + nextDiff;
-
-        int c = (int) ((maxTimeMills - minTimeMills) / ONE_DAY) + 1;
-        count += c;
-        return count / 7;
+        int minEpochDay = getEpochDay(minYear, minYearMonth, minYearDay);
+        int maxEpochDay = getEpochDay(maxYear, maxYearMonth, maxYearDay);
+        int preDiff = getWeekViewStartDiff(minEpochDay, weekStart);
+        int nextDiff = 6 - getWeekViewStartDiff(maxEpochDay, weekStart);
+        return (preDiff + nextDiff + maxEpochDay - minEpochDay + 1) / 7;
     }
 
 
@@ -378,33 +362,15 @@ public final class CalendarUtil {
     public static int getWeekFromCalendarStartWithMinCalendar(Calendar calendar,
                                                               int minYear, int minYearMonth, int minYearDay,
                                                               int weekStart) {
-        java.util.Calendar date = java.util.Calendar.getInstance();
-        date.set(minYear, minYearMonth - 1, minYearDay);//起始日期
-        long firstTimeMill = date.getTimeInMillis();//获得范围起始时间戳
-
-        int preDiff = getWeekViewStartDiff(minYear, minYearMonth, minYearDay, weekStart);//范围起始的周偏移量
-
-        int weekStartDiff = getWeekViewStartDiff(calendar.getYear(),
-                calendar.getMonth(),
-                calendar.getDay(),
-                weekStart);//获取点击的日子在周视图的起始，为了兼容全球时区，最大日差为一天，如果周起始偏差weekStartDiff=0，则日期加1
-
-        date.set(calendar.getYear(),
-                calendar.getMonth() - 1,
-                weekStartDiff == 0 ? calendar.getDay() + 1 : calendar.getDay());
-
-        long curTimeMills = date.getTimeInMillis();//给定时间戳
-
-        int c = (int) ((curTimeMills - firstTimeMill) / ONE_DAY);
-
-        int count = preDiff + c;
-
-        return count / 7 + 1;
+        int minEpochDay = getEpochDay(minYear, minYearMonth, minYearDay);
+        int preDiff = getWeekViewStartDiff(minEpochDay, weekStart);//范围起始的周偏移量
+        int c = getEpochDay(calendar.getYear(), calendar.getMonth(), calendar.getDay()) - minEpochDay;
+        return (preDiff + c) / 7 + 1;
     }
 
     /**
      * 根据星期数和最小日期推算出该星期的第一天，
-     * 为了防止夏令时，导致的时间提前和延后1-2小时，导致日期出现误差1天，因此吧hourOfDay = 12
+     * 同一周内的日期周偏移量相同，直接用最小日期的周起始加上周数即可
      * //测试通过 Test pass
      *
      * @param minYear      最小年份如2017
@@ -415,32 +381,69 @@ public final class CalendarUtil {
      * @return 该星期的第一天日期
      */
     public static Calendar getFirstCalendarStartWithMinCalendar(int minYear, int minYearMonth, int minYearDay, int week, int weekStart) {
-        java.util.Calendar date = java.util.Calendar.getInstance();
-
-        date.set(minYear, minYearMonth - 1, minYearDay, 12, 0);//
-
-        long firstTimeMills = date.getTimeInMillis();//获得起始时间戳
-
-
-        long weekTimeMills = (week - 1) * 7 * ONE_DAY;
-
-        long timeCountMills = weekTimeMills + firstTimeMills;
-
-        date.setTimeInMillis(timeCountMills);
+        int minEpochDay = getEpochDay(minYear, minYearMonth, minYearDay);
+        int epochDay = minEpochDay - getWeekViewStartDiff(minEpochDay, weekStart) + (week - 1) * 7;
+        Calendar calendar = new Calendar();
+        setupCalendarFromEpochDay(calendar, epochDay);
+        return calendar;
+    }
 
-        int startDiff = getWeekViewStartDiff(date.get(java.util.Calendar.YEAR),
-                date.get(java.util.Calendar.MONTH) + 1,
-                date.get(java.util.Calendar.DAY_OF_MONTH), weekStart);
+    /**
+     * 获取距离1970-01-01的天数，公历闭式计算，不创建java.util.Calendar，没有时区和DST问题
+     *
+     * @param year  year
+     * @param month month 1-12
+     * @param day   day
+     * @return 距离1970-01-01的天数
+     */
+    static int getEpochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;//从3月1日开始
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
 
-        timeCountMills -= startDiff * ONE_DAY;
-        date.setTimeInMillis(timeCountMills);
+    /**
+     * 根据距离1970-01-01的天数设置年月日
+     *
+     * @param calendar calendar
+     * @param epochDay 距离1970-01-01的天数
+     */
+    static void setupCalendarFromEpochDay(Calendar calendar, int epochDay) {
+        int z = epochDay + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        calendar.setYear(yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        calendar.setMonth(month);
+        calendar.setDay(dayOfYear - (153 * mp + 2) / 5 + 1);
+    }
 
-        Calendar calendar = new Calendar();
-        calendar.setYear(date.get(java.util.Calendar.YEAR));
-        calendar.setMonth(date.get(java.util.Calendar.MONTH) + 1);
-        calendar.setDay(date.get(java.util.Calendar.DAY_OF_MONTH));
+    /**
+     * 星期几，1970-01-01是星期四
+     *
+     * @param epochDay 距离1970-01-01的天数
+     * @return 0-6 周日到周六
+     */
+    static int getDayOfWeek(int epochDay) {
+        int week = (epochDay + 4) % 7;
+        return week < 0 ? week + 7 : week;
+    }
 
-        return calendar;
+    /**
+     * 获取周视图起始偏移量
+     *
+     * @param epochDay  距离1970-01-01的天数
+     * @param weekStart 周起始，1，2，7 日 一 六
+     * @return 周视图起始偏移量
+     */
+    private static int getWeekViewStartDiff(int epochDay, int weekStart) {
+        return (getDayOfWeek(epochDay) + 8 - weekStart) % 7;
     }
 
 
@@ -452,9 +455,8 @@ public final class CalendarUtil {
      * @return 是否在日期范围内
      */
     static boolean isCalendarInRange(Calendar calendar, CalendarViewDelegate delegate) {
-        return isCalendarInRange(calendar,
-                delegate.getMinYear(), delegate.getMinYearMonth(), delegate.getMinYearDay(),
-                delegate.getMaxYear(), delegate.getMaxYearMonth(), delegate.getMaxYearDay());
+        int date = calendar.getYear() * 10000 + calendar.getMonth() * 100 + calendar.getDay();
+        return date >= delegate.getRangeMinDate() && date <= delegate.getRangeMaxDate();
     }
 
     /**
@@ -686,22 +688,14 @@ public final class CalendarUtil {
      * @return 获取周视图起始偏移量，用来生成周视图布局
      */
     private static int getWeekViewStartDiff(int year, int month, int day, int weekStart) {
-        java.util.Calendar date = java.util.Calendar.getInstance();
-        date.set(year, month - 1, day, 12, 0); // 设置给定的日期
-        int week = date.get(java.util.Calendar.DAY_OF_WEEK); // 获取这一天是周几
-        int diff = week - weekStart; // 计算与周起始日的差值
-        if (diff < 0) {
-            diff += 7; // 如果差值为负，说明给定日期在周起始日之前，需要加7天
-        }
-        return diff;
+        return getWeekViewStartDiff(getEpochDay(year, month, day), weekStart);
     }
 
 
     /**
      * 单元测试通过
      * 从选定的日期，获取周视图结束偏移量，用来生成周视图布局
-     * 为了兼容DST，DST时区可能出现时间偏移1-2小时，从而导致凌晨时候实际获得的日期往前或者往后推移了一天，
-     * 日历没有时和分的概念，因此把日期的时间强制在12:00，可以避免DST兼容问题
+     * 按epoch day计算，不受时区和DST影响
      *
      * @param year      year
      * @param month     month
@@ -710,14 +704,7 @@ public final class CalendarUtil {
      * @return 获取周视图结束偏移量，用来生成周视图布局
      */
     public static int getWeekViewEndDiff(int year, int month, int day, int weekStart) {
-        java.util.Calendar date = java.util.Calendar.getInstance();
-        date.set(year, month - 1, day, 12, 0); // 设置日期
-        int week = date.get(java.util.Calendar.DAY_OF_WEEK); // 获取周几
-        int diff = week - weekStart; // 计算与周起始日的差值
-        if (diff < 0) {
-            diff += 7; // 如果差值为负，说明给定日期在周起始日之前，需要加7天
-        }
-        return 6 - diff; // 返回到周结束的天数差异
+        return 6 - getWeekViewStartDiff(getEpochDay(year, month, day), weekStart);
     }
 
 
@@ -785,12 +772,7 @@ public final class CalendarUtil {
      * @return 是否是最小访问边界了
      */
     private static boolean isMinRangeEdge(Calendar calendar, CalendarViewDelegate delegate) {
-        java.util.Calendar c = java.util.Calendar.getInstance();
-        c.set(delegate.getMinYear(), delegate.getMinYearMonth() - 1, delegate.getMinYearDay(), 12, 0);
-        long minTime = c.getTimeInMillis();
-        c.set(calendar.getYear(), calendar.getMonth() - 1, calendar.getDay(), 12, 0);
-        long curTime = c.getTimeInMillis();
-        return curTime < minTime;
+        return calendar.getYear() * 10000 + calendar.getMonth() * 100 + calendar.getDay() < delegate.getRangeMinDate();
     }
 
     /**
@@ -17,6 +17,8 @@ package com.haibin.calendarview;
 
 import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
+import android.animation.ObjectAnimator;
+import android.animation.PropertyValuesHolder;
 import android.content.Context;
 import android.os.Bundle;
 import android.os.Parcelable;
@@ -32,10 +34,12 @@ import androidx.viewpager.widget.ViewPager;
 
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * 日历布局
@@ -44,6 +48,11 @@ import java.util.Map;
 @SuppressWarnings({"unused"})
 public class CalendarView extends FrameLayout {
 
+    /**
+     * 星期掩码：一周七天
+     */
+    public static final int ALL_WEEK_DAYS = 0x7F;
+
     /**
      * 抽取自定义属性
      */
@@ -74,11 +83,26 @@ public class CalendarView extends FrameLayout {
      */
     private WeekBar mWeekBar;
 
+    /**
+     * 打开、关闭年视图时月视图的缩放动画
+     */
+    private ObjectAnimator mMonthPagerScaleAnimator;
+
     /**
      * 日历外部收缩布局
      */
     CalendarLayout mParentLayout;
 
+    /**
+     * 正在扩展虚拟日期范围，页面只是平移位置，不需要回调
+     */
+    private boolean isExtendingRange;
+
+    /**
+     * 监听零点和系统时间变化，自动更新今天
+     */
+    private DayChangeWatcher mDayChangeWatcher;
+
 
     public CalendarView(@NonNull Context context) {
         this(context, null);
@@ -140,7 +164,7 @@ public class CalendarView extends FrameLayout {
 
             @Override
             public void onPageSelected(int position) {
-                if (mWeekPager.getVisibility() == VISIBLE) {
+                if (mWeekPager.getVisibility() == VISIBLE || isExtendingRange) {
                     return;
                 }
                 if (mDelegate.mYearChangeListener != null) {
@@ -163,6 +187,15 @@ public class CalendarView extends FrameLayout {
             @Override
             public void onMonthDateSelected(Calendar calendar, boolean isClick) {
 
+                if (isClick && mDelegate.isVirtualRange()) {
+                    //点击了未生成页面的相邻月份日期，扩展虚拟日期范围后再翻页
+                    extendVirtualRange(false, calendar.getYear());
+                    int position = 12 * (calendar.getYear() - mDelegate.getMinYear()) +
+                            calendar.getMonth() - mDelegate.getMinYearMonth();
+                    if (mMonthPager.getCurrentItem() != position) {
+                        mMonthPager.setCurrentItem(position);
+                    }
+                }
                 if (calendar.getYear() == mDelegate.getCurrentDay().getYear() &&
                         calendar.getMonth() == mDelegate.getCurrentDay().getMonth()
                         && mMonthPager.getCurrentItem() != mDelegate.mCurrentMonthViewItem) {
@@ -192,6 +225,7 @@ public class CalendarView extends FrameLayout {
                         || mDelegate.mIndexCalendar.equals(mDelegate.mSelectedCalendar)) {
                     mDelegate.mSelectedCalendar = calendar;
                 }
+                extendVirtualRange(false, calendar.getYear());
                 int y = calendar.getYear() - mDelegate.getMinYear();
                 int position = 12 * y + mDelegate.mIndexCalendar.getMonth() - mDelegate.getMinYearMonth();
                 mWeekPager.updateSingleSelect();
@@ -212,6 +246,7 @@ public class CalendarView extends FrameLayout {
                 mDelegate.mSelectedCalendar = mDelegate.createCurrentDate();
             } else {
                 mDelegate.mSelectedCalendar = mDelegate.getMinRangeCalendar();
+                mDelegate.ensureVirtualRange(mDelegate.mSelectedCalendar.getYear());
             }
         } else {
             mDelegate.mSelectedCalendar = new Calendar();
@@ -233,6 +268,18 @@ public class CalendarView extends FrameLayout {
         });
         mYearViewPager.setup(mDelegate);
         mWeekPager.updateSelected(mDelegate.createCurrentDate(), false);
+
+        ViewPager.OnPageChangeListener rangeListener = new ViewPager.SimpleOnPageChangeListener() {
+            @Override
+            public void onPageScrollStateChanged(int state) {
+                if (state == ViewPager.SCROLL_STATE_IDLE && mDelegate.isVirtualRange()) {
+                    checkVirtualRangeEdge();
+                }
+            }
+        };
+        mMonthPager.addOnPageChangeListener(rangeListener);
+        mWeekPager.addOnPageChangeListener(rangeListener);
+        mYearViewPager.addOnPageChangeListener(rangeListener);
     }
 
     /**
@@ -251,21 +298,130 @@ public class CalendarView extends FrameLayout {
                 maxYear, maxYearMonth, maxYearDay) > 0) {
             return;
         }
+        if (mDelegate.isVirtualRange()) {
+            mDelegate.setVirtualRange(minYear, minYearMonth, minYearDay,
+                    maxYear, maxYearMonth, maxYearDay, getVirtualRangeCenterYear());
+            updateRange();
+            return;
+        }
+        Calendar oldMin = mDelegate.getMinRangeCalendar();
+        Calendar oldMax = mDelegate.getMaxRangeCalendar();
         mDelegate.setRange(minYear, minYearMonth, minYearDay,
                 maxYear, maxYearMonth, maxYearDay);
-        mWeekPager.notifyDataSetChanged();
-        mYearViewPager.notifyDataSetChanged();
-        mMonthPager.notifyDataSetChanged();
+        //只是扩大了日期范围，已经创建的页面平移位置即可
+        if (CalendarUtil.compareTo(minYear, minYearMonth, minYearDay,
+                oldMin.getYear(), oldMin.getMonth(), oldMin.getDay()) <= 0 &&
+                CalendarUtil.compareTo(maxYear, maxYearMonth, maxYearDay,
+                        oldMax.getYear(), oldMax.getMonth(), oldMax.getDay()) >= 0) {
+            onRangeExtended(oldMin);
+            return;
+        }
+        updateRange();
+    }
+
+    /**
+     * 日期范围改变，重建所有页面
+     */
+    private void updateRange() {
         if (!isInRange(mDelegate.mSelectedCalendar)) {
             mDelegate.mSelectedCalendar = mDelegate.getMinRangeCalendar();
             mDelegate.updateSelectCalendarScheme();
             mDelegate.mIndexCalendar = mDelegate.mSelectedCalendar;
+            //页面都会重建，不需要平移
+            mDelegate.ensureVirtualRange(mDelegate.mSelectedCalendar.getYear());
         }
+        mWeekPager.notifyDataSetChanged();
+        mYearViewPager.notifyDataSetChanged();
+        mMonthPager.notifyDataSetChanged();
         mWeekPager.updateRange();
         mMonthPager.updateRange();
         mYearViewPager.updateRange();
     }
 
+    /**
+     * 设置虚拟日期范围，以选中日期为中心只生成前后years年，
+     * 滑动到边缘时再扩展years年，不超过setRange设置的日期范围
+     *
+     * @param years 每次扩展的年数，0为不启用
+     */
+    public void setVirtualRangeYears(int years) {
+        years = Math.max(0, years);
+        boolean isVirtualRange = mDelegate.isVirtualRange();
+        if (isVirtualRange == years > 0) {
+            mDelegate.setVirtualRangeYears(years);
+            return;
+        }
+        if (isVirtualRange) {
+            mDelegate.clearVirtualRange();
+        } else {
+            Calendar min = mDelegate.getMinRangeCalendar();
+            Calendar max = mDelegate.getMaxRangeCalendar();
+            mDelegate.setVirtualRangeYears(years);
+            mDelegate.setVirtualRange(min.getYear(), min.getMonth(), min.getDay(),
+                    max.getYear(), max.getMonth(), max.getDay(), getVirtualRangeCenterYear());
+        }
+        updateRange();
+    }
+
+    private int getVirtualRangeCenterYear() {
+        return mDelegate.mSelectedCalendar.isAvailable() ?
+                mDelegate.mSelectedCalendar.getYear() :
+                mDelegate.getCurrentDay().getYear();
+    }
+
+    /**
+     * 虚拟日期范围，当前页面靠近边缘时扩展
+     */
+    private void checkVirtualRangeEdge() {
+        ViewPager pager = mYearViewPager.getVisibility() == VISIBLE ? mYearViewPager :
+                mWeekPager.getVisibility() == VISIBLE ? mWeekPager : mMonthPager;
+        if (pager.getAdapter() == null) {
+            return;
+        }
+        int position = pager.getCurrentItem();
+        if (position <= 1) {
+            extendVirtualRange(true, 0);
+        } else if (position >= pager.getAdapter().getCount() - 2) {
+            extendVirtualRange(false, 0);
+        }
+    }
+
+    /**
+     * 扩展虚拟日期范围，已经创建的页面不重建，只平移位置
+     *
+     * @param isMinEdge 是否向前扩展
+     * @param year      不为0时扩展到包含这一年
+     */
+    private void extendVirtualRange(boolean isMinEdge, int year) {
+        if (!mDelegate.isVirtualRange()) {
+            return;
+        }
+        Calendar oldMin = mDelegate.getPagerMinCalendar();
+        boolean isExtend = year != 0 ?
+                mDelegate.ensureVirtualRange(year) :
+                mDelegate.extendVirtualRange(isMinEdge);
+        if (isExtend) {
+            onRangeExtended(oldMin);
+        }
+    }
+
+    /**
+     * 日期范围扩大，根据原来的最小日期计算各个ViewPager的位置偏移
+     *
+     * @param oldMin 原来的最小日期
+     */
+    private void onRangeExtended(Calendar oldMin) {
+        int weekShift = CalendarUtil.getWeekFromCalendarStartWithMinCalendar(oldMin,
+                mDelegate.getMinYear(), mDelegate.getMinYearMonth(), mDelegate.getMinYearDay(),
+                mDelegate.getWeekStart()) - 1;
+        isExtendingRange = true;
+        mMonthPager.extendRange(12 * (oldMin.getYear() - mDelegate.getMinYear()) +
+                oldMin.getMonth() - mDelegate.getMinYearMonth());
+        mWeekPager.extendRange(weekShift);
+        mYearViewPager.extendRange(oldMin.getYear() - mDelegate.getMinYear());
+        isExtendingRange = false;
+    }
+
     /**
      * 获取当天
      *
@@ -339,7 +495,7 @@ public class CalendarView extends FrameLayout {
                 //return;
             }
         }
-        mWeekPager.setVisibility(GONE);
+        mWeekPager.setVisibility(INVISIBLE);
         mDelegate.isShowYearSelectedLayout = true;
         if (mParentLayout != null) {
             mParentLayout.hideContentView();
@@ -361,20 +517,37 @@ public class CalendarView extends FrameLayout {
                     }
                 });
 
-        mMonthPager.animate()
-                .scaleX(0)
-                .scaleY(0)
-                .setDuration(260)
-                .setInterpolator(new LinearInterpolator())
-                .setListener(new AnimatorListenerAdapter() {
-                    @Override
-                    public void onAnimationEnd(Animator animation) {
-                        super.onAnimationEnd(animation);
-                        if (mDelegate.mYearViewChangeListener != null) {
-                            mDelegate.mYearViewChangeListener.onYearViewChange(false);
-                        }
-                    }
-                });
+        startMonthPagerScaleAnimation(0, 260, new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                super.onAnimationEnd(animation);
+                if (mDelegate.mYearViewChangeListener != null) {
+                    mDelegate.mYearViewChangeListener.onYearViewChange(false);
+                }
+            }
+        });
+    }
+
+    /**
+     * 月视图缩放动画，不使用mMonthPager.animate()，
+     * CalendarLayout展开、收缩也使用它平移，共用时会互相覆盖时长、插值器和监听
+     *
+     * @param scale    目标缩放
+     * @param duration 时长
+     * @param listener 监听
+     */
+    private void startMonthPagerScaleAnimation(float scale, int duration, Animator.AnimatorListener listener) {
+        if (mMonthPagerScaleAnimator != null) {
+            mMonthPagerScaleAnimator.removeAllListeners();
+            mMonthPagerScaleAnimator.cancel();
+        }
+        mMonthPagerScaleAnimator = ObjectAnimator.ofPropertyValuesHolder(mMonthPager,
+                PropertyValuesHolder.ofFloat(View.SCALE_X, scale),
+                PropertyValuesHolder.ofFloat(View.SCALE_Y, scale));
+        mMonthPagerScaleAnimator.setDuration(duration);
+        mMonthPagerScaleAnimator.setInterpolator(new LinearInterpolator());
+        mMonthPagerScaleAnimator.addListener(listener);
+        mMonthPagerScaleAnimator.start();
     }
 
 
@@ -427,32 +600,27 @@ public class CalendarView extends FrameLayout {
                         mWeekBar.setVisibility(VISIBLE);
                     }
                 });
-        mMonthPager.animate()
-                .scaleX(1)
-                .scaleY(1)
-                .setDuration(180)
-                .setInterpolator(new LinearInterpolator())
-                .setListener(new AnimatorListenerAdapter() {
-                    @Override
-                    public void onAnimationEnd(Animator animation) {
-                        super.onAnimationEnd(animation);
-                        if (mDelegate.mYearViewChangeListener != null) {
-                            mDelegate.mYearViewChangeListener.onYearViewChange(true);
-                        }
-                        if (mParentLayout != null) {
-                            mParentLayout.showContentView();
-                            if (mParentLayout.isExpand()) {
-                                mMonthPager.setVisibility(VISIBLE);
-                            } else {
-                                mWeekPager.setVisibility(VISIBLE);
-                                mParentLayout.shrink();
-                            }
-                        } else {
-                            mMonthPager.setVisibility(VISIBLE);
-                        }
-                        mMonthPager.clearAnimation();
+        startMonthPagerScaleAnimation(1, 180, new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                super.onAnimationEnd(animation);
+                if (mDelegate.mYearViewChangeListener != null) {
+                    mDelegate.mYearViewChangeListener.onYearViewChange(true);
+                }
+                if (mParentLayout != null) {
+                    mParentLayout.showContentView();
+                    if (mParentLayout.isExpand()) {
+                        mMonthPager.setVisibility(VISIBLE);
+                    } else {
+                        mWeekPager.setVisibility(VISIBLE);
+                        mParentLayout.shrink();
                     }
-                });
+                } else {
+                    mMonthPager.setVisibility(VISIBLE);
+                }
+                mMonthPager.clearAnimation();
+            }
+        });
     }
 
     /**
@@ -561,6 +729,48 @@ public class CalendarView extends FrameLayout {
         scrollToCalendar(year, month, day, false, true);
     }
 
+    /**
+     * 滚动到下一个有标记的日期，包括重复事件规则
+     *
+     * @return 是否找到
+     */
+    public final boolean scrollToNextScheme() {
+        return scrollToAdjacentScheme(true);
+    }
+
+    /**
+     * 滚动到上一个有标记的日期，包括重复事件规则
+     *
+     * @return 是否找到
+     */
+    public final boolean scrollToPreviousScheme() {
+        return scrollToAdjacentScheme(false);
+    }
+
+    private boolean scrollToAdjacentScheme(boolean isNext) {
+        Calendar from = mDelegate.mIndexCalendar != null ? mDelegate.mIndexCalendar : mDelegate.mSelectedCalendar;
+        Calendar calendar = mDelegate.findAdjacentScheme(from, isNext);
+        if (calendar == null) {
+            return false;
+        }
+        scrollToCalendar(calendar.getYear(), calendar.getMonth(), calendar.getDay(), true);
+        return true;
+    }
+
+    /**
+     * 查找范围内所有有标记的日期，包括重复事件规则，二分查找，不遍历标记Map
+     *
+     * @param from 开始日期，包含
+     * @param to   结束日期，包含
+     * @return 按日期升序，合并了标记，不包含农历
+     */
+    public final List<Calendar> findSchemes(Calendar from, Calendar to) {
+        if (from == null || to == null) {
+            return new ArrayList<>();
+        }
+        return mDelegate.findSchemes(from, to);
+    }
+
     /**
      * 滚动到指定日期
      *
@@ -591,6 +801,7 @@ public class CalendarView extends FrameLayout {
         if (!calendar.isAvailable()) {
             return;
         }
+        extendVirtualRange(false, year);
         if (!isInRange(calendar)) {
             return;
         }
@@ -626,6 +837,7 @@ public class CalendarView extends FrameLayout {
         if (mYearViewPager.getVisibility() != VISIBLE) {
             return;
         }
+        extendVirtualRange(false, year);
         mYearViewPager.scrollToYear(year, smoothScroll);
     }
 
@@ -657,6 +869,81 @@ public class CalendarView extends FrameLayout {
         mDelegate.setYearViewScrollable(yearViewScrollable);
     }
 
+    /**
+     * 设置年视图预加载相邻年份的数量，默认1
+     *
+     * @param count 预加载数量，小于1时按1处理
+     */
+    public final void setYearViewPrefetchCount(int count) {
+        mDelegate.setYearViewPrefetchCount(count);
+        mYearViewPager.updatePrefetchCount();
+    }
+
+    /**
+     * 设置月视图、周视图页面复用，默认关闭
+     * 开启后销毁的页面会重新绑定日期，onDestroy之后的页面可能再次显示
+     *
+     * @param recycle 是否复用
+     */
+    public final void setPagerViewRecycle(boolean recycle) {
+        mDelegate.setPagerViewRecycle(recycle);
+        if (!recycle) {
+            mMonthPager.clearViewPool();
+            mWeekPager.clearViewPool();
+        }
+    }
+
+    /**
+     * 设置跨过零点、修改时间或时区时是否自动更新今天，默认开启
+     *
+     * @param autoUpdate 是否自动更新
+     */
+    public final void setAutoUpdateCurrentDate(boolean autoUpdate) {
+        mDelegate.setAutoUpdateCurrentDate(autoUpdate);
+        if (!autoUpdate) {
+            stopDayChangeWatcher();
+        } else if (getWindowToken() != null) {
+            startDayChangeWatcher();
+        }
+    }
+
+    /**
+     * 设置时钟，用于测试或固定今天，null使用系统时间
+     * 设置后立即按新的时钟更新今天
+     *
+     * @param clock 时钟
+     */
+    public final void setCalendarClock(CalendarClock clock) {
+        mDelegate.mClock = clock;
+        updateCurrentDate();
+    }
+
+    private void startDayChangeWatcher() {
+        if (mDayChangeWatcher == null) {
+            mDayChangeWatcher = new DayChangeWatcher(this, mDelegate);
+        }
+        mDayChangeWatcher.start(getContext());
+    }
+
+    private void stopDayChangeWatcher() {
+        if (mDayChangeWatcher != null) {
+            mDayChangeWatcher.stop();
+        }
+    }
+
+    /**
+     * 在后台预先计算当前日期范围内所有年份的节气、节日
+     *
+     * @param executor 线程池，null使用内部线程池
+     * @param listener 进度回调，可为null
+     * @return 任务，可取消
+     */
+    public final CalendarCacheManager.WarmUpTask warmUpRange(Executor executor,
+                                                             CalendarCacheManager.OnWarmUpListener listener) {
+        return CalendarCacheManager.warmUp(getContext(), mDelegate.getMinYear(), mDelegate.getMaxYear(),
+                executor, listener);
+    }
+
 
     public final void setDefaultMonthViewSelectDay() {
         mDelegate.setDefaultCalendarSelectDay(CalendarViewDelegate.FIRST_DAY_OF_MONTH);
@@ -698,7 +985,7 @@ public class CalendarView extends FrameLayout {
     }
 
     /**
-     * 添加选择
+     * 添加选择，不检查最大数量
      *
      * @param calendars calendars
      */
@@ -706,13 +993,15 @@ public class CalendarView extends FrameLayout {
         if (calendars == null || calendars.length == 0) {
             return;
         }
+        List<Calendar> changed = new ArrayList<>();
         for (Calendar calendar : calendars) {
             if (calendar == null || mDelegate.mSelectedCalendars.containsKey(calendar.toString())) {
                 continue;
             }
             mDelegate.mSelectedCalendars.put(calendar.toString(), calendar);
+            changed.add(calendar);
         }
-        update();
+        onMultiSelectChanged(changed, true);
     }
 
     /**
@@ -720,22 +1009,177 @@ public class CalendarView extends FrameLayout {
      *
      * @param calendars calendars
      */
-    @SuppressWarnings("RedundantCollectionOperation")
     public final void removeMultiSelect(Calendar... calendars) {
         if (calendars == null || calendars.length == 0) {
             return;
         }
+        List<Calendar> changed = new ArrayList<>();
         for (Calendar calendar : calendars) {
             if (calendar == null) {
                 continue;
             }
-            if (mDelegate.mSelectedCalendars.containsKey(calendar.toString())) {
-                mDelegate.mSelectedCalendars.remove(calendar.toString());
+            Calendar removed = mDelegate.mSelectedCalendars.remove(calendar.toString());
+            if (removed != null) {
+                changed.add(removed);
             }
         }
-        update();
+        onMultiSelectChanged(changed, false);
+    }
+
+    /**
+     * 批量选择日期范围内的所有日期，跳过拦截和超出范围的日期
+     * 超过最大多选数量时整体不选择，回调onMultiSelectBatchOutOfSize
+     *
+     * @param startCalendar 开始日期
+     * @param endCalendar   结束日期，包含
+     * @return 是否执行
+     */
+    public final boolean putMultiSelectRange(Calendar startCalendar, Calendar endCalendar) {
+        return putMultiSelectRange(startCalendar, endCalendar, ALL_WEEK_DAYS);
+    }
+
+    /**
+     * 批量选择日期范围内指定星期的日期，如范围内的所有周末
+     *
+     * @param startCalendar 开始日期
+     * @param endCalendar   结束日期，包含
+     * @param weekDays      星期掩码，如 1 << 0 | 1 << 6 表示周日、周六
+     * @return 是否执行
+     */
+    public final boolean putMultiSelectRange(Calendar startCalendar, Calendar endCalendar, int weekDays) {
+        return updateMultiSelectRange(startCalendar, endCalendar, weekDays, true);
+    }
+
+    /**
+     * 批量选择某天所在的一周，按周起始计算
+     *
+     * @param calendar calendar
+     * @return 是否执行
+     */
+    public final boolean putMultiSelectWeek(Calendar calendar) {
+        if (calendar == null) {
+            return false;
+        }
+        int day = CalendarRangeSet.toEpochDay(calendar);
+        int start = day - (CalendarUtil.getDayOfWeek(day) + 8 - mDelegate.getWeekStart()) % 7;
+        return updateMultiSelectDays(start, start + 6, ALL_WEEK_DAYS, true);
+    }
+
+    /**
+     * 批量选择一个月
+     *
+     * @param year  year
+     * @param month month
+     * @return 是否执行
+     */
+    public final boolean putMultiSelectMonth(int year, int month) {
+        if (month < 1 || month > 12) {
+            return false;
+        }
+        int start = CalendarUtil.getEpochDay(year, month, 1);
+        return updateMultiSelectDays(start, start + CalendarUtil.getMonthDaysCount(year, month) - 1,
+                ALL_WEEK_DAYS, true);
+    }
+
+    /**
+     * 批量取消选择日期范围内的所有日期
+     *
+     * @param startCalendar 开始日期
+     * @param endCalendar   结束日期，包含
+     */
+    public final void removeMultiSelectRange(Calendar startCalendar, Calendar endCalendar) {
+        updateMultiSelectRange(startCalendar, endCalendar, ALL_WEEK_DAYS, false);
+    }
+
+    private boolean updateMultiSelectRange(Calendar startCalendar, Calendar endCalendar,
+                                           int weekDays, boolean isSelect) {
+        if (startCalendar == null || endCalendar == null || startCalendar.compareTo(endCalendar) > 0) {
+            return false;
+        }
+        return updateMultiSelectDays(CalendarRangeSet.toEpochDay(startCalendar),
+                CalendarRangeSet.toEpochDay(endCalendar), weekDays, isSelect);
+    }
+
+    private boolean updateMultiSelectDays(int startDay, int endDay, int weekDays, boolean isSelect) {
+        List<Calendar> changed = mDelegate.updateMultiSelect(startDay, endDay, weekDays, isSelect);
+        if (changed == null) {
+            return false;
+        }
+        invalidateMultiSelect(changed);
+        return true;
+    }
+
+    /**
+     * 多选改变，回调一次批量事件，只重绘包含改变日期的页面
+     *
+     * @param changed  改变的日期
+     * @param isSelect 选择还是取消选择
+     */
+    private void onMultiSelectChanged(List<Calendar> changed, boolean isSelect) {
+        mDelegate.notifyMultiSelectBatch(changed, isSelect);
+        invalidateMultiSelect(changed);
+    }
+
+    private void invalidateMultiSelect(List<Calendar> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        Calendar min = Collections.min(changed);
+        Calendar max = Collections.max(changed);
+        int fromDate = min.getYear() * 10000 + min.getMonth() * 100 + min.getDay();
+        int toDate = max.getYear() * 10000 + max.getMonth() * 100 + max.getDay();
+        mMonthPager.invalidateRange(fromDate, toDate);
+        mWeekPager.invalidateRange(fromDate, toDate);
+    }
+
+    /**
+     * 多区间选择模式选中的区间
+     *
+     * @return 区间的副本
+     */
+    public final CalendarRangeSet getSelectedRanges() {
+        return new CalendarRangeSet(mDelegate.mSelectedRanges);
     }
 
+    /**
+     * 多区间选择模式添加选中区间，和已有区间合并
+     *
+     * @param startCalendar 开始日期
+     * @param endCalendar   结束日期，包含
+     */
+    public final void addSelectedRange(Calendar startCalendar, Calendar endCalendar) {
+        if (startCalendar == null || endCalendar == null || startCalendar.compareTo(endCalendar) > 0) {
+            return;
+        }
+        mDelegate.mSelectedRanges.add(CalendarRangeSet.toEpochDay(startCalendar),
+                CalendarRangeSet.toEpochDay(endCalendar));
+        mMonthPager.clearSelectRange();
+        mWeekPager.clearSelectRange();
+    }
+
+    /**
+     * 多区间选择模式取消选中区间，部分重叠的区间拆分
+     *
+     * @param startCalendar 开始日期
+     * @param endCalendar   结束日期，包含
+     */
+    public final void removeSelectedRange(Calendar startCalendar, Calendar endCalendar) {
+        if (startCalendar == null || endCalendar == null || startCalendar.compareTo(endCalendar) > 0) {
+            return;
+        }
+        mDelegate.mSelectedRanges.remove(CalendarRangeSet.toEpochDay(startCalendar),
+                CalendarRangeSet.toEpochDay(endCalendar));
+        mMonthPager.clearSelectRange();
+        mWeekPager.clearSelectRange();
+    }
+
+    /**
+     * 清除多区间选择
+     */
+    public final void clearSelectedRanges() {
+        mDelegate.mSelectedRanges.clear();
+        clearSelectRange();
+    }
 
     public final List<Calendar> getMultiSelectCalendars() {
         List<Calendar> calendars = new ArrayList<>();
@@ -846,6 +1290,7 @@ public class CalendarView extends FrameLayout {
      * @param listener listener
      */
     public final void setOnCalendarInterceptListener(OnCalendarInterceptListener listener) {
+        mDelegate.onRangeChanged();
         if (listener == null) {
             mDelegate.mCalendarInterceptListener = null;
         }
@@ -859,6 +1304,45 @@ public class CalendarView extends FrameLayout {
         mDelegate.mSelectedCalendar = new Calendar();
     }
 
+    /**
+     * 添加按日期范围查询的拦截事件，每个月只回调一次，结果缓存
+     * 适合从数据库查询不可用日期，绘制和范围选择时不再逐个日期回调
+     * 拦截数据变化后调用invalidateCalendarIntercept
+     * 和setOnCalendarInterceptListener互相替换，同样只能用于非默认选择模式
+     *
+     * @param listener listener
+     */
+    public final void setOnCalendarRangeInterceptListener(OnCalendarRangeInterceptListener listener) {
+        setOnCalendarInterceptListener(listener == null ? null : new InterceptCache(listener));
+    }
+
+    /**
+     * 拦截数据全部变化，清空按月缓存的拦截结果并刷新
+     */
+    public final void invalidateCalendarIntercept() {
+        if (!(mDelegate.mCalendarInterceptListener instanceof InterceptCache)) {
+            return;
+        }
+        ((InterceptCache) mDelegate.mCalendarInterceptListener).invalidate();
+        mDelegate.onRangeChanged();
+        update();
+    }
+
+    /**
+     * 一段日期的拦截数据变化，清空所在月份的缓存并刷新
+     *
+     * @param from 开始日期
+     * @param to   结束日期，包含
+     */
+    public final void invalidateCalendarIntercept(Calendar from, Calendar to) {
+        if (from == null || to == null || !(mDelegate.mCalendarInterceptListener instanceof InterceptCache)) {
+            return;
+        }
+        ((InterceptCache) mDelegate.mCalendarInterceptListener).invalidate(from, to);
+        mDelegate.onRangeChanged();
+        update();
+    }
+
     /**
      * 点击视图Padding位置的事件
      *
@@ -940,6 +1424,24 @@ public class CalendarView extends FrameLayout {
         this.mDelegate.mCalendarMultiSelectListener = listener;
     }
 
+    /**
+     * 批量多选事件，putMultiSelect、putMultiSelectRange等批量操作完成后回调一次
+     *
+     * @param listener listener
+     */
+    public final void setOnCalendarMultiSelectBatchListener(OnCalendarMultiSelectBatchListener listener) {
+        this.mDelegate.mCalendarMultiSelectBatchListener = listener;
+    }
+
+    /**
+     * 多区间选择事件，越界仍然回调OnCalendarRangeSelectListener
+     *
+     * @param listener listener
+     */
+    public final void setOnCalendarMultiRangeSelectListener(OnCalendarMultiRangeSelectListener listener) {
+        this.mDelegate.mCalendarMultiRangeSelectListener = listener;
+    }
+
     /**
      * 设置最小范围和最大访问，default：minRange = -1，maxRange = -1 没有限制
      *
@@ -1183,6 +1685,15 @@ public class CalendarView extends FrameLayout {
         this.mDelegate.mViewChangeListener = listener;
     }
 
+    /**
+     * 性能指标监听，用于定位卡顿，设置null关闭
+     *
+     * @param listener listener
+     */
+    public void setCalendarMetricsListener(CalendarMetricsListener listener) {
+        this.mDelegate.mMetrics = listener == null ? null : new CalendarMetrics(listener);
+    }
+
 
     public void setOnYearViewChangeListener(OnYearViewChangeListener listener) {
         this.mDelegate.mYearViewChangeListener = listener;
@@ -1245,6 +1756,15 @@ public class CalendarView extends FrameLayout {
             mParentLayout.setup(mDelegate);
             mParentLayout.initStatus();
         }
+        if (mDelegate.isAutoUpdateCurrentDate()) {
+            startDayChangeWatcher();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        stopDayChangeWatcher();
+        super.onDetachedFromWindow();
     }
 
     @Override
@@ -1268,17 +1788,109 @@ public class CalendarView extends FrameLayout {
      */
     public final void setSchemeDate(Map<String, Calendar> mSchemeDates) {
         this.mDelegate.mSchemeDatesMap = mSchemeDates;
+        this.mDelegate.onSchemesChanged();
         this.mDelegate.updateSelectCalendarScheme();
         this.mYearViewPager.update();
         this.mMonthPager.updateScheme();
         this.mWeekPager.updateScheme();
     }
 
+    /**
+     * 设置重复事件规则，如每周例会、每月账单、农历生日
+     * 只在显示的月视图、周视图、年视图页面内计算，不需要把每一次事件放进setSchemeDate
+     * 同一天setSchemeDate中的标记优先
+     *
+     * @param rules 规则，null清空
+     */
+    public final void setSchemeRules(List<SchemeRule> rules) {
+        mDelegate.mSchemeRules.setRules(rules);
+        updateSchemeRules();
+    }
+
+    /**
+     * 添加重复事件规则
+     *
+     * @param rule rule
+     */
+    public final void addSchemeRule(SchemeRule rule) {
+        if (rule == null) {
+            return;
+        }
+        mDelegate.mSchemeRules.add(rule);
+        updateSchemeRules();
+    }
+
+    /**
+     * 移除重复事件规则
+     *
+     * @param rule rule
+     */
+    public final void removeSchemeRule(SchemeRule rule) {
+        if (mDelegate.mSchemeRules.remove(rule)) {
+            updateSchemeRules();
+        }
+    }
+
+    /**
+     * 获取重复事件规则
+     *
+     * @return 不可修改的规则列表
+     */
+    public final List<SchemeRule> getSchemeRules() {
+        return mDelegate.mSchemeRules.getRules();
+    }
+
+    /**
+     * 在后台线程批量导入标记，如从数据库Cursor读取，按块合并，全部完成后刷新一次
+     * 同一天的多行合并为多个Scheme，必须在主线程调用
+     *
+     * @param source    行数据来源，见SchemeImporter.fromCursor
+     * @param isReplace 是否替换原有标记，否则追加
+     * @param executor  读取数据的线程池，null时使用内部线程
+     * @param listener  进度回调，可为null
+     * @return 导入任务，可取消
+     */
+    public final SchemeImporter.ImportTask importSchemes(SchemeImporter.RowSource source, boolean isReplace,
+                                                         Executor executor,
+                                                         SchemeImporter.OnImportListener listener) {
+        return importSchemes(source, isReplace, SchemeImporter.DEFAULT_CHUNK_SIZE, executor, listener);
+    }
+
+    /**
+     * 在后台线程批量导入标记
+     *
+     * @param source    行数据来源
+     * @param isReplace 是否替换原有标记，否则追加
+     * @param chunkSize 每块行数
+     * @param executor  读取数据的线程池，null时使用内部线程
+     * @param listener  进度回调，可为null
+     * @return 导入任务，可取消
+     */
+    public final SchemeImporter.ImportTask importSchemes(SchemeImporter.RowSource source, boolean isReplace,
+                                                         int chunkSize, Executor executor,
+                                                         SchemeImporter.OnImportListener listener) {
+        return SchemeImporter.start(mDelegate, source, isReplace, chunkSize, executor, new Runnable() {
+            @Override
+            public void run() {
+                updateSchemeRules();
+            }
+        }, listener);
+    }
+
+    private void updateSchemeRules() {
+        mDelegate.onSchemesChanged();
+        mDelegate.updateSelectCalendarScheme();
+        mYearViewPager.update();
+        mMonthPager.updateScheme();
+        mWeekPager.updateScheme();
+    }
+
     /**
      * 清空日期标记
      */
     public final void clearSchemeDate() {
         this.mDelegate.mSchemeDatesMap = null;
+        this.mDelegate.onSchemesChanged();
         this.mDelegate.clearSelectedScheme();
         mYearViewPager.update();
         mMonthPager.updateScheme();
@@ -1299,6 +1911,7 @@ public class CalendarView extends FrameLayout {
         }
         mDelegate.mSchemeDatesMap.remove(calendar.toString());
         mDelegate.mSchemeDatesMap.put(calendar.toString(), calendar);
+        mDelegate.onSchemeChanged(calendar.toString());
         this.mDelegate.updateSelectCalendarScheme();
         this.mYearViewPager.update();
         this.mMonthPager.updateScheme();
@@ -1338,6 +1951,7 @@ public class CalendarView extends FrameLayout {
             return;
         }
         mDelegate.mSchemeDatesMap.remove(calendar.toString());
+        mDelegate.onSchemeChanged(calendar.toString());
         if (mDelegate.mSelectedCalendar.equals(calendar)) {
             mDelegate.clearSelectedScheme();
         }
@@ -1525,6 +2139,18 @@ public class CalendarView extends FrameLayout {
         clearMultiSelect();
     }
 
+    /**
+     * 多区间选择模式，需要使用RangeMonthView、RangeWeekView
+     * 第一次点击选择区间第一天，第二次点击完成区间；第一天已经选中时取消选择这个区间
+     */
+    public void setSelectMultiRangeMode() {
+        if (mDelegate.getSelectMode() == CalendarViewDelegate.SELECT_MODE_MULTI_RANGE) {
+            return;
+        }
+        mDelegate.setSelectMode(CalendarViewDelegate.SELECT_MODE_MULTI_RANGE);
+        clearSelectedRanges();
+    }
+
     /**
      * 单选模式
      */
@@ -1631,8 +2257,11 @@ public class CalendarView extends FrameLayout {
     /**
      * 更新界面，
      * 重新设置颜色等都需要调用该方法
+     * 标记没有变化的页面不会重新绑定标记，直接修改了标记对象的内容请使用setSchemeDate
+     * 日期拦截的结果会重新查询
      */
     public final void update() {
+        mDelegate.onRangeChanged();
         mWeekBar.onWeekStartChange(mDelegate.getWeekStart());
         mYearViewPager.update();
         mMonthPager.updateScheme();
@@ -1648,18 +2277,15 @@ public class CalendarView extends FrameLayout {
 
 
     /**
-     * 更新当前日期
+     * 更新当前日期，日期没变时不做任何事，只重绘包含昨天或今天的页面
      */
     public final void updateCurrentDate() {
         if (mDelegate == null || mMonthPager == null || mWeekPager == null) {
             return;
         }
-        java.util.Calendar calendar = java.util.Calendar.getInstance();
-        int day = calendar.get(java.util.Calendar.DAY_OF_MONTH);
-        if (getCurDay() == day) {
+        if (!mDelegate.updateCurrentDay()) {
             return;
         }
-        mDelegate.updateCurrentDay();
         mMonthPager.updateCurrentDate();
         mWeekPager.updateCurrentDate();
     }
@@ -1815,6 +2441,52 @@ public class CalendarView extends FrameLayout {
     }
 
 
+    /**
+     * 多区间选择事件，按区间回调变化，不逐天回调
+     */
+    public interface OnCalendarMultiRangeSelectListener {
+
+        /**
+         * 选择了区间的第一天
+         *
+         * @param calendar calendar
+         */
+        void onCalendarMultiRangeStart(Calendar calendar);
+
+        /**
+         * 区间内的日期全部选中或全部取消选中，和已有区间的合并、拆分见getSelectedRanges
+         *
+         * @param startCalendar 开始日期
+         * @param endCalendar   结束日期，包含
+         * @param isSelected    选中还是取消选中
+         */
+        void onCalendarMultiRangeChange(Calendar startCalendar, Calendar endCalendar, boolean isSelected);
+    }
+
+    /**
+     * 批量多选事件
+     */
+    public interface OnCalendarMultiSelectBatchListener {
+
+        /**
+         * 一次批量操作的变化
+         *
+         * @param calendars 选中或取消选中的日期
+         * @param isSelect  选择还是取消选择
+         * @param curSize   当前选中数量
+         * @param maxSize   最大数量
+         */
+        void onCalendarMultiSelectBatch(List<Calendar> calendars, boolean isSelect, int curSize, int maxSize);
+
+        /**
+         * 批量选择超出最大数量，没有选择任何日期
+         *
+         * @param requestSize 需要新增的数量
+         * @param maxSize     最大数量
+         */
+        void onMultiSelectBatchOutOfSize(int requestSize, int maxSize);
+    }
+
     /**
      * 日历多选事件
      */
@@ -1916,6 +2588,34 @@ public class CalendarView extends FrameLayout {
         void onCalendarInterceptClick(Calendar calendar, boolean isClick);
     }
 
+    /**
+     * 按日期范围查询的拦截事件，结果按月缓存
+     */
+    public interface OnCalendarRangeInterceptListener {
+        /**
+         * 查询一段日期哪些被拦截，目前每次查询一个月
+         *
+         * @param start       第一天
+         * @param dayCount    天数
+         * @param intercepted 第i位表示start之后第i天被拦截，传入时已清空
+         */
+        void onCalendarRangeIntercept(Calendar start, int dayCount, BitSet intercepted);
+
+        void onCalendarInterceptClick(Calendar calendar, boolean isClick);
+    }
+
+    /**
+     * 时钟，决定哪一天是今天
+     */
+    public interface CalendarClock {
+        /**
+         * 当前时间
+         *
+         * @return 毫秒
+         */
+        long currentTimeMillis();
+    }
+
     /**
      * 点击Padding位置事件
      */
@@ -1932,4 +2632,104 @@ public class CalendarView extends FrameLayout {
         void onClickCalendarPadding(float x, float y, boolean isMonthView,
                                     Calendar adjacentCalendar, Object obj);
     }
+
+    /**
+     * 性能指标监听，同时输出android.os.Trace区段
+     * 未设置时不采集，没有额外开销
+     */
+    public interface CalendarMetricsListener {
+        /**
+         * 月视图instantiateItem
+         */
+        int EVENT_MONTH_INSTANTIATE = 0;
+        /**
+         * 周视图instantiateItem
+         */
+        int EVENT_WEEK_INSTANTIATE = 1;
+        /**
+         * 年视图instantiateItem
+         */
+        int EVENT_YEAR_INSTANTIATE = 2;
+        /**
+         * 月视图生成日历网格
+         */
+        int EVENT_MONTH_GRID_BUILD = 3;
+        /**
+         * 周视图生成日历网格
+         */
+        int EVENT_WEEK_GRID_BUILD = 4;
+        /**
+         * 年视图生成日历网格
+         */
+        int EVENT_YEAR_GRID_BUILD = 5;
+        /**
+         * 月视图绘制
+         */
+        int EVENT_MONTH_DRAW = 6;
+        /**
+         * 周视图绘制
+         */
+        int EVENT_WEEK_DRAW = 7;
+        /**
+         * 年视图绘制
+         */
+        int EVENT_YEAR_DRAW = 8;
+        /**
+         * CalendarLayout平移
+         */
+        int EVENT_LAYOUT_TRANSLATE = 9;
+
+        /**
+         * 农历计算次数
+         */
+        int COUNT_LUNAR = 0;
+        /**
+         * 标记应用次数
+         */
+        int COUNT_SCHEME = 1;
+        /**
+         * 月视图、周视图调用getItems填充日历项时Calendar对象创建数量，页面复用后为0
+         */
+        int COUNT_CALENDAR_ALLOC = 2;
+        /**
+         * 年视图尺寸缓存命中
+         */
+        int COUNT_YEAR_SIZE_CACHE_HIT = 3;
+        /**
+         * 年视图尺寸缓存未命中
+         */
+        int COUNT_YEAR_SIZE_CACHE_MISS = 4;
+        /**
+         * 月视图行数表命中
+         */
+        int COUNT_LINE_TABLE_HIT = 5;
+        /**
+         * 月视图行数表未命中，范围外直接计算
+         */
+        int COUNT_LINE_TABLE_MISS = 6;
+        /**
+         * 农历节气、节日缓存命中，生成日历网格后回调
+         */
+        int COUNT_LUNAR_CACHE_HIT = 7;
+        /**
+         * 农历节气、节日缓存未命中
+         */
+        int COUNT_LUNAR_CACHE_MISS = 8;
+
+        /**
+         * 耗时事件
+         *
+         * @param event         EVENT_*
+         * @param durationNanos 耗时 ns
+         */
+        void onTiming(int event, long durationNanos);
+
+        /**
+         * 计数事件
+         *
+         * @param count COUNT_*
+         * @param value 数量
+         */
+        void onCount(int count, int value);
+    }
 }
@@ -24,10 +24,11 @@ import android.util.AttributeSet;
 import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Google规范化的属性委托,
@@ -112,6 +113,11 @@ final class CalendarViewDelegate {
      */
     static final int SELECT_MODE_MULTI = 3;
 
+    /**
+     * 多区间选择模式
+     */
+    static final int SELECT_MODE_MULTI_RANGE = 4;
+
     /**
      * 选择模式
      */
@@ -125,7 +131,7 @@ final class CalendarViewDelegate {
     /**
      * 支持转换的最大农历年份
      */
-    private static final int MAX_YEAR = 2099;
+    static final int MAX_YEAR = 2099;
 
     /**
      * 各种字体颜色，看名字知道对应的地方
@@ -290,6 +296,17 @@ final class CalendarViewDelegate {
      */
     private int mMinYearDay, mMaxYearDay;
 
+    /**
+     * 虚拟日期范围每次扩展的年数，0为不启用
+     */
+    private int mVirtualRangeYears;
+
+    /**
+     * 虚拟日期范围的边界，即设置的日期范围，mMinYear等为当前已经生成的范围
+     */
+    private int mBoundMinYear, mBoundMinYearMonth, mBoundMinYearDay,
+            mBoundMaxYear, mBoundMaxYearMonth, mBoundMaxYearDay;
+
     /**
      * 日期和农历文本大小
      */
@@ -300,6 +317,11 @@ final class CalendarViewDelegate {
      */
     private int mCalendarItemHeight;
 
+    /**
+     * 月视图行数表
+     */
+    private final MonthLineTable mMonthLineTable = new MonthLineTable();
+
     /**
      * 是否是全屏日历
      */
@@ -320,6 +342,21 @@ final class CalendarViewDelegate {
             mWeekViewScrollable,
             mYearViewScrollable;
 
+    /**
+     * 年视图预加载相邻年份的数量
+     */
+    private int mYearViewPrefetchCount;
+
+    /**
+     * 月视图、周视图页面复用
+     */
+    private boolean isPagerViewRecycle;
+
+    /**
+     * 跨过零点、修改时间或时区时自动更新今天
+     */
+    private boolean isAutoUpdateCurrentDate;
+
     /**
      * 当前月份和周视图的item位置
      */
@@ -330,6 +367,33 @@ final class CalendarViewDelegate {
      */
     Map<String, Calendar> mSchemeDatesMap;
 
+    /**
+     * 重复事件规则，只在显示的页面内展开
+     */
+    final SchemeRuleSet mSchemeRules = new SchemeRuleSet();
+
+    /**
+     * 标记的月份掩码和每天数量
+     */
+    final SchemeIndex mSchemeIndex = new SchemeIndex();
+
+    /**
+     * 标记版本，页面按版本跳过或增量绑定标记
+     */
+    final SchemeChangeLog mSchemeLog = new SchemeChangeLog();
+
+    /**
+     * 版本对应的Map和它的大小，直接修改Map时按这两个判断
+     */
+    private Map<String, Calendar> mLoggedSchemes;
+
+    /**
+     * 日期范围和拦截的版本，页面按版本重新计算范围掩码
+     */
+    private int mRangeVersion = 1;
+
+    private int mLoggedSchemeSize;
+
     /**
      * 点击Padding位置事件
      */
@@ -393,6 +457,16 @@ final class CalendarViewDelegate {
      */
     CalendarView.OnYearViewChangeListener mYearViewChangeListener;
 
+    /**
+     * 性能指标采集，未设置监听时为null
+     */
+    CalendarMetrics mMetrics;
+
+    /**
+     * 时钟，null使用系统时间
+     */
+    CalendarView.CalendarClock mClock;
+
     /**
      * 保存选中的日期
      */
@@ -410,6 +484,11 @@ final class CalendarViewDelegate {
 
     private int mMaxMultiSelectSize;
 
+    /**
+     * 批量多选事件
+     */
+    CalendarView.OnCalendarMultiSelectBatchListener mCalendarMultiSelectBatchListener;
+
     /**
      * 选择范围日历
      */
@@ -417,6 +496,16 @@ final class CalendarViewDelegate {
 
     private int mMinSelectRange, mMaxSelectRange;
 
+    /**
+     * 多区间选择模式选中的区间，mSelectedStartRangeCalendar为正在选择的区间的第一天
+     */
+    final CalendarRangeSet mSelectedRanges = new CalendarRangeSet();
+
+    /**
+     * 多区间选择事件
+     */
+    CalendarView.OnCalendarMultiRangeSelectListener mCalendarMultiRangeSelectListener;
+
     CalendarViewDelegate(Context context, @Nullable AttributeSet attrs) {
         TypedArray array = context.obtainStyledAttributes(attrs, R.styleable.CalendarView);
 
@@ -453,6 +542,9 @@ final class CalendarViewDelegate {
         mMonthViewScrollable = array.getBoolean(R.styleable.CalendarView_month_view_scrollable, true);
         mWeekViewScrollable = array.getBoolean(R.styleable.CalendarView_week_view_scrollable, true);
         mYearViewScrollable = array.getBoolean(R.styleable.CalendarView_year_view_scrollable, true);
+        setYearViewPrefetchCount(array.getInt(R.styleable.CalendarView_year_view_prefetch_count, 1));
+        isPagerViewRecycle = array.getBoolean(R.styleable.CalendarView_pager_view_recycle, false);
+        isAutoUpdateCurrentDate = array.getBoolean(R.styleable.CalendarView_auto_update_current_date, true);
 
         mDefaultCalendarSelectDay = array.getInt(R.styleable.CalendarView_month_view_auto_select_day,
                 FIRST_DAY_OF_MONTH);
@@ -488,6 +580,7 @@ final class CalendarViewDelegate {
         mMaxYearMonth = array.getInt(R.styleable.CalendarView_max_year_month, 12);
         mMinYearDay = array.getInt(R.styleable.CalendarView_min_year_day, 1);
         mMaxYearDay = array.getInt(R.styleable.CalendarView_max_year_day, -1);
+        mVirtualRangeYears = array.getInt(R.styleable.CalendarView_virtual_range_years, 0);
 
         mDayTextSize = array.getDimensionPixelSize(R.styleable.CalendarView_day_text_size,
                 CalendarUtil.dipToPx(context, 16));
@@ -545,13 +638,13 @@ final class CalendarViewDelegate {
 
     private void init() {
         mCurrentDate = new Calendar();
-        Date d = new Date();
-        mCurrentDate.setYear(CalendarUtil.getDate("yyyy", d));
-        mCurrentDate.setMonth(CalendarUtil.getDate("MM", d));
-        mCurrentDate.setDay(CalendarUtil.getDate("dd", d));
+        setupCurrentDate(currentTimeMillis());
         mCurrentDate.setCurrentDay(true);
-        LunarCalendar.setupLunarCalendar(mCurrentDate);
         setRange(mMinYear, mMinYearMonth, mMaxYear, mMaxYearMonth);
+        if (isVirtualRange()) {
+            setVirtualRange(mMinYear, mMinYearMonth, mMinYearDay,
+                    mMaxYear, mMaxYearMonth, mMaxYearDay, mCurrentDate.getYear());
+        }
 
         try {
             mWeekBarClass = TextUtils.isEmpty(mWeekBarClassPath) ?
@@ -583,6 +676,7 @@ final class CalendarViewDelegate {
 
     private void setRange(int minYear, int minYearMonth,
                           int maxYear, int maxYearMonth) {
+        ++mRangeVersion;
         this.mMinYear = minYear;
         this.mMinYearMonth = minYearMonth;
         this.mMaxYear = maxYear;
@@ -595,10 +689,12 @@ final class CalendarViewDelegate {
         }
         int y = mCurrentDate.getYear() - this.mMinYear;
         mCurrentMonthViewItem = 12 * y + mCurrentDate.getMonth() - this.mMinYearMonth;
+        updateMonthLineTable();
     }
 
     void setRange(int minYear, int minYearMonth, int minYearDay,
                   int maxYear, int maxYearMonth, int maxYearDay) {
+        ++mRangeVersion;
         this.mMinYear = minYear;
         this.mMinYearMonth = minYearMonth;
         this.mMinYearDay = minYearDay;
@@ -613,6 +709,113 @@ final class CalendarViewDelegate {
         }
         int y = mCurrentDate.getYear() - this.mMinYear;
         mCurrentMonthViewItem = 12 * y + mCurrentDate.getMonth() - this.mMinYearMonth;
+        updateMonthLineTable();
+    }
+
+    /**
+     * 设置虚拟日期范围的边界，并以centerYear为中心生成前后mVirtualRangeYears年
+     *
+     * @param centerYear 中心年份
+     */
+    void setVirtualRange(int minYear, int minYearMonth, int minYearDay,
+                         int maxYear, int maxYearMonth, int maxYearDay, int centerYear) {
+        this.mBoundMinYear = minYear;
+        this.mBoundMinYearMonth = minYearMonth;
+        this.mBoundMinYearDay = minYearDay;
+        this.mBoundMaxYear = maxYear;
+        this.mBoundMaxYearMonth = maxYearMonth;
+        this.mBoundMaxYearDay = maxYearDay == -1 ? CalendarUtil.getMonthDaysCount(maxYear, maxYearMonth) : maxYearDay;
+        centerYear = Math.max(minYear, Math.min(maxYear, centerYear));
+        updateVirtualRange(centerYear - mVirtualRangeYears, centerYear + mVirtualRangeYears);
+    }
+
+    /**
+     * 关闭虚拟日期范围，恢复为完整的日期范围
+     */
+    void clearVirtualRange() {
+        mVirtualRangeYears = 0;
+        setRange(mBoundMinYear, mBoundMinYearMonth, mBoundMinYearDay,
+                mBoundMaxYear, mBoundMaxYearMonth, mBoundMaxYearDay);
+    }
+
+    /**
+     * 虚拟日期范围向一侧扩展mVirtualRangeYears年
+     *
+     * @param isMinEdge 是否向前扩展
+     * @return 是否扩展了，已经到达边界返回false
+     */
+    boolean extendVirtualRange(boolean isMinEdge) {
+        if (!isVirtualRange()) {
+            return false;
+        }
+        return isMinEdge ?
+                updateVirtualRange(mMinYear - mVirtualRangeYears, mMaxYear) :
+                updateVirtualRange(mMinYear, mMaxYear + mVirtualRangeYears);
+    }
+
+    /**
+     * 虚拟日期范围扩展到包含某一年，用于跳转到未生成的日期
+     *
+     * @param year year
+     * @return 是否扩展了
+     */
+    boolean ensureVirtualRange(int year) {
+        if (!isVirtualRange()) {
+            return false;
+        }
+        return updateVirtualRange(Math.min(mMinYear, year - mVirtualRangeYears),
+                Math.max(mMaxYear, year + mVirtualRangeYears));
+    }
+
+    /**
+     * 更新已生成的范围，超出边界的部分使用边界日期
+     *
+     * @param minYear 最小年份
+     * @param maxYear 最大年份
+     * @return 范围是否改变
+     */
+    private boolean updateVirtualRange(int minYear, int maxYear) {
+        int minYearMonth = 1, minYearDay = 1;
+        int maxYearMonth = 12, maxYearDay = 31;
+        if (minYear <= mBoundMinYear) {
+            minYear = mBoundMinYear;
+            minYearMonth = mBoundMinYearMonth;
+            minYearDay = mBoundMinYearDay;
+        }
+        if (maxYear >= mBoundMaxYear) {
+            maxYear = mBoundMaxYear;
+            maxYearMonth = mBoundMaxYearMonth;
+            maxYearDay = mBoundMaxYearDay;
+        }
+        if (minYear == mMinYear && minYearMonth == mMinYearMonth && minYearDay == mMinYearDay &&
+                maxYear == mMaxYear && maxYearMonth == mMaxYearMonth && maxYearDay == mMaxYearDay) {
+            return false;
+        }
+        setRange(minYear, minYearMonth, minYearDay, maxYear, maxYearMonth, maxYearDay);
+        return true;
+    }
+
+    int getRangeVersion() {
+        return mRangeVersion;
+    }
+
+    /**
+     * 拦截结果可能变化，页面重新计算范围掩码
+     */
+    void onRangeChanged() {
+        ++mRangeVersion;
+    }
+
+    boolean isVirtualRange() {
+        return mVirtualRangeYears > 0;
+    }
+
+    int getVirtualRangeYears() {
+        return mVirtualRangeYears;
+    }
+
+    void setVirtualRangeYears(int virtualRangeYears) {
+        this.mVirtualRangeYears = virtualRangeYears;
     }
 
     String getSchemeText() {
@@ -881,12 +1084,74 @@ final class CalendarViewDelegate {
         this.mYearViewScrollable = yearViewScrollable;
     }
 
+    int getYearViewPrefetchCount() {
+        return mYearViewPrefetchCount;
+    }
+
+    void setYearViewPrefetchCount(int yearViewPrefetchCount) {
+        this.mYearViewPrefetchCount = Math.max(1, yearViewPrefetchCount);
+    }
+
+    boolean isPagerViewRecycle() {
+        return isPagerViewRecycle;
+    }
+
+    void setPagerViewRecycle(boolean pagerViewRecycle) {
+        this.isPagerViewRecycle = pagerViewRecycle;
+    }
+
+    boolean isAutoUpdateCurrentDate() {
+        return isAutoUpdateCurrentDate;
+    }
+
+    void setAutoUpdateCurrentDate(boolean autoUpdateCurrentDate) {
+        this.isAutoUpdateCurrentDate = autoUpdateCurrentDate;
+    }
+
     int getWeekStart() {
         return mWeekStart;
     }
 
     void setWeekStart(int mWeekStart) {
         this.mWeekStart = mWeekStart;
+        updateMonthLineTable();
+    }
+
+    /**
+     * 重建月视图行数表
+     */
+    private void updateMonthLineTable() {
+        mMonthLineTable.build(mMinYear, mMinYearMonth, mMaxYear, mMaxYearMonth, mWeekStart);
+    }
+
+    /**
+     * 获取月视图行数，查表
+     *
+     * @param year  year
+     * @param month month
+     * @return 月视图行数
+     */
+    int getMonthViewLineCount(int year, int month) {
+        if (mMonthViewShowMode == MODE_ALL_MONTH) {
+            return 6;
+        }
+        if (mMetrics != null) {
+            mMetrics.count(mMonthLineTable.contains(year, month) ?
+                    CalendarView.CalendarMetricsListener.COUNT_LINE_TABLE_HIT :
+                    CalendarView.CalendarMetricsListener.COUNT_LINE_TABLE_MISS, 1);
+        }
+        return mMonthLineTable.getLineCount(year, month);
+    }
+
+    /**
+     * 获取月视图高度，查表
+     *
+     * @param year  year
+     * @param month month
+     * @return 月视图高度
+     */
+    int getMonthViewHeight(int year, int month) {
+        return getMonthViewLineCount(year, month) * mCalendarItemHeight;
     }
 
     void setDefaultCalendarSelectDay(int defaultCalendarSelect) {
@@ -957,12 +1222,39 @@ final class CalendarViewDelegate {
         return mCurrentDate;
     }
 
-    void updateCurrentDay() {
-        Date d = new Date();
-        mCurrentDate.setYear(CalendarUtil.getDate("yyyy", d));
-        mCurrentDate.setMonth(CalendarUtil.getDate("MM", d));
-        mCurrentDate.setDay(CalendarUtil.getDate("dd", d));
+    /**
+     * 按时钟更新今天
+     *
+     * @return 日期是否改变
+     */
+    boolean updateCurrentDay() {
+        return setupCurrentDate(currentTimeMillis());
+    }
+
+    /**
+     * 设置今天，日期不变时不重新计算农历
+     *
+     * @param timeMillis 时间
+     * @return 日期是否改变
+     */
+    private boolean setupCurrentDate(long timeMillis) {
+        java.util.Calendar date = java.util.Calendar.getInstance();
+        date.setTimeInMillis(timeMillis);
+        int year = date.get(java.util.Calendar.YEAR);
+        int month = date.get(java.util.Calendar.MONTH) + 1;
+        int day = date.get(java.util.Calendar.DAY_OF_MONTH);
+        if (year == mCurrentDate.getYear() && month == mCurrentDate.getMonth() && day == mCurrentDate.getDay()) {
+            return false;
+        }
+        mCurrentDate.setYear(year);
+        mCurrentDate.setMonth(month);
+        mCurrentDate.setDay(day);
         LunarCalendar.setupLunarCalendar(mCurrentDate);
+        return true;
+    }
+
+    long currentTimeMillis() {
+        return mClock == null ? System.currentTimeMillis() : mClock.currentTimeMillis();
     }
 
     @SuppressWarnings("unused")
@@ -1029,10 +1321,9 @@ final class CalendarViewDelegate {
     }
 
     final void updateSelectCalendarScheme() {
-        if (mSchemeDatesMap != null && mSchemeDatesMap.size() > 0) {
-            String key = mSelectedCalendar.toString();
-            if (mSchemeDatesMap.containsKey(key)) {
-                Calendar d = mSchemeDatesMap.get(key);
+        if (hasSchemes()) {
+            Calendar d = findScheme(mSelectedCalendar);
+            if (d != null) {
                 mSelectedCalendar.mergeScheme(d, getSchemeText());
             }
         } else {
@@ -1044,16 +1335,40 @@ final class CalendarViewDelegate {
         if (targetCalendar == null) {
             return;
         }
-        if (mSchemeDatesMap == null || mSchemeDatesMap.size() == 0) {
+        if (!hasSchemes()) {
             return;
         }
-        String key = targetCalendar.toString();
-        if (mSchemeDatesMap.containsKey(key)) {
-            Calendar d = mSchemeDatesMap.get(key);
+        Calendar d = findScheme(targetCalendar);
+        if (d != null) {
             targetCalendar.mergeScheme(d, getSchemeText());
         }
     }
 
+    /**
+     * 是否有事件标记或重复规则
+     *
+     * @return 是否有事件标记
+     */
+    final boolean hasSchemes() {
+        return (mSchemeDatesMap != null && mSchemeDatesMap.size() > 0) || !mSchemeRules.isEmpty();
+    }
+
+    /**
+     * 某一天的事件标记，Map中的优先，其次是重复规则
+     *
+     * @param calendar calendar
+     * @return 事件标记，没有时为null
+     */
+    final Calendar findScheme(Calendar calendar) {
+        if (mSchemeDatesMap != null && mSchemeDatesMap.size() > 0) {
+            Calendar d = mSchemeDatesMap.get(calendar.toString());
+            if (d != null) {
+                return d;
+            }
+        }
+        return mSchemeRules.get(calendar.getYear(), calendar.getMonth(), calendar.getDay());
+    }
+
     Calendar createCurrentDate() {
         Calendar calendar = new Calendar();
         calendar.setYear(mCurrentDate.getYear());
@@ -1065,40 +1380,79 @@ final class CalendarViewDelegate {
         return calendar;
     }
 
+    /**
+     * 日期范围的最小日期，开启虚拟日期范围时是设置的边界
+     *
+     * @return 最小日期
+     */
     final Calendar getMinRangeCalendar() {
+        return createRangeCalendar(getRangeMinDate());
+    }
+
+    /**
+     * 日期范围的最大日期，开启虚拟日期范围时是设置的边界
+     *
+     * @return 最大日期
+     */
+    final Calendar getMaxRangeCalendar() {
+        return createRangeCalendar(getRangeMaxDate());
+    }
+
+    private Calendar createRangeCalendar(int date) {
         Calendar calendar = new Calendar();
-        calendar.setYear(mMinYear);
-        calendar.setMonth(mMinYearMonth);
-        calendar.setDay(mMinYearDay);
+        calendar.setYear(date / 10000);
+        calendar.setMonth(date / 100 % 100);
+        calendar.setDay(date % 100);
         calendar.setCurrentDay(calendar.equals(mCurrentDate));
         LunarCalendar.setupLunarCalendar(calendar);
         return calendar;
     }
 
-    @SuppressWarnings("unused")
-    final Calendar getMaxRangeCalendar() {
+    /**
+     * 已生成页面的最小日期，虚拟日期范围扩展时用来计算页面位置的偏移
+     *
+     * @return 已生成页面的最小日期
+     */
+    final Calendar getPagerMinCalendar() {
         Calendar calendar = new Calendar();
-        calendar.setYear(mMaxYear);
-        calendar.setMonth(mMaxYearMonth);
-        calendar.setDay(mMaxYearDay);
-        calendar.setCurrentDay(calendar.equals(mCurrentDate));
-        LunarCalendar.setupLunarCalendar(calendar);
+        calendar.setYear(mMinYear);
+        calendar.setMonth(mMinYearMonth);
+        calendar.setDay(mMinYearDay);
         return calendar;
     }
 
+    /**
+     * 判断日期是否在范围内时使用的最小日期，虚拟日期范围只影响页面，不影响日期范围
+     *
+     * @return yyyyMMdd
+     */
+    final int getRangeMinDate() {
+        return isVirtualRange() ?
+                toDate(mBoundMinYear, mBoundMinYearMonth, mBoundMinYearDay) :
+                toDate(mMinYear, mMinYearMonth, mMinYearDay);
+    }
+
+    /**
+     * 判断日期是否在范围内时使用的最大日期
+     *
+     * @return yyyyMMdd
+     */
+    final int getRangeMaxDate() {
+        return isVirtualRange() ?
+                toDate(mBoundMaxYear, mBoundMaxYearMonth, mBoundMaxYearDay) :
+                toDate(mMaxYear, mMaxYearMonth, mMaxYearDay);
+    }
+
     /**
      * 添加事件标记，来自Map
      */
     final void addSchemesFromMap(List<Calendar> mItems) {
-        if (mSchemeDatesMap == null || mSchemeDatesMap.size() == 0) {
+        if (!hasSchemes()) {
             return;
         }
         for (Calendar a : mItems) {
-            if (mSchemeDatesMap.containsKey(a.toString())) {
-                Calendar d = mSchemeDatesMap.get(a.toString());
-                if (d == null) {
-                    continue;
-                }
+            Calendar d = findScheme(a);
+            if (d != null) {
                 a.setScheme(TextUtils.isEmpty(d.getScheme()) ? getSchemeText() : d.getScheme());
                 a.setSchemeColor(d.getSchemeColor());
                 a.setSchemes(d.getSchemes());
@@ -1125,11 +1479,170 @@ final class CalendarViewDelegate {
         for (String key : mSchemeDates.keySet()) {
             this.mSchemeDatesMap.remove(key);
             Calendar calendar = mSchemeDates.get(key);
-            if (calendar == null) {
-                continue;
+            if (calendar != null) {
+                this.mSchemeDatesMap.put(key, calendar);
+            }
+            onSchemeChanged(key);
+        }
+    }
+
+    /**
+     * 通过API修改了某一天的标记
+     *
+     * @param key yyyyMMdd
+     */
+    final void onSchemeChanged(String key) {
+        mSchemeIndex.onSchemeChanged(mSchemeDatesMap, key);
+        if (mSchemeDatesMap != mLoggedSchemes) {
+            onSchemesChanged();
+            return;
+        }
+        mSchemeLog.markChanged(SchemeIndex.parseDate(key));
+        mLoggedSchemeSize = mSchemeDatesMap == null ? 0 : mSchemeDatesMap.size();
+    }
+
+    /**
+     * 整体替换了标记或重复规则
+     */
+    final void onSchemesChanged() {
+        mSchemeIndex.invalidate();
+        mSchemeLog.markAll();
+        mLoggedSchemes = mSchemeDatesMap;
+        mLoggedSchemeSize = mSchemeDatesMap == null ? 0 : mSchemeDatesMap.size();
+    }
+
+    /**
+     * 当前标记版本，Map对象或大小和上次记录的不一致时视为整体修改
+     *
+     * @return 版本
+     */
+    final int getSchemeVersion() {
+        int size = mSchemeDatesMap == null ? 0 : mSchemeDatesMap.size();
+        if (mSchemeDatesMap != mLoggedSchemes || size != mLoggedSchemeSize) {
+            onSchemesChanged();
+        }
+        return mSchemeLog.getVersion();
+    }
+
+    /**
+     * 某月有标记的日期掩码，包括重复规则
+     *
+     * @param year  year
+     * @param month month
+     * @return 第day - 1位表示这一天有标记
+     */
+    final int getSchemeMask(int year, int month) {
+        mSchemeIndex.sync(mSchemeDatesMap);
+        int mask = mSchemeIndex.getMask(year, month);
+        Map<Integer, Calendar> recurring = expandMonthRules(year, month);
+        if (recurring != null) {
+            for (Integer date : recurring.keySet()) {
+                mask |= 1 << (date % 100 - 1);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 某天的标记数量，包括重复规则
+     *
+     * @param year  year
+     * @param month month
+     * @param day   day
+     * @return 数量
+     */
+    final int getSchemeCount(int year, int month, int day) {
+        mSchemeIndex.sync(mSchemeDatesMap);
+        int count = mSchemeIndex.getCount(year, month, day);
+        if (count != 0) {
+            return count;
+        }
+        Map<Integer, Calendar> recurring = expandMonthRules(year, month);
+        Calendar scheme = recurring == null ? null : recurring.get(year * 10000 + month * 100 + day);
+        return scheme == null ? 0 : SchemeIndex.getSchemeCount(scheme);
+    }
+
+    /**
+     * 查找之后或之前最近的有标记的日期，包括重复规则，不超过日期范围
+     * Map中的标记二分查找，重复规则只查找到Map中找到的日期为止
+     *
+     * @param from   从这一天开始，不包含
+     * @param isNext 向后还是向前
+     * @return 有标记的日期，没有时为null
+     */
+    final Calendar findAdjacentScheme(Calendar from, boolean isNext) {
+        mSchemeIndex.sync(mSchemeDatesMap);
+        int date = toDate(from.getYear(), from.getMonth(), from.getDay());
+        int limit = isNext ? getRangeMaxDate() : getRangeMinDate();
+        int found = isNext ? mSchemeIndex.nextDate(date) : mSchemeIndex.previousDate(date);
+        if (found != 0 && (isNext ? found > limit : found < limit)) {
+            found = 0;
+        }
+        int ruleFound = mSchemeRules.findOccurrence(date, found != 0 ? found : limit, isNext);
+        if (ruleFound != 0) {
+            found = ruleFound;
+        }
+        if (found == 0) {
+            return null;
+        }
+        Calendar calendar = new Calendar();
+        calendar.setYear(found / 10000);
+        calendar.setMonth(found / 100 % 100);
+        calendar.setDay(found % 100);
+        return calendar;
+    }
+
+    /**
+     * 范围内所有有标记的日期，按日期升序，包括重复规则，同一天Map中的标记优先
+     *
+     * @param from 开始日期，包含
+     * @param to   结束日期，包含
+     * @return 合并了标记的日期，不包含农历
+     */
+    final List<Calendar> findSchemes(Calendar from, Calendar to) {
+        mSchemeIndex.sync(mSchemeDatesMap);
+        int fromDate = toDate(from.getYear(), from.getMonth(), from.getDay());
+        int endDate = toDate(to.getYear(), to.getMonth(), to.getDay());
+        int[] dates = mSchemeIndex.getDates(fromDate, endDate);
+        Map<Integer, Calendar> recurring = mSchemeRules.expandAll(fromDate, endDate);
+        if (!recurring.isEmpty()) {
+            Set<Integer> all = new TreeSet<>(recurring.keySet());
+            for (int date : dates) {
+                all.add(date);
+            }
+            dates = new int[all.size()];
+            int i = 0;
+            for (int date : all) {
+                dates[i++] = date;
             }
-            this.mSchemeDatesMap.put(key, calendar);
         }
+        List<Calendar> calendars = new ArrayList<>(dates.length);
+        for (int date : dates) {
+            Calendar calendar = new Calendar();
+            calendar.setYear(date / 10000);
+            calendar.setMonth(date / 100 % 100);
+            calendar.setDay(date % 100);
+            Calendar scheme = mSchemeDatesMap == null ? null : mSchemeDatesMap.get(calendar.toString());
+            calendar.mergeScheme(scheme != null ? scheme : recurring.get(date), getSchemeText());
+            calendars.add(calendar);
+        }
+        return calendars;
+    }
+
+    private static int toDate(int year, int month, int day) {
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * 按整月展开重复规则
+     *
+     * @param year  year
+     * @param month month
+     * @return key为yyyyMMdd，没有规则时为null
+     */
+    final Map<Integer, Calendar> expandMonthRules(int year, int month) {
+        int start = year * 10000 + month * 100;
+        return mSchemeRules.expand(start + 1, start + CalendarUtil.getMonthDaysCount(year, month));
     }
 
     /**
@@ -1140,6 +1653,106 @@ final class CalendarViewDelegate {
         mSelectedEndRangeCalendar = null;
     }
 
+    /**
+     * 批量多选：一次遍历日期范围，按星期过滤，跳过拦截和超出日期范围的日期
+     * 选择时先检查最大数量，超出时不做任何修改
+     * 完成后回调一次批量事件
+     *
+     * @param startDay 开始，距离1970-01-01的天数
+     * @param endDay   结束，包含
+     * @param weekDays 星期掩码，第0位为周日
+     * @param isSelect 选择还是取消选择
+     * @return 变化的日期，超出最大数量时为null
+     */
+    final List<Calendar> updateMultiSelect(int startDay, int endDay, int weekDays, boolean isSelect) {
+        List<Calendar> changed = new ArrayList<>();
+        Calendar calendar = new Calendar();
+        for (int day = startDay; day <= endDay; day++) {
+            if ((weekDays & (1 << CalendarUtil.getDayOfWeek(day))) == 0) {
+                continue;
+            }
+            CalendarUtil.setupCalendarFromEpochDay(calendar, day);
+            String key = calendar.toString();
+            if (isSelect == mSelectedCalendars.containsKey(key)) {
+                continue;
+            }
+            if (!isSelect) {
+                changed.add(mSelectedCalendars.get(key));
+                continue;
+            }
+            if (!CalendarUtil.isCalendarInRange(calendar, this)) {
+                continue;
+            }
+            LunarCalendar.setupLunarCalendar(calendar);
+            updateCalendarScheme(calendar);
+            Calendar candidate = calendar;
+            calendar = new Calendar();
+            if (mCalendarInterceptListener == null || !mCalendarInterceptListener.onCalendarIntercept(candidate)) {
+                changed.add(candidate);
+            }
+        }
+        if (isSelect && changed.size() > mMaxMultiSelectSize - mSelectedCalendars.size()) {
+            if (mCalendarMultiSelectBatchListener != null) {
+                mCalendarMultiSelectBatchListener.onMultiSelectBatchOutOfSize(changed.size(), mMaxMultiSelectSize);
+            }
+            return null;
+        }
+        for (Calendar c : changed) {
+            if (isSelect) {
+                mSelectedCalendars.put(c.toString(), c);
+            } else {
+                mSelectedCalendars.remove(c.toString());
+            }
+        }
+        notifyMultiSelectBatch(changed, isSelect);
+        return changed;
+    }
+
+    /**
+     * 回调批量多选事件
+     *
+     * @param changed  变化的日期
+     * @param isSelect 选择还是取消选择
+     */
+    final void notifyMultiSelectBatch(List<Calendar> changed, boolean isSelect) {
+        if (mCalendarMultiSelectBatchListener == null || changed.isEmpty()) {
+            return;
+        }
+        mCalendarMultiSelectBatchListener.onCalendarMultiSelectBatch(changed, isSelect,
+                mSelectedCalendars.size(), mMaxMultiSelectSize);
+    }
+
+    /**
+     * 多区间选择模式点击日期：第一次点击记录区间第一天，第二次点击完成区间
+     * 第一天原来已选中时取消选择整个区间，否则选中整个区间，和已有区间合并
+     *
+     * @param calendar calendar
+     */
+    final void selectMultiRange(Calendar calendar) {
+        Calendar anchor = mSelectedStartRangeCalendar;
+        if (anchor == null) {
+            mSelectedStartRangeCalendar = calendar;
+            mSelectedEndRangeCalendar = null;
+            if (mCalendarMultiRangeSelectListener != null) {
+                mCalendarMultiRangeSelectListener.onCalendarMultiRangeStart(calendar);
+            }
+            return;
+        }
+        Calendar start = calendar.compareTo(anchor) < 0 ? calendar : anchor;
+        Calendar end = start == calendar ? anchor : calendar;
+        boolean isSelected = !mSelectedRanges.contains(anchor);
+        if (isSelected) {
+            mSelectedRanges.add(CalendarRangeSet.toEpochDay(start), CalendarRangeSet.toEpochDay(end));
+        } else {
+            mSelectedRanges.remove(CalendarRangeSet.toEpochDay(start), CalendarRangeSet.toEpochDay(end));
+        }
+        mSelectedStartRangeCalendar = null;
+        mSelectedEndRangeCalendar = null;
+        if (mCalendarMultiRangeSelectListener != null) {
+            mCalendarMultiRangeSelectListener.onCalendarMultiRangeChange(start, end, isSelected);
+        }
+    }
+
     /**
      * 获得选中范围
      *
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.TimeZone;
+
+/**
+ * 监听日期变化：系统日期、时间、时区广播，以及在下一个零点的定时回调
+ * ACTION_DATE_CHANGED在部分机型上不可靠，所以另外在零点定时检查
+ * CalendarView attach时开始，detach时停止，只在主线程使用
+ */
+final class DayChangeWatcher extends BroadcastReceiver implements Runnable {
+
+    /**
+     * 零点后稍微延迟，避免时钟误差导致仍在前一天
+     */
+    private static final long MIDNIGHT_DELAY = 100;
+
+    private static final long ONE_DAY = 24 * 60 * 60 * 1000L;
+
+    private final CalendarView mCalendarView;
+
+    private final CalendarViewDelegate mDelegate;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private Context mContext;
+
+    DayChangeWatcher(CalendarView calendarView, CalendarViewDelegate delegate) {
+        this.mCalendarView = calendarView;
+        this.mDelegate = delegate;
+    }
+
+    /**
+     * 开始监听，立即检查一次，覆盖detach期间跨过零点的情况
+     *
+     * @param context context
+     */
+    void start(Context context) {
+        if (mContext != null) {
+            return;
+        }
+        mContext = context.getApplicationContext();
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_DATE_CHANGED);
+        filter.addAction(Intent.ACTION_TIME_CHANGED);
+        filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+        mContext.registerReceiver(this, filter);
+        onDayChange();
+    }
+
+    void stop() {
+        if (mContext == null) {
+            return;
+        }
+        mContext.unregisterReceiver(this);
+        mContext = null;
+        mHandler.removeCallbacks(this);
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        onDayChange();
+    }
+
+    @Override
+    public void run() {
+        onDayChange();
+    }
+
+    /**
+     * 更新今天，并重新安排下一个零点的检查
+     */
+    private void onDayChange() {
+        mCalendarView.updateCurrentDate();
+        mHandler.removeCallbacks(this);
+        if (mContext != null) {
+            mHandler.postDelayed(this,
+                    getMillisUntilNextDay(mDelegate.currentTimeMillis(), TimeZone.getDefault()) + MIDNIGHT_DELAY);
+        }
+    }
+
+    /**
+     * 距离下一个零点的毫秒数
+     *
+     * @param timeMillis 当前时间
+     * @param timeZone   时区
+     * @return 距离下一个零点的毫秒数
+     */
+    static long getMillisUntilNextDay(long timeMillis, TimeZone timeZone) {
+        java.util.Calendar date = java.util.Calendar.getInstance(timeZone);
+        date.setTimeInMillis(timeMillis);
+        date.set(java.util.Calendar.HOUR_OF_DAY, 0);
+        date.set(java.util.Calendar.MINUTE, 0);
+        date.set(java.util.Calendar.SECOND, 0);
+        date.set(java.util.Calendar.MILLISECOND, 0);
+        date.add(java.util.Calendar.DAY_OF_MONTH, 1);
+        long millis = date.getTimeInMillis() - timeMillis;
+        return millis > 0 && millis <= ONE_DAY + 60 * 60 * 1000L ? millis : ONE_DAY;
+    }
+}
@@ -0,0 +1,636 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * 日历网格，按数组保存每一天的日期、标志位、农历、文本下标和标记，不持有Calendar对象
+ * 作为List使用时get每次生成新的Calendar，用于回调和点击；
+ * 绘制时由fillCalendar填充复用的Calendar，BaseView.getItems时才创建日历项
+ */
+final class DayGrid extends AbstractList<Calendar> implements RandomAccess {
+
+    /**
+     * 月视图网格大小
+     */
+    static final int MONTH_SIZE = 42;
+
+    /**
+     * 周视图网格大小
+     */
+    static final int WEEK_SIZE = 7;
+
+    /**
+     * 低3位保存星期 0-6，对应周日到周六
+     */
+    static final int FLAG_WEEK_MASK = 0x07;
+
+    /**
+     * 是否本月
+     */
+    static final int FLAG_CURRENT_MONTH = 0x08;
+
+    /**
+     * 是否今天
+     */
+    static final int FLAG_CURRENT_DAY = 0x10;
+
+    /**
+     * 是否周末
+     */
+    static final int FLAG_WEEKEND = 0x20;
+
+    /**
+     * 是否有标记
+     */
+    static final int FLAG_SCHEME = 0x40;
+
+    /**
+     * 是否闰年
+     */
+    static final int FLAG_LEAP_YEAR = 0x80;
+
+    /**
+     * 是否已计算农历
+     */
+    static final int FLAG_LUNAR = 0x100;
+
+    /**
+     * 农历是否闰月
+     */
+    static final int FLAG_LUNAR_LEAP_MONTH = 0x200;
+
+    /**
+     * 文本下标，每个占8位，0表示null
+     */
+    private static final int TEXT_SOLAR_TERM = 0;
+    private static final int TEXT_GREGORIAN_FESTIVAL = 8;
+    private static final int TEXT_TRADITION_FESTIVAL = 16;
+    private static final int TEXT_LUNAR = 24;
+
+    /**
+     * 公历日期 yyyyMMdd
+     */
+    private final int[] mDates = new int[MONTH_SIZE];
+
+    /**
+     * 标志位
+     */
+    private final int[] mFlags = new int[MONTH_SIZE];
+
+    /**
+     * 农历日期 yyyyMMdd
+     */
+    private final int[] mLunarDates = new int[MONTH_SIZE];
+
+    /**
+     * 节气、公历节日、传统节日、农历文本在mTexts中的下标
+     */
+    private final int[] mTextIndexes = new int[MONTH_SIZE];
+
+    /**
+     * 标记数据，引用mSchemeDatesMap中的对象，仅FLAG_SCHEME时有值
+     */
+    private final Calendar[] mSchemes = new Calendar[MONTH_SIZE];
+
+    /**
+     * 网格内去重后的文本
+     */
+    private final String[] mTexts = new String[4 * MONTH_SIZE + 1];
+
+    private int mTextCount;
+
+    /**
+     * 计算农历时复用
+     */
+    private final String[] mLunarTexts = new String[4];
+
+    /**
+     * 默认标记文本
+     */
+    private String mSchemeText;
+
+    /**
+     * 已绑定的标记版本，0表示未绑定
+     */
+    private int mSchemeVersion;
+
+    /**
+     * 在日期范围内的格子，第i位对应第i个格子
+     */
+    private long mInRangeMask;
+
+    /**
+     * 被拦截的格子
+     */
+    private long mInterceptMask;
+
+    /**
+     * 计算掩码时的范围版本，0表示未计算
+     */
+    private int mRangeVersion;
+
+    /**
+     * 多区间选择的选中掩码和计算时的区间版本
+     */
+    private long mSelectedRangeMask;
+
+    private int mSelectedRangeVersion;
+
+    private int mSize;
+
+    /**
+     * 生成月视图网格
+     *
+     * @param year        year
+     * @param month       month
+     * @param currentDate 今天
+     * @param weekStart   周起始
+     * @param isLunar     是否计算农历、节气、节日
+     */
+    void initMonth(int year, int month, Calendar currentDate, int weekStart, boolean isLunar) {
+        int preDiff = CalendarUtil.getMonthViewStartDiff(year, month, weekStart);
+        int monthDaysCount = CalendarUtil.getMonthDaysCount(year, month);
+        int preYear = month == 1 ? year - 1 : year;
+        int preMonth = month == 1 ? 12 : month - 1;
+        int nextYear = month == 12 ? year + 1 : year;
+        int nextMonth = month == 12 ? 1 : month + 1;
+        int preMonthDaysCount = preDiff == 0 ? 0 : CalendarUtil.getMonthDaysCount(preYear, preMonth);
+
+        reset(MONTH_SIZE);
+        int today = toDate(currentDate);
+        int week = weekStart - 1;
+        for (int i = 0; i < MONTH_SIZE; i++) {
+            int y, m, d;
+            int flag = week;
+            if (i < preDiff) {
+                y = preYear;
+                m = preMonth;
+                d = preMonthDaysCount - preDiff + i + 1;
+            } else if (i >= monthDaysCount + preDiff) {
+                y = nextYear;
+                m = nextMonth;
+                d = i - monthDaysCount - preDiff + 1;
+            } else {
+                y = year;
+                m = month;
+                d = i - preDiff + 1;
+                flag |= FLAG_CURRENT_MONTH;
+            }
+            setupDay(i, y, m, d, flag, today, isLunar);
+            week = week == 6 ? 0 : week + 1;
+        }
+    }
+
+    /**
+     * 生成周视图网格，周视图所有日期都视为本月
+     *
+     * @param start       周视图第一天
+     * @param currentDate 今天
+     * @param isLunar     是否计算农历、节气、节日
+     */
+    void initWeek(Calendar start, Calendar currentDate, boolean isLunar) {
+        reset(WEEK_SIZE);
+        int today = toDate(currentDate);
+        int y = start.getYear();
+        int m = start.getMonth();
+        int d = start.getDay();
+        int monthDaysCount = CalendarUtil.getMonthDaysCount(y, m);
+        int week = CalendarUtil.getDayOfWeek(CalendarUtil.getEpochDay(y, m, d));
+        for (int i = 0; i < WEEK_SIZE; i++) {
+            setupDay(i, y, m, d, week | FLAG_CURRENT_MONTH, today, isLunar);
+            week = week == 6 ? 0 : week + 1;
+            if (++d > monthDaysCount) {
+                d = 1;
+                if (++m > 12) {
+                    m = 1;
+                    ++y;
+                }
+                monthDaysCount = CalendarUtil.getMonthDaysCount(y, m);
+            }
+        }
+    }
+
+    private void reset(int size) {
+        mSize = size;
+        mSchemeVersion = 0;
+        mRangeVersion = 0;
+        mSelectedRangeVersion = 0;
+        mTextCount = 1;
+        for (int i = 1; i < mTexts.length; i++) {
+            mTexts[i] = null;
+        }
+    }
+
+    private void setupDay(int index, int y, int m, int d, int flag, int today, boolean isLunar) {
+        int week = flag & FLAG_WEEK_MASK;
+        if (week == 0 || week == 6) {
+            flag |= FLAG_WEEKEND;
+        }
+        if (CalendarUtil.isLeapYear(y)) {
+            flag |= FLAG_LEAP_YEAR;
+        }
+        int date = y * 10000 + m * 100 + d;
+        if (date == today) {
+            flag |= FLAG_CURRENT_DAY;
+        }
+        int lunarDate = 0;
+        int textIndex = 0;
+        if (isLunar) {
+            int[] lunar = LunarCalendar.setupLunarTexts(y, m, d, mLunarTexts);
+            lunarDate = lunar[0] * 10000 + lunar[1] * 100 + lunar[2];
+            flag |= FLAG_LUNAR;
+            if (lunar[3] == 1) {
+                flag |= FLAG_LUNAR_LEAP_MONTH;
+            }
+            textIndex = indexOfText(mLunarTexts[0]) << TEXT_SOLAR_TERM |
+                    indexOfText(mLunarTexts[1]) << TEXT_GREGORIAN_FESTIVAL |
+                    indexOfText(mLunarTexts[2]) << TEXT_TRADITION_FESTIVAL |
+                    indexOfText(mLunarTexts[3]) << TEXT_LUNAR;
+        }
+        mDates[index] = date;
+        mFlags[index] = flag;
+        mLunarDates[index] = lunarDate;
+        mTextIndexes[index] = textIndex;
+        mSchemes[index] = null;
+    }
+
+    /**
+     * 文本去重，同一网格内节日、农历文本大量重复
+     *
+     * @param text text
+     * @return 下标，null为0
+     */
+    private int indexOfText(String text) {
+        if (text == null) {
+            return 0;
+        }
+        for (int i = 1; i < mTextCount; i++) {
+            if (text.equals(mTexts[i])) {
+                return i;
+            }
+        }
+        mTexts[mTextCount] = text;
+        return mTextCount++;
+    }
+
+    private String getText(int index, int shift) {
+        return mTexts[(mTextIndexes[index] >>> shift) & 0xFF];
+    }
+
+    /**
+     * 按版本绑定事件标记：版本相同时不做任何事，落后不多时只更新修改过的日期，否则完全重新绑定
+     *
+     * @param version    当前标记版本
+     * @param log        修改记录
+     * @param schemes    标记map，可为null
+     * @param rules      重复规则，可为null
+     * @param schemeText 默认标记文本
+     * @return 重新查找的日期中有标记的数量，版本相同时为-1
+     */
+    int bindSchemes(int version, SchemeChangeLog log, Map<String, Calendar> schemes,
+                    SchemeRuleSet rules, String schemeText) {
+        boolean isSameText = schemeText == null ? mSchemeText == null : schemeText.equals(mSchemeText);
+        if (mSchemeVersion == version && isSameText) {
+            return -1;
+        }
+        int count;
+        if (mSchemeVersion == 0 || !isSameText || log.isFullChange(mSchemeVersion)) {
+            count = updateSchemes(schemes, rules, schemeText);
+        } else {
+            count = 0;
+            Map<Integer, Calendar> recurring = null;
+            for (int v = mSchemeVersion + 1; v <= version; v++) {
+                int index = mSize == 0 ? -1 : Arrays.binarySearch(mDates, 0, mSize, log.getDate(v));
+                if (index < 0) {
+                    continue;
+                }
+                Calendar scheme = schemes == null ? null : schemes.get(String.valueOf(mDates[index]));
+                if (scheme == null && rules != null) {
+                    if (recurring == null) {
+                        recurring = rules.expand(mDates[0], mDates[mSize - 1]);
+                    }
+                    scheme = recurring == null ? null : recurring.get(mDates[index]);
+                }
+                if (setScheme(index, scheme)) {
+                    ++count;
+                }
+            }
+        }
+        mSchemeVersion = version;
+        return count;
+    }
+
+    /**
+     * 添加事件标记，来自Map和重复规则，Map中的标记优先
+     *
+     * @param schemes    标记map，可为null
+     * @param rules      重复规则，可为null
+     * @param schemeText 默认标记文本
+     * @return 标记数量
+     */
+    int updateSchemes(Map<String, Calendar> schemes, SchemeRuleSet rules, String schemeText) {
+        mSchemeText = schemeText;
+        mSchemeVersion = 0;
+        boolean hasMap = schemes != null && schemes.size() != 0;
+        Map<Integer, Calendar> recurring = rules == null || mSize == 0 ? null : rules.expand(mDates[0], mDates[mSize - 1]);
+        if (!hasMap && (recurring == null || recurring.isEmpty())) {
+            clearSchemes();
+            return 0;
+        }
+        int count = 0;
+        for (int i = 0; i < mSize; i++) {
+            Calendar scheme = hasMap ? schemes.get(String.valueOf(mDates[i])) : null;
+            if (scheme == null && recurring != null) {
+                scheme = recurring.get(mDates[i]);
+            }
+            if (setScheme(i, scheme)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private boolean setScheme(int index, Calendar scheme) {
+        mSchemes[index] = scheme;
+        if (scheme == null) {
+            mFlags[index] &= ~FLAG_SCHEME;
+            return false;
+        }
+        mFlags[index] |= FLAG_SCHEME;
+        return true;
+    }
+
+    /**
+     * 按月份掩码添加本月的事件标记，只为有标记的日期查找Map和重复规则，其它月份的日期不标记
+     *
+     * @param mask       本月掩码，第day - 1位表示这一天有标记
+     * @param schemes    标记map，可为null
+     * @param rules      重复规则，可为null
+     * @param schemeText 默认标记文本
+     * @return 标记数量
+     */
+    int updateMonthSchemes(int mask, Map<String, Calendar> schemes, SchemeRuleSet rules, String schemeText) {
+        mSchemeText = schemeText;
+        mSchemeVersion = 0;
+        clearSchemes();
+        if (mask == 0) {
+            return 0;
+        }
+        Map<Integer, Calendar> recurring = null;
+        int count = 0;
+        for (int i = 0; i < mSize; i++) {
+            int date = mDates[i];
+            if ((mFlags[i] & FLAG_CURRENT_MONTH) == 0 || (mask & (1 << (date % 100 - 1))) == 0) {
+                continue;
+            }
+            Calendar scheme = schemes == null ? null : schemes.get(String.valueOf(date));
+            if (scheme == null && rules != null) {
+                if (recurring == null) {
+                    int year = date / 10000;
+                    int month = date / 100 % 100;
+                    int start = year * 10000 + month * 100;
+                    recurring = rules.expand(start + 1, start + CalendarUtil.getMonthDaysCount(year, month));
+                }
+                scheme = recurring == null ? null : recurring.get(date);
+            }
+            if (scheme != null) {
+                mSchemes[i] = scheme;
+                mFlags[i] |= FLAG_SCHEME;
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 移除事件标记
+     */
+    void clearSchemes() {
+        for (int i = 0; i < mSize; i++) {
+            mSchemes[i] = null;
+            mFlags[i] &= ~FLAG_SCHEME;
+        }
+    }
+
+    /**
+     * 网格是否包含日期范围内的某一天
+     *
+     * @param fromDate 开始日期 yyyyMMdd
+     * @param toDate   结束日期 yyyyMMdd，包含
+     * @return 是否相交
+     */
+    boolean intersects(int fromDate, int toDate) {
+        return mSize != 0 && mDates[0] <= toDate && mDates[mSize - 1] >= fromDate;
+    }
+
+    int getRangeVersion() {
+        return mRangeVersion;
+    }
+
+    /**
+     * 计算日期范围和拦截掩码，绘制和点击时只检查位
+     *
+     * @param version     范围版本
+     * @param minDate     最小日期 yyyyMMdd
+     * @param maxDate     最大日期 yyyyMMdd
+     * @param interceptor 按月缓存的拦截结果，可为null，普通拦截事件不缓存
+     */
+    void updateRangeMask(int version, int minDate, int maxDate, InterceptCache interceptor) {
+        long inRange = 0;
+        long intercept = 0;
+        for (int i = 0; i < mSize; i++) {
+            int date = mDates[i];
+            if (date >= minDate && date <= maxDate) {
+                inRange |= 1L << i;
+            }
+            if (interceptor != null && interceptor.isIntercepted(date / 10000, date / 100 % 100, date % 100)) {
+                intercept |= 1L << i;
+            }
+        }
+        mInRangeMask = inRange;
+        mInterceptMask = intercept;
+        mRangeVersion = version;
+    }
+
+    boolean isInRange(int index) {
+        return (mInRangeMask & (1L << index)) != 0;
+    }
+
+    boolean isIntercepted(int index) {
+        return (mInterceptMask & (1L << index)) != 0;
+    }
+
+    /**
+     * 格子是否在多区间选择的区间内，区间变化后重新计算整页掩码
+     *
+     * @param index  index
+     * @param ranges 选中的区间
+     * @return 是否选中
+     */
+    boolean isRangeSelected(int index, CalendarRangeSet ranges) {
+        if (mSelectedRangeVersion != ranges.getVersion()) {
+            int date = mDates[0];
+            mSelectedRangeMask = ranges.getMask(
+                    CalendarUtil.getEpochDay(date / 10000, date / 100 % 100, date % 100), mSize);
+            mSelectedRangeVersion = ranges.getVersion();
+        }
+        return (mSelectedRangeMask & (1L << index)) != 0;
+    }
+
+    /**
+     * 更新今天
+     *
+     * @param currentDate 今天
+     * @return 是否有格子改变，昨天和今天都不在网格内时不需要重绘
+     */
+    boolean updateCurrentDay(Calendar currentDate) {
+        int today = toDate(currentDate);
+        boolean isChanged = false;
+        for (int i = 0; i < mSize; i++) {
+            int flags = mDates[i] == today ? mFlags[i] | FLAG_CURRENT_DAY : mFlags[i] & ~FLAG_CURRENT_DAY;
+            if (flags != mFlags[i]) {
+                mFlags[i] = flags;
+                isChanged = true;
+            }
+        }
+        return isChanged;
+    }
+
+    /**
+     * 是否本月
+     *
+     * @param index index
+     * @return 是否本月
+     */
+    boolean isCurrentMonth(int index) {
+        return (mFlags[index] & FLAG_CURRENT_MONTH) != 0;
+    }
+
+    /**
+     * 将网格数据写入复用的Calendar，只在绘制回调需要时调用
+     *
+     * @param index    index
+     * @param calendar 复用的calendar
+     */
+    void fillCalendar(int index, Calendar calendar) {
+        int date = mDates[index];
+        int flag = mFlags[index];
+        int year = date / 10000;
+        calendar.setYear(year);
+        calendar.setMonth(date / 100 % 100);
+        calendar.setDay(date % 100);
+        calendar.setLeapYear((flag & FLAG_LEAP_YEAR) != 0);
+        calendar.setWeek(flag & FLAG_WEEK_MASK);
+        calendar.setWeekend((flag & FLAG_WEEKEND) != 0);
+        calendar.setCurrentMonth((flag & FLAG_CURRENT_MONTH) != 0);
+        calendar.setCurrentDay((flag & FLAG_CURRENT_DAY) != 0);
+        if ((flag & FLAG_LUNAR) != 0) {
+            Calendar lunarCalendar = calendar.getLunarCalendar();
+            if (lunarCalendar == null) {
+                lunarCalendar = new Calendar();
+                calendar.setLunarCalendar(lunarCalendar);
+            }
+            int lunarDate = mLunarDates[index];
+            int lunarMonth = lunarDate / 100 % 100;
+            int leapMonth = (flag & FLAG_LUNAR_LEAP_MONTH) != 0 ? lunarMonth : 0;
+            lunarCalendar.setYear(lunarDate / 10000);
+            lunarCalendar.setMonth(lunarMonth);
+            lunarCalendar.setDay(lunarDate % 100);
+            lunarCalendar.setLeapMonth(leapMonth);
+            calendar.setLeapMonth(leapMonth);
+
+            String solarTerm = getText(index, TEXT_SOLAR_TERM);
+            String gregorian = getText(index, TEXT_GREGORIAN_FESTIVAL);
+            String festival = getText(index, TEXT_TRADITION_FESTIVAL);
+            String lunarText = getText(index, TEXT_LUNAR);
+            calendar.setSolarTerm(solarTerm);
+            calendar.setGregorianFestival(gregorian);
+            calendar.setTraditionFestival(festival);
+            calendar.setLunar(LunarCalendar.getDisplayLunar(solarTerm, gregorian, festival, lunarText));
+            lunarCalendar.setTraditionFestival(festival);
+            lunarCalendar.setSolarTerm(solarTerm);
+            lunarCalendar.setLunar(lunarText);
+        } else {
+            calendar.setLunarCalendar(null);
+            calendar.setLeapMonth(0);
+            calendar.setSolarTerm(null);
+            calendar.setGregorianFestival(null);
+            calendar.setTraditionFestival(null);
+            calendar.setLunar(null);
+        }
+        if ((flag & FLAG_SCHEME) != 0) {
+            calendar.mergeScheme(mSchemes[index], mSchemeText);
+        } else {
+            calendar.clearScheme();
+        }
+    }
+
+    /**
+     * 生成新的Calendar，用于回调等需要持有日期的地方
+     *
+     * @param index index
+     * @return Calendar
+     */
+    @Override
+    public Calendar get(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + mSize);
+        }
+        Calendar calendar = new Calendar();
+        fillCalendar(index, calendar);
+        return calendar;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * 按日期查找，不生成Calendar
+     *
+     * @param o calendar
+     * @return 下标
+     */
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Calendar)) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(mDates, 0, mSize, toDate((Calendar) o));
+        return index < 0 ? -1 : index;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    private static int toDate(Calendar calendar) {
+        return calendar == null ? -1 :
+                calendar.getYear() * 10000 + calendar.getMonth() * 100 + calendar.getDay();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+import android.content.Context;
+import android.graphics.Canvas;
+
+/**
+ * 热力图年视图，按每天的标记数量设置标记颜色的透明度，数量越多颜色越深
+ * 数量来自标记的月份索引，不需要遍历标记Map
+ * 使用：app:year_view="com.haibin.calendarview.HeatmapYearView"
+ */
+public class HeatmapYearView extends DefaultYearView {
+
+    /**
+     * 数量为1时的透明度比例，0-255
+     */
+    private static final int MIN_LEVEL = 64;
+
+    /**
+     * 本月每天最大的标记数量
+     */
+    private int mMaxCount;
+
+    private float mRadius;
+
+    public HeatmapYearView(Context context) {
+        super(context);
+    }
+
+    @Override
+    protected void onPreviewHook() {
+        mMaxCount = 1;
+        int mask = getSchemeMask();
+        while (mask != 0) {
+            int day = Integer.numberOfTrailingZeros(mask) + 1;
+            mMaxCount = Math.max(mMaxCount, getSchemeCount(day));
+            mask &= mask - 1;
+        }
+        mRadius = Math.min(mItemWidth, mItemHeight) * 2 / 5f;
+    }
+
+    @Override
+    protected void onDrawScheme(Canvas canvas, Calendar calendar, int x, int y) {
+        int count = getSchemeCount(calendar.getDay());
+        int level = mMaxCount <= 1 ? 255 : MIN_LEVEL + (255 - MIN_LEVEL) * (count - 1) / (mMaxCount - 1);
+        mSchemePaint.setAlpha(mSchemePaint.getAlpha() * level / 255);
+        canvas.drawCircle(x + mItemWidth / 2f, y + mItemHeight / 2f, mRadius, mSchemePaint);
+    }
+}
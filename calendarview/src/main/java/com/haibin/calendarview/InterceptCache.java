@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+import java.util.BitSet;
+
+/**
+ * 按月缓存的日期拦截结果，每个月只回调一次OnCalendarRangeInterceptListener
+ * 绘制、点击、范围选择查询拦截时只读掩码，不再逐个日期回调
+ * 拦截数据变化后需要调用invalidate
+ */
+final class InterceptCache implements CalendarView.OnCalendarInterceptListener {
+
+    private static final int MONTH_COUNT = (CalendarViewDelegate.MAX_YEAR - CalendarViewDelegate.MIN_YEAR + 1) * 12;
+
+    private final CalendarView.OnCalendarRangeInterceptListener mListener;
+
+    /**
+     * 每个月的拦截掩码，第day - 1位表示这一天被拦截
+     */
+    private final int[] mMasks = new int[MONTH_COUNT];
+
+    /**
+     * 已经查询过的月份
+     */
+    private final BitSet mLoaded = new BitSet(MONTH_COUNT);
+
+    /**
+     * 回调时复用
+     */
+    private final BitSet mResult = new BitSet(31);
+
+    InterceptCache(CalendarView.OnCalendarRangeInterceptListener listener) {
+        this.mListener = listener;
+    }
+
+    @Override
+    public boolean onCalendarIntercept(Calendar calendar) {
+        return isIntercepted(calendar.getYear(), calendar.getMonth(), calendar.getDay());
+    }
+
+    @Override
+    public void onCalendarInterceptClick(Calendar calendar, boolean isClick) {
+        mListener.onCalendarInterceptClick(calendar, isClick);
+    }
+
+    /**
+     * 某一天是否被拦截，月份没有缓存时回调一次
+     *
+     * @param year  year
+     * @param month month
+     * @param day   day
+     * @return 是否被拦截
+     */
+    boolean isIntercepted(int year, int month, int day) {
+        int index = getMonthIndex(year, month);
+        if (index < 0 || day < 1 || day > 31) {
+            return false;
+        }
+        if (!mLoaded.get(index)) {
+            mMasks[index] = load(year, month);
+            mLoaded.set(index);
+        }
+        return (mMasks[index] & (1 << (day - 1))) != 0;
+    }
+
+    private int load(int year, int month) {
+        Calendar start = new Calendar();
+        start.setYear(year);
+        start.setMonth(month);
+        start.setDay(1);
+        int count = CalendarUtil.getMonthDaysCount(year, month);
+        mResult.clear();
+        mListener.onCalendarRangeIntercept(start, count, mResult);
+        int mask = 0;
+        for (int i = mResult.nextSetBit(0); i >= 0 && i < count; i = mResult.nextSetBit(i + 1)) {
+            mask |= 1 << i;
+        }
+        return mask;
+    }
+
+    /**
+     * 清空全部缓存
+     */
+    void invalidate() {
+        mLoaded.clear();
+    }
+
+    /**
+     * 清空日期范围所在月份的缓存
+     *
+     * @param from 开始日期
+     * @param to   结束日期，包含
+     */
+    void invalidate(Calendar from, Calendar to) {
+        int start = Math.max(0, (from.getYear() - CalendarViewDelegate.MIN_YEAR) * 12 + from.getMonth() - 1);
+        int end = Math.min(MONTH_COUNT - 1, (to.getYear() - CalendarViewDelegate.MIN_YEAR) * 12 + to.getMonth() - 1);
+        if (start <= end) {
+            mLoaded.clear(start, end + 1);
+        }
+    }
+
+    private static int getMonthIndex(int year, int month) {
+        if (year < CalendarViewDelegate.MIN_YEAR || year > CalendarViewDelegate.MAX_YEAR || month < 1 || month > 12) {
+            return -1;
+        }
+        return (year - CalendarViewDelegate.MIN_YEAR) * 12 + month - 1;
+    }
+}
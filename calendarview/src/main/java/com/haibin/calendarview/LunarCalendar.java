@@ -15,13 +15,9 @@
  */
 package com.haibin.calendarview;
 
-import android.annotation.SuppressLint;
 import android.content.Context;
 import android.text.TextUtils;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * 农历计算相关
  */
@@ -30,6 +26,7 @@ public final class LunarCalendar {
 
 
     static void init(Context context) {
+        CalendarCacheManager.init(context);
         if (MONTH_STR != null) {
             return;
         }
@@ -65,8 +62,17 @@ public final class LunarCalendar {
     /**
      * 特殊节日、母亲节和父亲节,感恩节等
      */
-    @SuppressLint("UseSparseArrays")
-    private static final Map<Integer, String[]> SPECIAL_FESTIVAL = new HashMap<>();
+    private static final CalendarCache<Integer, String[]> SPECIAL_FESTIVAL = CalendarCacheManager.register(
+            new CalendarCache<Integer, String[]>(CalendarCacheManager.CACHE_SPECIAL_FESTIVAL,
+                    24, CalendarCache.STRING_ARRAY_SIZER));
+
+    private static final CalendarCache.Loader<Integer, String[]> SPECIAL_FESTIVAL_LOADER =
+            new CalendarCache.Loader<Integer, String[]>() {
+                @Override
+                public String[] load(Integer year) {
+                    return getSpecialFestivals(year);
+                }
+            };
 
     /**
      * 公历节日
@@ -76,8 +82,27 @@ public final class LunarCalendar {
     /**
      * 保存每年24节气
      */
-    @SuppressLint("UseSparseArrays")
-    private static final Map<Integer, String[]> SOLAR_TERMS = new HashMap<>();
+    private static final CalendarCache<Integer, String[]> SOLAR_TERMS = CalendarCacheManager.register(
+            new CalendarCache<Integer, String[]>(CalendarCacheManager.CACHE_SOLAR_TERMS,
+                    24, CalendarCache.STRING_ARRAY_SIZER));
+
+    private static final CalendarCache.Loader<Integer, String[]> SOLAR_TERMS_LOADER =
+            new CalendarCache.Loader<Integer, String[]>() {
+                @Override
+                public String[] load(Integer year) {
+                    return SolarTermUtil.getSolarTerms(year);
+                }
+            };
+
+    /**
+     * 预先计算某年的节气和特殊节日，可在后台线程调用
+     *
+     * @param year year
+     */
+    static void warmUp(int year) {
+        SOLAR_TERMS.getOrLoad(year, SOLAR_TERMS_LOADER);
+        SPECIAL_FESTIVAL.getOrLoad(year, SPECIAL_FESTIVAL_LOADER);
+    }
 
     /**
      * 返回传统农历节日
@@ -217,10 +242,7 @@ public final class LunarCalendar {
      * @return 返回24节气
      */
     private static String getSolarTerm(int year, int month, int day) {
-        if (!SOLAR_TERMS.containsKey(year)) {
-            SOLAR_TERMS.put(year, SolarTermUtil.getSolarTerms(year));
-        }
-        String[] solarTerm = SOLAR_TERMS.get(year);
+        String[] solarTerm = SOLAR_TERMS.getOrLoad(year, SOLAR_TERMS_LOADER);
         String text = year + getString(month, day);
         String solar = "";
         assert solarTerm != null;
@@ -268,10 +290,7 @@ public final class LunarCalendar {
      * @return 获取西方节日
      */
     private static String getSpecialFestival(int year, int month, int day) {
-        if (!SPECIAL_FESTIVAL.containsKey(year)) {
-            SPECIAL_FESTIVAL.put(year, getSpecialFestivals(year));
-        }
-        String[] specialFestivals = SPECIAL_FESTIVAL.get(year);
+        String[] specialFestivals = SPECIAL_FESTIVAL.getOrLoad(year, SPECIAL_FESTIVAL_LOADER);
         String text = year + getString(month, day);
         String solar = "";
         assert specialFestivals != null;
@@ -342,7 +361,8 @@ public final class LunarCalendar {
 
         Calendar lunarCalendar = new Calendar();
         calendar.setLunarCalendar(lunarCalendar);
-        int[] lunar = LunarUtil.solarToLunar(year, month, day);
+        String[] texts = new String[4];
+        int[] lunar = setupLunarTexts(year, month, day, texts);
         lunarCalendar.setYear(lunar[0]);
         lunarCalendar.setMonth(lunar[1]);
         lunarCalendar.setDay(lunar[2]);
@@ -351,28 +371,58 @@ public final class LunarCalendar {
             calendar.setLeapMonth(lunar[1]);
             lunarCalendar.setLeapMonth(lunar[1]);
         }
-        String solarTerm = LunarCalendar.getSolarTerm(year, month, day);
-        String gregorian = LunarCalendar.gregorianFestival(month, day);
-        String festival = getTraditionFestival(lunar[0], lunar[1], lunar[2]);
-        String lunarText = LunarCalendar.numToChinese(lunar[1], lunar[2], lunar[3]);
-        if (TextUtils.isEmpty(gregorian)) {
-            gregorian = getSpecialFestival(year, month, day);
-        }
+        String solarTerm = texts[0];
+        String gregorian = texts[1];
+        String festival = texts[2];
         calendar.setSolarTerm(solarTerm);
         calendar.setGregorianFestival(gregorian);
         calendar.setTraditionFestival(festival);
         lunarCalendar.setTraditionFestival(festival);
         lunarCalendar.setSolarTerm(solarTerm);
+        calendar.setLunar(getDisplayLunar(solarTerm, gregorian, festival, texts[3]));
+        lunarCalendar.setLunar(texts[3]);
+    }
+
+    /**
+     * 计算农历和节日文本，不创建Calendar
+     *
+     * @param year  year
+     * @param month month
+     * @param day   day
+     * @param texts 依次写入节气、公历节日、传统节日、农历文本
+     * @return 农历年、月、日、是否闰月
+     */
+    static int[] setupLunarTexts(int year, int month, int day, String[] texts) {
+        int[] lunar = LunarUtil.solarToLunar(year, month, day);
+        String gregorian = LunarCalendar.gregorianFestival(month, day);
+        if (TextUtils.isEmpty(gregorian)) {
+            gregorian = getSpecialFestival(year, month, day);
+        }
+        texts[0] = LunarCalendar.getSolarTerm(year, month, day);
+        texts[1] = gregorian;
+        texts[2] = getTraditionFestival(lunar[0], lunar[1], lunar[2]);
+        texts[3] = LunarCalendar.numToChinese(lunar[1], lunar[2], lunar[3]);
+        return lunar;
+    }
+
+    /**
+     * 日历上显示的农历文本，优先级：节气、公历节日、传统节日、农历
+     *
+     * @param solarTerm 节气
+     * @param gregorian 公历节日
+     * @param festival  传统节日
+     * @param lunarText 农历
+     * @return 显示的农历文本
+     */
+    static String getDisplayLunar(String solarTerm, String gregorian, String festival, String lunarText) {
         if (!TextUtils.isEmpty(solarTerm)) {
-            calendar.setLunar(solarTerm);
+            return solarTerm;
         } else if (!TextUtils.isEmpty(gregorian)) {
-            calendar.setLunar(gregorian);
+            return gregorian;
         } else if (!TextUtils.isEmpty(festival)) {
-            calendar.setLunar(festival);
-        } else {
-            calendar.setLunar(lunarText);
+            return festival;
         }
-        lunarCalendar.setLunar(lunarText);
+        return lunarText;
     }
 
     /**
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+/**
+ * 月视图行数表，日期范围内每个月一个字节
+ * 周起始或日期范围改变时重建，滑动时查询高度只需读数组
+ */
+final class MonthLineTable {
+
+    private byte[] mLineCounts = new byte[0];
+
+    private int mMinYear;
+
+    private int mMinYearMonth;
+
+    private int mWeekStart;
+
+    /**
+     * 重建行数表
+     *
+     * @param minYear      最小年份
+     * @param minYearMonth 最小年份的月份
+     * @param maxYear      最大年份
+     * @param maxYearMonth 最大年份的月份
+     * @param weekStart    周起始
+     */
+    void build(int minYear, int minYearMonth, int maxYear, int maxYearMonth, int weekStart) {
+        mMinYear = minYear;
+        mMinYearMonth = minYearMonth;
+        mWeekStart = weekStart;
+        int count = 12 * (maxYear - minYear) + maxYearMonth - minYearMonth + 1;
+        if (count <= 0) {
+            mLineCounts = new byte[0];
+            return;
+        }
+        if (mLineCounts.length != count) {
+            mLineCounts = new byte[count];
+        }
+        int preDiff = CalendarUtil.getMonthViewStartDiff(minYear, minYearMonth, weekStart);
+        int year = minYear;
+        int month = minYearMonth;
+        for (int i = 0; i < count; i++) {
+            int days = CalendarUtil.getMonthDaysCount(year, month);
+            mLineCounts[i] = (byte) ((preDiff + days + 6) / 7);
+            preDiff = (preDiff + days) % 7;
+            if (month == 12) {
+                month = 1;
+                ++year;
+            } else {
+                ++month;
+            }
+        }
+    }
+
+    /**
+     * 是否在表的范围内
+     *
+     * @param year  year
+     * @param month month
+     * @return 是否在表的范围内
+     */
+    boolean contains(int year, int month) {
+        int index = 12 * (year - mMinYear) + month - mMinYearMonth;
+        return index >= 0 && index < mLineCounts.length;
+    }
+
+    /**
+     * 获取月视图实际行数，范围外的月份直接计算
+     *
+     * @param year  year
+     * @param month month
+     * @return 行数
+     */
+    int getLineCount(int year, int month) {
+        int index = 12 * (year - mMinYear) + month - mMinYearMonth;
+        if (index >= 0 && index < mLineCounts.length) {
+            return mLineCounts[index];
+        }
+        return CalendarUtil.getMonthViewLineCount(year, month, mWeekStart, CalendarViewDelegate.MODE_ONLY_CURRENT_MONTH);
+    }
+}
@@ -41,9 +41,9 @@ public abstract class MonthView extends BaseMonthView {
         int d = 0;
         for (int i = 0; i < mLineCount; i++) {
             for (int j = 0; j < 7; j++) {
-                Calendar calendar = mItems.get(d);
+                Calendar calendar = getDrawCalendar(d);
                 if (mDelegate.getMonthViewShowMode() == CalendarViewDelegate.MODE_ONLY_CURRENT_MONTH) {
-                    if (d > mItems.size() - mNextDiff) {
+                    if (d > mGrid.size() - mNextDiff) {
                         return;
                     }
                     if (!calendar.isCurrentMonth()) {
@@ -127,7 +127,7 @@ public abstract class MonthView extends BaseMonthView {
             return;
         }
 
-        mCurrentItem = mItems.indexOf(calendar);
+        mCurrentItem = mGrid.indexOf(calendar);
 
         if (!calendar.isCurrentMonth() && mMonthViewPager != null) {
             int cur = mMonthViewPager.getCurrentItem();
@@ -141,7 +141,7 @@ public abstract class MonthView extends BaseMonthView {
 
         if (mParentLayout != null) {
             if (calendar.isCurrentMonth()) {
-                mParentLayout.updateSelectPosition(mItems.indexOf(calendar));
+                mParentLayout.updateSelectPosition(mGrid.indexOf(calendar));
             } else {
                 mParentLayout.updateSelectWeek(CalendarUtil.getWeekFromDayInMonth(calendar, mDelegate.getWeekStart()));
             }
@@ -193,7 +193,7 @@ public abstract class MonthView extends BaseMonthView {
         }
 
 
-        mCurrentItem = mItems.indexOf(calendar);
+        mCurrentItem = mGrid.indexOf(calendar);
 
         if (!calendar.isCurrentMonth() && mMonthViewPager != null) {
             int cur = mMonthViewPager.getCurrentItem();
@@ -207,7 +207,7 @@ public abstract class MonthView extends BaseMonthView {
 
         if (mParentLayout != null) {
             if (calendar.isCurrentMonth()) {
-                mParentLayout.updateSelectPosition(mItems.indexOf(calendar));
+                mParentLayout.updateSelectPosition(mGrid.indexOf(calendar));
             } else {
                 mParentLayout.updateSelectWeek(CalendarUtil.getWeekFromDayInMonth(calendar, mDelegate.getWeekStart()));
             }
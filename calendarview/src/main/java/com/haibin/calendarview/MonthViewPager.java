@@ -27,6 +27,7 @@ import androidx.viewpager.widget.PagerAdapter;
 import androidx.viewpager.widget.ViewPager;
 
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
 import java.util.List;
 
 
@@ -39,6 +40,16 @@ public final class MonthViewPager extends ViewPager {
 
     private int mMonthCount;
 
+    /**
+     * 页面缓存，开启pager_view_recycle时使用
+     */
+    private final PagerViewPool mViewPool;
+
+    /**
+     * 虚拟日期范围向前扩展时，已创建页面的位置偏移量
+     */
+    private int mPositionShift;
+
     private CalendarViewDelegate mDelegate;
 
     private int mNextViewHeight, mPreViewHeight, mCurrentViewHeight;
@@ -60,6 +71,7 @@ public final class MonthViewPager extends ViewPager {
 
     public MonthViewPager(Context context, AttributeSet attrs) {
         super(context, attrs);
+        mViewPool = new PagerViewPool(context);
     }
 
     /**
@@ -112,6 +124,9 @@ public final class MonthViewPager extends ViewPager {
 
             @Override
             public void onPageSelected(int position) {
+                if (mPositionShift != 0) {//扩展日期范围只是平移位置，月份没有改变
+                    return;
+                }
                 Calendar calendar = CalendarUtil.getFirstCalendarFromMonthViewPager(position, mDelegate);
                 if (getVisibility() == VISIBLE) {
                     if (!mDelegate.isShowYearSelectedLayout &&
@@ -200,36 +215,31 @@ public final class MonthViewPager extends ViewPager {
         if (mParentLayout != null) {
             if (getVisibility() != VISIBLE) {//如果已经显示周视图，则需要动态改变月视图高度，否则显示就有bug
                 ViewGroup.LayoutParams params = getLayoutParams();
-                params.height = CalendarUtil.getMonthViewHeight(year, month,
-                        mDelegate.getCalendarItemHeight(), mDelegate.getWeekStart(),
-                        mDelegate.getMonthViewShowMode());
+                params.height = mDelegate.getMonthViewHeight(year, month);
                 setLayoutParams(params);
             }
             mParentLayout.updateContentViewTranslateY();
         }
-        mCurrentViewHeight = CalendarUtil.getMonthViewHeight(year, month,
-                mDelegate.getCalendarItemHeight(), mDelegate.getWeekStart(),
-                mDelegate.getMonthViewShowMode());
+        mCurrentViewHeight = mDelegate.getMonthViewHeight(year, month);
+        updatePreAndNextViewHeight(year, month);
+    }
+
+    /**
+     * 更新前后月份的高度，用于滑动时插值
+     *
+     * @param year  year
+     * @param month month
+     */
+    private void updatePreAndNextViewHeight(int year, int month) {
         if (month == 1) {
-            mPreViewHeight = CalendarUtil.getMonthViewHeight(year - 1, 12,
-                    mDelegate.getCalendarItemHeight(), mDelegate.getWeekStart(),
-                    mDelegate.getMonthViewShowMode());
-            mNextViewHeight = CalendarUtil.getMonthViewHeight(year, 2,
-                    mDelegate.getCalendarItemHeight(), mDelegate.getWeekStart(),
-                    mDelegate.getMonthViewShowMode());
+            mPreViewHeight = mDelegate.getMonthViewHeight(year - 1, 12);
         } else {
-            mPreViewHeight = CalendarUtil.getMonthViewHeight(year, month - 1,
-                    mDelegate.getCalendarItemHeight(), mDelegate.getWeekStart(),
-                    mDelegate.getMonthViewShowMode());
-            if (month == 12) {
-                mNextViewHeight = CalendarUtil.getMonthViewHeight(year + 1, 1,
-                        mDelegate.getCalendarItemHeight(), mDelegate.getWeekStart(),
-                        mDelegate.getMonthViewShowMode());
-            } else {
-                mNextViewHeight = CalendarUtil.getMonthViewHeight(year, month + 1,
-                        mDelegate.getCalendarItemHeight(), mDelegate.getWeekStart(),
-                        mDelegate.getMonthViewShowMode());
-            }
+            mPreViewHeight = mDelegate.getMonthViewHeight(year, month - 1);
+        }
+        if (month == 12) {
+            mNextViewHeight = mDelegate.getMonthViewHeight(year + 1, 1);
+        } else {
+            mNextViewHeight = mDelegate.getMonthViewHeight(year, month + 1);
         }
     }
 
@@ -243,10 +253,35 @@ public final class MonthViewPager extends ViewPager {
         notifyAdapterDataSetChanged();
     }
 
+    /**
+     * 关闭页面复用时清空缓存
+     */
+    final void clearViewPool() {
+        mViewPool.clear();
+    }
+
+    /**
+     * 虚拟日期范围扩展，已经创建的页面不重建，只平移位置
+     *
+     * @param shift 最小日期向前扩展的月数
+     */
+    final void extendRange(int shift) {
+        mMonthCount = 12 * (mDelegate.getMaxYear() - mDelegate.getMinYear())
+                - mDelegate.getMinYearMonth() + 1 +
+                mDelegate.getMaxYearMonth();
+        mPositionShift = shift;
+        notifyAdapterDataSetChanged();
+        mPositionShift = 0;
+        for (int i = 0; i < getChildCount(); i++) {//边缘页面的日期可能进入了范围
+            getChildAt(i).invalidate();
+        }
+    }
+
     /**
      * 更新月视图Class
      */
     void updateMonthViewClass() {
+        mViewPool.clear();
         isUpdateMonthView = true;
         notifyAdapterDataSetChanged();
         isUpdateMonthView = false;
@@ -379,7 +414,7 @@ public final class MonthViewPager extends ViewPager {
         if (view == null) {
             return null;
         }
-        return view.mItems;
+        return view.mGrid.size() == 0 ? null : new ArrayList<Calendar>(view.mGrid);
     }
 
     /**
@@ -498,35 +533,28 @@ public final class MonthViewPager extends ViewPager {
 
         int year = mDelegate.mIndexCalendar.getYear();
         int month = mDelegate.mIndexCalendar.getMonth();
-        mCurrentViewHeight = CalendarUtil.getMonthViewHeight(year, month,
-                mDelegate.getCalendarItemHeight(), mDelegate.getWeekStart(),
-                mDelegate.getMonthViewShowMode());
-        if (month == 1) {
-            mPreViewHeight = CalendarUtil.getMonthViewHeight(year - 1, 12,
-                    mDelegate.getCalendarItemHeight(), mDelegate.getWeekStart(),
-                    mDelegate.getMonthViewShowMode());
-            mNextViewHeight = CalendarUtil.getMonthViewHeight(year, 2,
-                    mDelegate.getCalendarItemHeight(), mDelegate.getWeekStart(),
-                    mDelegate.getMonthViewShowMode());
-        } else {
-            mPreViewHeight = CalendarUtil.getMonthViewHeight(year, month - 1,
-                    mDelegate.getCalendarItemHeight(), mDelegate.getWeekStart(),
-                    mDelegate.getMonthViewShowMode());
-            if (month == 12) {
-                mNextViewHeight = CalendarUtil.getMonthViewHeight(year + 1, 1,
-                        mDelegate.getCalendarItemHeight(), mDelegate.getWeekStart(),
-                        mDelegate.getMonthViewShowMode());
-            } else {
-                mNextViewHeight = CalendarUtil.getMonthViewHeight(year, month + 1,
-                        mDelegate.getCalendarItemHeight(), mDelegate.getWeekStart(),
-                        mDelegate.getMonthViewShowMode());
-            }
-        }
+        mCurrentViewHeight = mDelegate.getMonthViewHeight(year, month);
+        updatePreAndNextViewHeight(year, month);
         ViewGroup.LayoutParams params = getLayoutParams();
         params.height = mCurrentViewHeight;
         setLayoutParams(params);
     }
 
+    /**
+     * 只重绘包含日期范围的页面
+     *
+     * @param fromDate 开始日期 yyyyMMdd
+     * @param toDate   结束日期 yyyyMMdd，包含
+     */
+    final void invalidateRange(int fromDate, int toDate) {
+        for (int i = 0; i < getChildCount(); i++) {
+            BaseMonthView view = (BaseMonthView) getChildAt(i);
+            if (view.mGrid.intersects(fromDate, toDate)) {
+                view.invalidate();
+            }
+        }
+    }
+
     /**
      * 清除选择范围
      */
@@ -603,7 +631,20 @@ public final class MonthViewPager extends ViewPager {
 
         @Override
         public int getItemPosition(@NonNull Object object) {
-            return isUpdateMonthView ? POSITION_NONE : super.getItemPosition(object);
+            if (isUpdateMonthView) {
+                return POSITION_NONE;
+            }
+            if (mPositionShift != 0) {
+                //页面tag保存的是position，虚拟日期范围扩展后整体平移
+                View view = (View) object;
+                if (!(view.getTag() instanceof Integer)) {
+                    return POSITION_NONE;
+                }
+                int position = (int) view.getTag() + mPositionShift;
+                view.setTag(position);
+                return position;
+            }
+            return super.getItemPosition(object);
         }
 
         @Override
@@ -614,15 +655,23 @@ public final class MonthViewPager extends ViewPager {
         @NonNull
         @Override
         public Object instantiateItem(@NonNull ViewGroup container, int position) {
+            CalendarMetrics metrics = mDelegate.mMetrics;
+            long start = metrics == null ? 0 : metrics.begin(CalendarView.CalendarMetricsListener.EVENT_MONTH_INSTANTIATE);
             int year = (position + mDelegate.getMinYearMonth() - 1) / 12 + mDelegate.getMinYear();
             int month = (position + mDelegate.getMinYearMonth() - 1) % 12 + 1;
-            BaseMonthView view;
-            try {
-                Constructor constructor = mDelegate.getMonthViewClass().getConstructor(Context.class);
-                view = (BaseMonthView) constructor.newInstance(getContext());
-            } catch (Exception e) {
-                e.printStackTrace();
-                return new DefaultMonthView(getContext());
+            boolean isRecycle = mDelegate.isPagerViewRecycle();
+            BaseMonthView view = isRecycle ? (BaseMonthView) mViewPool.obtain(mDelegate.getMonthViewClass()) : null;
+            if (view == null) {
+                try {
+                    Constructor constructor = mDelegate.getMonthViewClass().getConstructor(Context.class);
+                    view = (BaseMonthView) constructor.newInstance(getContext());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    if (metrics != null) {
+                        metrics.end(CalendarView.CalendarMetricsListener.EVENT_MONTH_INSTANTIATE, start);
+                    }
+                    return new DefaultMonthView(getContext());
+                }
             }
             view.mMonthViewPager = MonthViewPager.this;
             view.mParentLayout = mParentLayout;
@@ -631,6 +680,12 @@ public final class MonthViewPager extends ViewPager {
             view.initMonthWithDate(year, month);
             view.setSelectedCalendar(mDelegate.mSelectedCalendar);
             container.addView(view);
+            if (isRecycle) {
+                mViewPool.schedulePrefetch(mDelegate.getMonthViewClass());
+            }
+            if (metrics != null) {
+                metrics.end(CalendarView.CalendarMetricsListener.EVENT_MONTH_INSTANTIATE, start);
+            }
             return view;
         }
 
@@ -639,6 +694,9 @@ public final class MonthViewPager extends ViewPager {
             BaseView view = (BaseView) object;
             view.onDestroy();
             container.removeView(view);
+            if (mDelegate.isPagerViewRecycle()) {
+                mViewPool.recycle(view);
+            }
         }
     }
 
@@ -43,9 +43,9 @@ public abstract class MultiMonthView extends BaseMonthView {
         int d = 0;
         for (int i = 0; i < mLineCount; i++) {
             for (int j = 0; j < 7; j++) {
-                Calendar calendar = mItems.get(d);
+                Calendar calendar = getDrawCalendar(d);
                 if (mDelegate.getMonthViewShowMode() == CalendarViewDelegate.MODE_ONLY_CURRENT_MONTH) {
-                    if (d > mItems.size() - mNextDiff) {
+                    if (d > mGrid.size() - mNextDiff) {
                         return;
                     }
                     if (!calendar.isCurrentMonth()) {
@@ -152,7 +152,7 @@ public abstract class MultiMonthView extends BaseMonthView {
             mDelegate.mSelectedCalendars.put(key, calendar);
         }
 
-        mCurrentItem = mItems.indexOf(calendar);
+        mCurrentItem = mGrid.indexOf(calendar);
 
         if (!calendar.isCurrentMonth() && mMonthViewPager != null) {
             int cur = mMonthViewPager.getCurrentItem();
@@ -166,7 +166,7 @@ public abstract class MultiMonthView extends BaseMonthView {
 
         if (mParentLayout != null) {
             if (calendar.isCurrentMonth()) {
-                mParentLayout.updateSelectPosition(mItems.indexOf(calendar));
+                mParentLayout.updateSelectPosition(mGrid.indexOf(calendar));
             } else {
                 mParentLayout.updateSelectWeek(CalendarUtil.getWeekFromDayInMonth(calendar, mDelegate.getWeekStart()));
             }
@@ -197,7 +197,7 @@ public abstract class MultiMonthView extends BaseMonthView {
             preCalendar = CalendarUtil.getPreCalendar(calendar);
             mDelegate.updateCalendarScheme(preCalendar);
         } else {
-            preCalendar = mItems.get(calendarIndex - 1);
+            preCalendar = getAdjacentCalendar(calendarIndex - 1);
         }
 
         return isCalendarSelected(preCalendar);
@@ -212,11 +212,11 @@ public abstract class MultiMonthView extends BaseMonthView {
      */
     protected final boolean isSelectNextCalendar(Calendar calendar, int calendarIndex) {
         Calendar nextCalendar;
-        if (calendarIndex == mItems.size() - 1) {
+        if (calendarIndex == mGrid.size() - 1) {
             nextCalendar = CalendarUtil.getNextCalendar(calendar);
             mDelegate.updateCalendarScheme(nextCalendar);
         } else {
-            nextCalendar = mItems.get(calendarIndex + 1);
+            nextCalendar = getAdjacentCalendar(calendarIndex + 1);
         }
 
         return isCalendarSelected(nextCalendar);
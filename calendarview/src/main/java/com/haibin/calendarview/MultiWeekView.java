@@ -36,7 +36,7 @@ public abstract class MultiWeekView extends BaseWeekView {
      */
     @Override
     protected void onDraw(Canvas canvas) {
-        if (mItems.size() == 0)
+        if (mGrid.size() == 0)
             return;
         mItemWidth = (getWidth() -
                 mDelegate.getCalendarPaddingLeft() -
@@ -46,7 +46,7 @@ public abstract class MultiWeekView extends BaseWeekView {
         for (int i = 0; i < 7; i++) {
             int x = i * mItemWidth + mDelegate.getCalendarPaddingLeft();
             onLoopStart(x);
-            Calendar calendar = mItems.get(i);
+            Calendar calendar = getDrawCalendar(i);
             boolean isSelected = isCalendarSelected(calendar);
             boolean isPreSelected = isSelectPreCalendar(calendar, i);
             boolean isNextSelected = isSelectNextCalendar(calendar, i);
@@ -117,7 +117,7 @@ public abstract class MultiWeekView extends BaseWeekView {
             mDelegate.mSelectedCalendars.put(key, calendar);
         }
 
-        mCurrentItem = mItems.indexOf(calendar);
+        mCurrentItem = mGrid.indexOf(calendar);
 
         if (mDelegate.mInnerListener != null) {
             mDelegate.mInnerListener.onWeekDateSelected(calendar, true);
@@ -155,7 +155,7 @@ public abstract class MultiWeekView extends BaseWeekView {
             preCalendar = CalendarUtil.getPreCalendar(calendar);
             mDelegate.updateCalendarScheme(preCalendar);
         } else {
-            preCalendar = mItems.get(calendarIndex - 1);
+            preCalendar = getAdjacentCalendar(calendarIndex - 1);
         }
         return isCalendarSelected(preCalendar);
     }
@@ -169,11 +169,11 @@ public abstract class MultiWeekView extends BaseWeekView {
      */
     protected final boolean isSelectNextCalendar(Calendar calendar, int calendarIndex) {
         Calendar nextCalendar;
-        if (calendarIndex == mItems.size() - 1) {
+        if (calendarIndex == mGrid.size() - 1) {
             nextCalendar = CalendarUtil.getNextCalendar(calendar);
             mDelegate.updateCalendarScheme(nextCalendar);
         } else {
-            nextCalendar = mItems.get(calendarIndex + 1);
+            nextCalendar = getAdjacentCalendar(calendarIndex + 1);
         }
         return isCalendarSelected(nextCalendar);
     }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 月视图、周视图页面缓存
+ * 销毁的页面放入缓存，创建页面时取出重新绑定日期，不再反射创建；
+ * 主线程空闲时预先创建一个页面，翻页时只需要绑定数据
+ */
+final class PagerViewPool implements MessageQueue.IdleHandler {
+
+    /**
+     * ViewPager只保留左右各一页，缓存两个页面足够
+     */
+    private static final int MAX_SIZE = 2;
+
+    private final List<BaseView> mViews = new ArrayList<>();
+
+    private final Context mContext;
+
+    /**
+     * 空闲时预先创建的页面类型
+     */
+    private Class<?> mPrefetchClass;
+
+    private boolean isPrefetchScheduled;
+
+    PagerViewPool(Context context) {
+        this.mContext = context;
+    }
+
+    /**
+     * 取出同类型的页面
+     *
+     * @param viewClass 页面类型
+     * @return 缓存的页面，没有返回null
+     */
+    BaseView obtain(Class<?> viewClass) {
+        for (int i = mViews.size() - 1; i >= 0; i--) {
+            if (mViews.get(i).getClass() == viewClass) {
+                return mViews.remove(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 回收已经销毁的页面
+     *
+     * @param view 页面
+     */
+    void recycle(BaseView view) {
+        if (mViews.size() < MAX_SIZE && view.getParent() == null) {
+            mViews.add(view);
+        }
+    }
+
+    /**
+     * 主线程空闲时预先创建一个页面
+     *
+     * @param viewClass 页面类型
+     */
+    void schedulePrefetch(Class<?> viewClass) {
+        mPrefetchClass = viewClass;
+        if (isPrefetchScheduled || !mViews.isEmpty() || Looper.myLooper() != Looper.getMainLooper()) {
+            return;
+        }
+        isPrefetchScheduled = true;
+        Looper.myQueue().addIdleHandler(this);
+    }
+
+    void clear() {
+        mViews.clear();
+        if (isPrefetchScheduled) {
+            isPrefetchScheduled = false;
+            Looper.myQueue().removeIdleHandler(this);
+        }
+    }
+
+    @Override
+    public boolean queueIdle() {
+        isPrefetchScheduled = false;
+        if (!mViews.isEmpty() || mPrefetchClass == null) {
+            return false;
+        }
+        try {
+            Constructor constructor = mPrefetchClass.getConstructor(Context.class);
+            mViews.add((BaseView) constructor.newInstance(mContext));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+}
@@ -42,9 +42,9 @@ public abstract class RangeMonthView extends BaseMonthView {
         int d = 0;
         for (int i = 0; i < mLineCount; i++) {
             for (int j = 0; j < 7; j++) {
-                Calendar calendar = mItems.get(d);
+                Calendar calendar = getDrawCalendar(d);
                 if (mDelegate.getMonthViewShowMode() == CalendarViewDelegate.MODE_ONLY_CURRENT_MONTH) {
-                    if (d > mItems.size() - mNextDiff) {
+                    if (d > mGrid.size() - mNextDiff) {
                         return;
                     }
                     if (!calendar.isCurrentMonth()) {
@@ -105,6 +105,10 @@ public abstract class RangeMonthView extends BaseMonthView {
      * @return 日历是否被选中
      */
     protected boolean isCalendarSelected(Calendar calendar) {
+        if (mDelegate.getSelectMode() == CalendarViewDelegate.SELECT_MODE_MULTI_RANGE) {
+            return !onCalendarIntercept(calendar) &&
+                    (calendar.equals(mDelegate.mSelectedStartRangeCalendar) || isInSelectedRanges(calendar));
+        }
         if (mDelegate.mSelectedStartRangeCalendar == null) {
             return false;
         }
@@ -149,13 +153,16 @@ public abstract class RangeMonthView extends BaseMonthView {
         //优先判断各种直接return的情况，减少代码深度
         if (mDelegate.mSelectedStartRangeCalendar != null && mDelegate.mSelectedEndRangeCalendar == null) {
             int minDiffer = CalendarUtil.differ(calendar, mDelegate.mSelectedStartRangeCalendar);
+            if (mDelegate.getSelectMode() == CalendarViewDelegate.SELECT_MODE_MULTI_RANGE) {
+                //多范围选择第二次可以点在第一次之前，按范围天数判断
+                minDiffer = Math.abs(minDiffer);
+            }
             if (minDiffer >= 0 && mDelegate.getMinSelectRange() != -1 && mDelegate.getMinSelectRange() > minDiffer + 1) {
                 if (mDelegate.mCalendarRangeSelectListener != null) {
                     mDelegate.mCalendarRangeSelectListener.onSelectOutOfRange(calendar, true);
                 }
                 return;
-            } else if (mDelegate.getMaxSelectRange() != -1 && mDelegate.getMaxSelectRange() <
-                    CalendarUtil.differ(calendar, mDelegate.mSelectedStartRangeCalendar) + 1) {
+            } else if (mDelegate.getMaxSelectRange() != -1 && mDelegate.getMaxSelectRange() < minDiffer + 1) {
                 if (mDelegate.mCalendarRangeSelectListener != null) {
                     mDelegate.mCalendarRangeSelectListener.onSelectOutOfRange(calendar, false);
                 }
@@ -163,7 +170,9 @@ public abstract class RangeMonthView extends BaseMonthView {
             }
         }
 
-        if (mDelegate.mSelectedStartRangeCalendar == null || mDelegate.mSelectedEndRangeCalendar != null) {
+        if (mDelegate.getSelectMode() == CalendarViewDelegate.SELECT_MODE_MULTI_RANGE) {
+            mDelegate.selectMultiRange(calendar);
+        } else if (mDelegate.mSelectedStartRangeCalendar == null || mDelegate.mSelectedEndRangeCalendar != null) {
             mDelegate.mSelectedStartRangeCalendar = calendar;
             mDelegate.mSelectedEndRangeCalendar = null;
         } else {
@@ -183,7 +192,7 @@ public abstract class RangeMonthView extends BaseMonthView {
 
         }
 
-        mCurrentItem = mItems.indexOf(calendar);
+        mCurrentItem = mGrid.indexOf(calendar);
 
         if (!calendar.isCurrentMonth() && mMonthViewPager != null) {
             int cur = mMonthViewPager.getCurrentItem();
@@ -197,12 +206,13 @@ public abstract class RangeMonthView extends BaseMonthView {
 
         if (mParentLayout != null) {
             if (calendar.isCurrentMonth()) {
-                mParentLayout.updateSelectPosition(mItems.indexOf(calendar));
+                mParentLayout.updateSelectPosition(mGrid.indexOf(calendar));
             } else {
                 mParentLayout.updateSelectWeek(CalendarUtil.getWeekFromDayInMonth(calendar, mDelegate.getWeekStart()));
             }
         }
-        if (mDelegate.mCalendarRangeSelectListener != null) {
+        if (mDelegate.mCalendarRangeSelectListener != null &&
+                mDelegate.getSelectMode() != CalendarViewDelegate.SELECT_MODE_MULTI_RANGE) {
             mDelegate.mCalendarRangeSelectListener.onCalendarRangeSelect(calendar,
                     mDelegate.mSelectedEndRangeCalendar != null);
         }
@@ -227,10 +237,10 @@ public abstract class RangeMonthView extends BaseMonthView {
             preCalendar = CalendarUtil.getPreCalendar(calendar);
             mDelegate.updateCalendarScheme(preCalendar);
         } else {
-            preCalendar = mItems.get(calendarIndex - 1);
+            preCalendar = getAdjacentCalendar(calendarIndex - 1);
         }
 
-        return mDelegate.mSelectedStartRangeCalendar != null &&
+        return hasRangeSelection() &&
                 isCalendarSelected(preCalendar);
     }
 
@@ -244,14 +254,14 @@ public abstract class RangeMonthView extends BaseMonthView {
     protected final boolean isSelectNextCalendar(Calendar calendar, int calendarIndex) {
 
         Calendar nextCalendar;
-        if (calendarIndex == mItems.size() - 1) {
+        if (calendarIndex == mGrid.size() - 1) {
             nextCalendar = CalendarUtil.getNextCalendar(calendar);
             mDelegate.updateCalendarScheme(nextCalendar);
         } else {
-            nextCalendar = mItems.get(calendarIndex + 1);
+            nextCalendar = getAdjacentCalendar(calendarIndex + 1);
         }
 
-        return mDelegate.mSelectedStartRangeCalendar != null &&
+        return hasRangeSelection() &&
                 isCalendarSelected(nextCalendar);
     }
 
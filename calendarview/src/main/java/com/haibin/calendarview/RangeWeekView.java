@@ -36,7 +36,7 @@ public abstract class RangeWeekView extends BaseWeekView {
      */
     @Override
     protected void onDraw(Canvas canvas) {
-        if (mItems.size() == 0)
+        if (mGrid.size() == 0)
             return;
         mItemWidth = (getWidth() -
                 mDelegate.getCalendarPaddingLeft() -
@@ -46,7 +46,7 @@ public abstract class RangeWeekView extends BaseWeekView {
         for (int i = 0; i < 7; i++) {
             int x = i * mItemWidth + mDelegate.getCalendarPaddingLeft();
             onLoopStart(x);
-            Calendar calendar = mItems.get(i);
+            Calendar calendar = getDrawCalendar(i);
             boolean isSelected = isCalendarSelected(calendar);
             boolean isPreSelected = isSelectPreCalendar(calendar, i);
             boolean isNextSelected = isSelectNextCalendar(calendar, i);
@@ -78,6 +78,10 @@ public abstract class RangeWeekView extends BaseWeekView {
      * @return 日历是否被选中
      */
     protected boolean isCalendarSelected(Calendar calendar) {
+        if (mDelegate.getSelectMode() == CalendarViewDelegate.SELECT_MODE_MULTI_RANGE) {
+            return !onCalendarIntercept(calendar) &&
+                    (calendar.equals(mDelegate.mSelectedStartRangeCalendar) || isInSelectedRanges(calendar));
+        }
         if (mDelegate.mSelectedStartRangeCalendar == null) {
             return false;
         }
@@ -114,13 +118,16 @@ public abstract class RangeWeekView extends BaseWeekView {
         //优先判断各种直接return的情况，减少代码深度
         if (mDelegate.mSelectedStartRangeCalendar != null && mDelegate.mSelectedEndRangeCalendar == null) {
             int minDiffer = CalendarUtil.differ(calendar, mDelegate.mSelectedStartRangeCalendar);
+            if (mDelegate.getSelectMode() == CalendarViewDelegate.SELECT_MODE_MULTI_RANGE) {
+                //多范围选择第二次可以点在第一次之前，按范围天数判断
+                minDiffer = Math.abs(minDiffer);
+            }
             if (minDiffer >= 0 && mDelegate.getMinSelectRange() != -1 && mDelegate.getMinSelectRange() > minDiffer + 1) {
                 if (mDelegate.mCalendarRangeSelectListener != null) {
                     mDelegate.mCalendarRangeSelectListener.onSelectOutOfRange(calendar, true);
                 }
                 return;
-            } else if (mDelegate.getMaxSelectRange() != -1 && mDelegate.getMaxSelectRange() <
-                    CalendarUtil.differ(calendar, mDelegate.mSelectedStartRangeCalendar) + 1) {
+            } else if (mDelegate.getMaxSelectRange() != -1 && mDelegate.getMaxSelectRange() < minDiffer + 1) {
                 if (mDelegate.mCalendarRangeSelectListener != null) {
                     mDelegate.mCalendarRangeSelectListener.onSelectOutOfRange(calendar, false);
                 }
@@ -128,7 +135,9 @@ public abstract class RangeWeekView extends BaseWeekView {
             }
         }
 
-        if (mDelegate.mSelectedStartRangeCalendar == null || mDelegate.mSelectedEndRangeCalendar != null) {
+        if (mDelegate.getSelectMode() == CalendarViewDelegate.SELECT_MODE_MULTI_RANGE) {
+            mDelegate.selectMultiRange(calendar);
+        } else if (mDelegate.mSelectedStartRangeCalendar == null || mDelegate.mSelectedEndRangeCalendar != null) {
             mDelegate.mSelectedStartRangeCalendar = calendar;
             mDelegate.mSelectedEndRangeCalendar = null;
         } else {
@@ -148,7 +157,7 @@ public abstract class RangeWeekView extends BaseWeekView {
 
         }
 
-        mCurrentItem = mItems.indexOf(calendar);
+        mCurrentItem = mGrid.indexOf(calendar);
 
         if (mDelegate.mInnerListener != null) {
             mDelegate.mInnerListener.onWeekDateSelected(calendar, true);
@@ -158,7 +167,8 @@ public abstract class RangeWeekView extends BaseWeekView {
             mParentLayout.updateSelectWeek(i);
         }
 
-        if (mDelegate.mCalendarRangeSelectListener != null) {
+        if (mDelegate.mCalendarRangeSelectListener != null &&
+                mDelegate.getSelectMode() != CalendarViewDelegate.SELECT_MODE_MULTI_RANGE) {
             mDelegate.mCalendarRangeSelectListener.onCalendarRangeSelect(calendar,
                     mDelegate.mSelectedEndRangeCalendar != null);
         }
@@ -185,9 +195,9 @@ public abstract class RangeWeekView extends BaseWeekView {
             preCalendar = CalendarUtil.getPreCalendar(calendar);
             mDelegate.updateCalendarScheme(preCalendar);
         } else {
-            preCalendar = mItems.get(calendarIndex - 1);
+            preCalendar = getAdjacentCalendar(calendarIndex - 1);
         }
-        return mDelegate.mSelectedStartRangeCalendar != null &&
+        return hasRangeSelection() &&
                 isCalendarSelected(preCalendar);
     }
 
@@ -200,13 +210,13 @@ public abstract class RangeWeekView extends BaseWeekView {
      */
     protected final boolean isSelectNextCalendar(Calendar calendar, int calendarIndex) {
         Calendar nextCalendar;
-        if (calendarIndex == mItems.size() - 1) {
+        if (calendarIndex == mGrid.size() - 1) {
             nextCalendar = CalendarUtil.getNextCalendar(calendar);
             mDelegate.updateCalendarScheme(nextCalendar);
         } else {
-            nextCalendar = mItems.get(calendarIndex + 1);
+            nextCalendar = getAdjacentCalendar(calendarIndex + 1);
         }
-        return mDelegate.mSelectedStartRangeCalendar != null &&
+        return hasRangeSelection() &&
                 isCalendarSelected(nextCalendar);
     }
 
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+/**
+ * 事件标记的版本号，每次修改递增
+ * 单个日期的修改保存最近CAPACITY条，页面绑定的版本落后不多时只更新这些日期
+ * 整体替换标记、修改重复规则时需要完全重新绑定
+ */
+final class SchemeChangeLog {
+
+    /**
+     * 保存的单日修改条数
+     */
+    static final int CAPACITY = 64;
+
+    /**
+     * 版本v对应的修改日期在mDates[(v - mFullVersion - 1) % CAPACITY]
+     */
+    private final int[] mDates = new int[CAPACITY];
+
+    /**
+     * 当前版本，0表示未绑定，所以从1开始
+     */
+    private int mVersion = 1;
+
+    /**
+     * 最近一次整体修改的版本
+     */
+    private int mFullVersion = 1;
+
+    int getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * 整体修改
+     */
+    void markAll() {
+        mFullVersion = ++mVersion;
+    }
+
+    /**
+     * 单个日期修改
+     *
+     * @param date yyyyMMdd
+     */
+    void markChanged(int date) {
+        ++mVersion;
+        mDates[(mVersion - mFullVersion - 1) % CAPACITY] = date;
+    }
+
+    /**
+     * 从某个版本到当前版本是否需要完全重新绑定
+     *
+     * @param version 已绑定的版本
+     * @return 版本早于最近一次整体修改，或者单日修改已经被覆盖
+     */
+    boolean isFullChange(int version) {
+        return version < mFullVersion || mVersion - version > CAPACITY;
+    }
+
+    /**
+     * 某个版本修改的日期，需要isFullChange(version - 1)为false
+     *
+     * @param version 版本
+     * @return yyyyMMdd
+     */
+    int getDate(int version) {
+        return mDates[(version - mFullVersion - 1) % CAPACITY];
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+import android.database.Cursor;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 批量导入事件标记：在后台线程逐行读取日期、颜色、类型、文本，按块交给主线程合并到标记Map
+ * 同时最多两块在途，内存占用和块大小成正比，不需要先在内存中生成完整的Map
+ * 全部完成后只刷新一次视图
+ */
+@SuppressWarnings("unused")
+public final class SchemeImporter {
+
+    /**
+     * 默认每块行数
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 512;
+
+    /**
+     * 同时在途的块数
+     */
+    private static final int MAX_PENDING_CHUNKS = 2;
+
+    private SchemeImporter() {
+    }
+
+    /**
+     * 行数据来源，在后台线程调用
+     */
+    public interface RowSource {
+
+        /**
+         * 移动到下一行
+         *
+         * @return 是否还有数据
+         */
+        boolean moveToNext();
+
+        /**
+         * 日期
+         *
+         * @return yyyyMMdd
+         */
+        int getDate();
+
+        int getColor();
+
+        int getType();
+
+        String getText();
+
+        /**
+         * 导入结束或取消后关闭
+         */
+        void close();
+    }
+
+    /**
+     * 导入进度回调，在主线程回调
+     */
+    public interface OnImportListener {
+
+        /**
+         * 一块数据已合并
+         *
+         * @param imported 已导入行数
+         */
+        void onImportProgress(int imported);
+
+        /**
+         * 导入结束，视图已刷新
+         *
+         * @param imported    已导入行数
+         * @param isCancelled 是否被取消
+         */
+        void onImportFinish(int imported, boolean isCancelled);
+    }
+
+    /**
+     * 从Cursor读取，列名为null时使用默认值：颜色0、类型0、文本null
+     *
+     * @param cursor      cursor，导入结束后关闭
+     * @param dateColumn  日期列，yyyyMMdd整数
+     * @param colorColumn 颜色列
+     * @param typeColumn  类型列
+     * @param textColumn  文本列
+     * @return 行数据来源
+     */
+    public static RowSource fromCursor(final Cursor cursor, String dateColumn, String colorColumn,
+                                       String typeColumn, String textColumn) {
+        final int dateIndex = cursor.getColumnIndexOrThrow(dateColumn);
+        final int colorIndex = colorColumn == null ? -1 : cursor.getColumnIndexOrThrow(colorColumn);
+        final int typeIndex = typeColumn == null ? -1 : cursor.getColumnIndexOrThrow(typeColumn);
+        final int textIndex = textColumn == null ? -1 : cursor.getColumnIndexOrThrow(textColumn);
+        return new RowSource() {
+            @Override
+            public boolean moveToNext() {
+                return cursor.moveToNext();
+            }
+
+            @Override
+            public int getDate() {
+                return cursor.getInt(dateIndex);
+            }
+
+            @Override
+            public int getColor() {
+                return colorIndex < 0 ? 0 : cursor.getInt(colorIndex);
+            }
+
+            @Override
+            public int getType() {
+                return typeIndex < 0 ? 0 : cursor.getInt(typeIndex);
+            }
+
+            @Override
+            public String getText() {
+                return textIndex < 0 || cursor.isNull(textIndex) ? null : cursor.getString(textIndex);
+            }
+
+            @Override
+            public void close() {
+                cursor.close();
+            }
+        };
+    }
+
+    /**
+     * 开始导入，必须在主线程调用
+     *
+     * @param delegate  delegate
+     * @param source    行数据来源
+     * @param isReplace 是否先清空原有标记，否则同一天追加为多个Scheme
+     * @param chunkSize 每块行数
+     * @param executor  读取数据的线程池，null时使用内部线程，完成后关闭
+     * @param refresh   全部合并后刷新视图
+     * @param listener  回调，可为null
+     * @return 任务，可取消
+     */
+    static ImportTask start(CalendarViewDelegate delegate, RowSource source, boolean isReplace, int chunkSize,
+                            Executor executor, Runnable refresh, OnImportListener listener) {
+        if (isReplace || delegate.mSchemeDatesMap == null) {
+            delegate.mSchemeDatesMap = new HashMap<>();
+        }
+        ExecutorService ownExecutor = null;
+        if (executor == null) {
+            ownExecutor = Executors.newSingleThreadExecutor();
+            executor = ownExecutor;
+        }
+        ImportTask task = new ImportTask(delegate, source, Math.max(1, chunkSize), refresh, listener);
+        executor.execute(task);
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+        return task;
+    }
+
+    /**
+     * 合并一行到标记Map，同一天的多行合并为多个Scheme。
+     * Map里原有的Calendar可能是App自己的对象，也可能是快照每次创建的副本，
+     * 不直接修改，第一次合并时复制一份放回Map，之后修改复制的这份
+     *
+     * @param schemes 标记Map
+     * @param merged  本次导入放入Map的Calendar，按对象判断
+     * @param date    yyyyMMdd
+     * @param color   颜色
+     * @param type    类型
+     * @param text    文本
+     */
+    static void merge(Map<String, Calendar> schemes, Set<Calendar> merged,
+                      int date, int color, int type, String text) {
+        String key = String.valueOf(date);
+        Calendar calendar = schemes.get(key);
+        if (calendar == null || !merged.contains(calendar)) {
+            Calendar copy = new Calendar();
+            copy.setYear(date / 10000);
+            copy.setMonth(date / 100 % 100);
+            copy.setDay(date % 100);
+            if (calendar == null) {
+                copy.setScheme(text);
+                copy.setSchemeColor(color);
+            } else {
+                copy.setScheme(calendar.getScheme());
+                copy.setSchemeColor(calendar.getSchemeColor());
+                if (calendar.getSchemes() != null) {
+                    copy.setSchemes(new ArrayList<>(calendar.getSchemes()));
+                } else if (!TextUtils.isEmpty(calendar.getScheme())) {
+                    copy.addScheme(calendar.getSchemeColor(), calendar.getScheme());
+                }
+            }
+            schemes.put(key, copy);
+            merged.add(copy);
+            calendar = copy;
+        }
+        calendar.addScheme(type, color, text);
+    }
+
+    /**
+     * 一块行数据
+     */
+    private static final class Chunk {
+        final int[] dates;
+        final int[] colors;
+        final int[] types;
+        final String[] texts;
+        int size;
+
+        Chunk(int capacity) {
+            dates = new int[capacity];
+            colors = new int[capacity];
+            types = new int[capacity];
+            texts = new String[capacity];
+        }
+    }
+
+    /**
+     * 导入任务
+     */
+    public static final class ImportTask implements Runnable {
+
+        private final CalendarViewDelegate mDelegate;
+
+        private final RowSource mSource;
+
+        private final int mChunkSize;
+
+        private final Runnable mRefresh;
+
+        private final OnImportListener mListener;
+
+        /**
+         * 本次导入放入Map的Calendar，Calendar.equals只比较日期，这里按对象判断
+         */
+        private final Set<Calendar> mMerged = Collections.newSetFromMap(new IdentityHashMap<Calendar, Boolean>());
+
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        private final Semaphore mPending = new Semaphore(MAX_PENDING_CHUNKS);
+
+        private final AtomicBoolean isCancelled = new AtomicBoolean();
+
+        /**
+         * 已合并的行数，只在主线程修改
+         */
+        private int mImportedCount;
+
+        private boolean isFinished;
+
+        ImportTask(CalendarViewDelegate delegate, RowSource source, int chunkSize,
+                   Runnable refresh, OnImportListener listener) {
+            this.mDelegate = delegate;
+            this.mSource = source;
+            this.mChunkSize = chunkSize;
+            this.mRefresh = refresh;
+            this.mListener = listener;
+        }
+
+        /**
+         * 取消，已经合并的数据保留并刷新
+         */
+        public void cancel() {
+            isCancelled.set(true);
+        }
+
+        public boolean isCancelled() {
+            return isCancelled.get();
+        }
+
+        /**
+         * 是否结束，主线程调用
+         *
+         * @return 是否结束
+         */
+        public boolean isFinished() {
+            return isFinished;
+        }
+
+        /**
+         * 已导入行数，主线程调用
+         *
+         * @return 已导入行数
+         */
+        public int getImportedCount() {
+            return mImportedCount;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Chunk chunk = new Chunk(mChunkSize);
+                while (!isCancelled.get() && mSource.moveToNext()) {
+                    chunk.dates[chunk.size] = mSource.getDate();
+                    chunk.colors[chunk.size] = mSource.getColor();
+                    chunk.types[chunk.size] = mSource.getType();
+                    chunk.texts[chunk.size] = mSource.getText();
+                    if (++chunk.size == mChunkSize) {
+                        post(chunk);
+                        chunk = new Chunk(mChunkSize);
+                    }
+                }
+                if (chunk.size > 0 && !isCancelled.get()) {
+                    post(chunk);
+                }
+            } catch (InterruptedException e) {
+                isCancelled.set(true);
+                Thread.currentThread().interrupt();
+            } finally {
+                mSource.close();
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        finish();
+                    }
+                });
+            }
+        }
+
+        /**
+         * 交给主线程合并，在途块数达到上限时等待
+         *
+         * @param chunk chunk
+         * @throws InterruptedException 线程被中断
+         */
+        private void post(final Chunk chunk) throws InterruptedException {
+            mPending.acquire();
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    mPending.release();
+                    if (isCancelled.get()) {
+                        return;
+                    }
+                    for (int i = 0; i < chunk.size; i++) {
+                        int date = chunk.dates[i];
+                        if (SchemeIndex.parseDate(String.valueOf(date)) != 0) {
+                            merge(mDelegate.mSchemeDatesMap, mMerged, date, chunk.colors[i], chunk.types[i], chunk.texts[i]);
+                        }
+                    }
+                    mImportedCount += chunk.size;
+                    if (mListener != null) {
+                        mListener.onImportProgress(mImportedCount);
+                    }
+                }
+            });
+        }
+
+        private void finish() {
+            isFinished = true;
+            mMerged.clear();
+            if (mDelegate.mSchemeDatesMap != null) {
+                mDelegate.mSchemeIndex.rebuild(mDelegate.mSchemeDatesMap);
+            }
+            mRefresh.run();
+            if (mListener != null) {
+                mListener.onImportFinish(mImportedCount, isCancelled.get());
+            }
+        }
+    }
+}
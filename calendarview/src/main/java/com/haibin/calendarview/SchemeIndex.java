@@ -0,0 +1,319 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 事件标记的月份索引：每个月一个31位掩码，第day - 1位表示这一天有标记，以及每天的标记数量
+ * 年视图按掩码只查找有标记的日期，热力图按数量着色
+ * 另外保存有序的日期数组，二分查找上一个、下一个标记和范围内的标记
+ * 通过CalendarView的API增删标记时增量更新；直接修改Map时按Map对象和大小判断，不一致则重建
+ */
+final class SchemeIndex {
+
+    private static final int MONTH_COUNT = (CalendarViewDelegate.MAX_YEAR - CalendarViewDelegate.MIN_YEAR + 1) * 12;
+
+    /**
+     * 每天最多记录的数量
+     */
+    static final int MAX_COUNT = 127;
+
+    private final int[] mMasks = new int[MONTH_COUNT];
+
+    /**
+     * 每天的标记数量，按月份延迟创建
+     */
+    private final byte[][] mCounts = new byte[MONTH_COUNT][];
+
+    /**
+     * 有标记的日期，yyyyMMdd升序
+     */
+    private int[] mDates = new int[16];
+
+    private int mDateCount;
+
+    /**
+     * 索引对应的Map和它的大小
+     */
+    private Map<String, Calendar> mSource;
+
+    private int mSourceSize;
+
+    /**
+     * 整体修改了标记，下次sync时重建
+     */
+    private boolean isInvalid;
+
+    /**
+     * Map对象或大小变化时重建
+     *
+     * @param schemes 标记map
+     */
+    void sync(Map<String, Calendar> schemes) {
+        if (!isInvalid && schemes == mSource && (schemes == null || schemes.size() == mSourceSize)) {
+            return;
+        }
+        rebuild(schemes);
+    }
+
+    /**
+     * 标记整体修改，Map对象和大小可能都没变，例如重新设置了修改过的同一个Map
+     */
+    void invalidate() {
+        isInvalid = true;
+    }
+
+    /**
+     * 重建索引
+     *
+     * @param schemes 标记map
+     */
+    void rebuild(Map<String, Calendar> schemes) {
+        Arrays.fill(mMasks, 0);
+        Arrays.fill(mCounts, null);
+        mDateCount = 0;
+        isInvalid = false;
+        mSource = schemes;
+        mSourceSize = schemes == null ? 0 : schemes.size();
+        if (schemes == null) {
+            return;
+        }
+        if (mDates.length < schemes.size()) {
+            mDates = new int[schemes.size()];
+        }
+        if (schemes instanceof SchemeSnapshot.SnapshotMap) {
+            ((SchemeSnapshot.SnapshotMap) schemes).fillIndex(this);
+        } else {
+            for (Map.Entry<String, Calendar> entry : schemes.entrySet()) {
+                Calendar scheme = entry.getValue();
+                if (scheme != null) {
+                    addDate(parseDate(entry.getKey()), getSchemeCount(scheme));
+                }
+            }
+        }
+        Arrays.sort(mDates, 0, mDateCount);
+    }
+
+    /**
+     * 重建时添加日期，之后统一排序
+     *
+     * @param date  yyyyMMdd
+     * @param count 标记数量
+     */
+    void addDate(int date, int count) {
+        if (!setCount(date, count)) {
+            return;
+        }
+        if (mDateCount == mDates.length) {
+            mDates = Arrays.copyOf(mDates, Math.max(16, mDateCount * 2));
+        }
+        mDates[mDateCount++] = date;
+    }
+
+    /**
+     * Map中某个日期的标记已经更新
+     *
+     * @param schemes 标记map
+     * @param key     yyyyMMdd
+     */
+    void onSchemeChanged(Map<String, Calendar> schemes, String key) {
+        if (schemes != mSource || schemes == null) {
+            return;
+        }
+        int date = parseDate(key);
+        Calendar scheme = schemes.get(key);
+        if (set(date, scheme)) {
+            int index = Arrays.binarySearch(mDates, 0, mDateCount, date);
+            if (scheme != null && index < 0) {
+                insertDate(-index - 1, date);
+            } else if (scheme == null && index >= 0) {
+                System.arraycopy(mDates, index + 1, mDates, index, mDateCount - index - 1);
+                --mDateCount;
+            }
+        }
+        mSourceSize = schemes.size();
+    }
+
+    private void insertDate(int index, int date) {
+        if (mDateCount == mDates.length) {
+            mDates = Arrays.copyOf(mDates, mDateCount * 2);
+        }
+        System.arraycopy(mDates, index, mDates, index + 1, mDateCount - index);
+        mDates[index] = date;
+        ++mDateCount;
+    }
+
+    /**
+     * 有标记的日期数量
+     *
+     * @return 数量
+     */
+    int getDateCount() {
+        return mDateCount;
+    }
+
+    /**
+     * 之后第一个有标记的日期
+     *
+     * @param date yyyyMMdd，不包含
+     * @return yyyyMMdd，没有时为0
+     */
+    int nextDate(int date) {
+        int index = Arrays.binarySearch(mDates, 0, mDateCount, date);
+        index = index >= 0 ? index + 1 : -index - 1;
+        return index < mDateCount ? mDates[index] : 0;
+    }
+
+    /**
+     * 之前最后一个有标记的日期
+     *
+     * @param date yyyyMMdd，不包含
+     * @return yyyyMMdd，没有时为0
+     */
+    int previousDate(int date) {
+        int index = Arrays.binarySearch(mDates, 0, mDateCount, date);
+        index = index >= 0 ? index - 1 : -index - 2;
+        return index >= 0 ? mDates[index] : 0;
+    }
+
+    /**
+     * 范围内有标记的日期
+     *
+     * @param from yyyyMMdd，包含
+     * @param to   yyyyMMdd，包含
+     * @return 升序的日期
+     */
+    int[] getDates(int from, int to) {
+        if (from > to) {
+            return new int[0];
+        }
+        int start = Arrays.binarySearch(mDates, 0, mDateCount, from);
+        start = start >= 0 ? start : -start - 1;
+        int end = Arrays.binarySearch(mDates, 0, mDateCount, to);
+        end = end >= 0 ? end + 1 : -end - 1;
+        return Arrays.copyOfRange(mDates, start, end);
+    }
+
+    /**
+     * 某月的掩码
+     *
+     * @param year  year
+     * @param month month
+     * @return 第day - 1位表示这一天有标记
+     */
+    int getMask(int year, int month) {
+        int index = getMonthIndex(year, month);
+        return index < 0 ? 0 : mMasks[index];
+    }
+
+    /**
+     * 某天的标记数量
+     *
+     * @param year  year
+     * @param month month
+     * @param day   day
+     * @return 数量，最大MAX_COUNT
+     */
+    int getCount(int year, int month, int day) {
+        int index = getMonthIndex(year, month);
+        if (index < 0 || mCounts[index] == null) {
+            return 0;
+        }
+        return mCounts[index][day - 1];
+    }
+
+    /**
+     * 更新掩码和数量
+     *
+     * @param date   yyyyMMdd
+     * @param scheme 标记，null表示移除
+     * @return 日期是否合法
+     */
+    private boolean set(int date, Calendar scheme) {
+        return setCount(date, scheme == null ? 0 : getSchemeCount(scheme));
+    }
+
+    /**
+     * 更新掩码和数量
+     *
+     * @param date  yyyyMMdd
+     * @param count 标记数量，0表示移除
+     * @return 日期是否合法
+     */
+    private boolean setCount(int date, int count) {
+        if (date == 0) {
+            return false;
+        }
+        int index = getMonthIndex(date / 10000, date / 100 % 100);
+        int day = date % 100;
+        if (index < 0 || day < 1 || day > 31) {
+            return false;
+        }
+        if (count == 0) {
+            mMasks[index] &= ~(1 << (day - 1));
+            if (mCounts[index] != null) {
+                mCounts[index][day - 1] = 0;
+            }
+            return true;
+        }
+        mMasks[index] |= 1 << (day - 1);
+        if (mCounts[index] == null) {
+            mCounts[index] = new byte[31];
+        }
+        mCounts[index][day - 1] = (byte) Math.min(count, MAX_COUNT);
+        return true;
+    }
+
+    /**
+     * 一个标记对象包含的事件数量
+     *
+     * @param scheme scheme
+     * @return 数量，至少1
+     */
+    static int getSchemeCount(Calendar scheme) {
+        return scheme.getSchemes() == null || scheme.getSchemes().isEmpty() ? 1 : scheme.getSchemes().size();
+    }
+
+    private static int getMonthIndex(int year, int month) {
+        if (year < CalendarViewDelegate.MIN_YEAR || year > CalendarViewDelegate.MAX_YEAR || month < 1 || month > 12) {
+            return -1;
+        }
+        return (year - CalendarViewDelegate.MIN_YEAR) * 12 + month - 1;
+    }
+
+    /**
+     * 解析yyyyMMdd，不合法时返回0
+     *
+     * @param key key
+     * @return yyyyMMdd
+     */
+    static int parseDate(String key) {
+        if (key == null || key.length() != 8) {
+            return 0;
+        }
+        int date = 0;
+        for (int i = 0; i < 8; i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            date = date * 10 + c - '0';
+        }
+        return date;
+    }
+}
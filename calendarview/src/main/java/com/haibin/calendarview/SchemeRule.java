@@ -0,0 +1,345 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+import java.util.Map;
+
+/**
+ * 重复事件标记规则，类似RRULE，不需要为整个日期范围展开每一次事件
+ * 只在显示的页面内计算哪些日期命中，标记内容来自scheme，和setSchemeDate的Map值用法一样
+ * 例如：每周一三五的例会、每月最后一个周五、每年农历生日
+ */
+@SuppressWarnings("unused")
+public final class SchemeRule {
+
+    /**
+     * 每隔interval天
+     */
+    public static final int FREQ_DAILY = 0;
+
+    /**
+     * 每隔interval周的指定星期
+     */
+    public static final int FREQ_WEEKLY = 1;
+
+    /**
+     * 每隔interval月的同一天，没有这一天的月份跳过
+     */
+    public static final int FREQ_MONTHLY = 2;
+
+    /**
+     * 每隔interval月的第n个星期几
+     */
+    public static final int FREQ_MONTHLY_BY_WEEK = 3;
+
+    /**
+     * 每隔interval年的同一天，2月29日只在闰年
+     */
+    public static final int FREQ_YEARLY = 4;
+
+    /**
+     * 每年农历的同一天，没有三十的月份跳过
+     */
+    public static final int FREQ_LUNAR_YEARLY = 5;
+
+    private final int mFrequency;
+
+    /**
+     * 开始日期，距离1970-01-01的天数
+     */
+    private final int mStartDay;
+
+    private final int mStartYear;
+
+    private final int mStartMonth;
+
+    private final int mStartDate;
+
+    private final int mInterval;
+
+    /**
+     * 星期掩码，1 << week，week 0-6 周日到周六
+     */
+    private final int mWeekDays;
+
+    /**
+     * 第几个星期几，-1表示最后一个
+     */
+    private final int mNth;
+
+    private final int mLunarMonth;
+
+    private final int mLunarDay;
+
+    private final Calendar mScheme;
+
+    /**
+     * 结束日期，包含，距离1970-01-01的天数
+     */
+    private int mUntilDay = Integer.MAX_VALUE;
+
+    private SchemeRule(int frequency, Calendar start, int interval, int weekDays, int nth,
+                       int lunarMonth, int lunarDay, Calendar scheme) {
+        if (start == null || scheme == null) {
+            throw new IllegalArgumentException("start and scheme must not be null");
+        }
+        if (interval < 1) {
+            throw new IllegalArgumentException("interval must be positive: " + interval);
+        }
+        this.mFrequency = frequency;
+        this.mStartYear = start.getYear();
+        this.mStartMonth = start.getMonth();
+        this.mStartDate = start.getDay();
+        this.mStartDay = CalendarUtil.getEpochDay(mStartYear, mStartMonth, mStartDate);
+        this.mInterval = interval;
+        this.mWeekDays = weekDays;
+        this.mNth = nth;
+        this.mLunarMonth = lunarMonth;
+        this.mLunarDay = lunarDay;
+        this.mScheme = scheme;
+    }
+
+    /**
+     * 每隔interval天
+     *
+     * @param start    开始日期
+     * @param interval 间隔
+     * @param scheme   标记
+     * @return 规则
+     */
+    public static SchemeRule daily(Calendar start, int interval, Calendar scheme) {
+        return new SchemeRule(FREQ_DAILY, start, interval, 0, 0, 0, 0, scheme);
+    }
+
+    /**
+     * 每隔interval周的指定星期
+     *
+     * @param start    开始日期
+     * @param interval 间隔
+     * @param weekDays 星期掩码，如 1 << 1 | 1 << 3 表示周一、周三，0表示开始日期的星期
+     * @param scheme   标记
+     * @return 规则
+     */
+    public static SchemeRule weekly(Calendar start, int interval, int weekDays, Calendar scheme) {
+        if (weekDays == 0 && start != null) {
+            weekDays = 1 << CalendarUtil.getDayOfWeek(
+                    CalendarUtil.getEpochDay(start.getYear(), start.getMonth(), start.getDay()));
+        }
+        return new SchemeRule(FREQ_WEEKLY, start, interval, weekDays & 0x7F, 0, 0, 0, scheme);
+    }
+
+    /**
+     * 每隔interval月的同一天
+     *
+     * @param start    开始日期
+     * @param interval 间隔
+     * @param scheme   标记
+     * @return 规则
+     */
+    public static SchemeRule monthly(Calendar start, int interval, Calendar scheme) {
+        return new SchemeRule(FREQ_MONTHLY, start, interval, 0, 0, 0, 0, scheme);
+    }
+
+    /**
+     * 每隔interval月的第nth个星期week，如每月最后一个周五
+     *
+     * @param start    开始日期
+     * @param interval 间隔
+     * @param nth      1-5，-1表示最后一个
+     * @param week     0-6 周日到周六
+     * @param scheme   标记
+     * @return 规则
+     */
+    public static SchemeRule monthlyByWeek(Calendar start, int interval, int nth, int week, Calendar scheme) {
+        if (nth == 0 || nth < -1 || nth > 5 || week < 0 || week > 6) {
+            throw new IllegalArgumentException("illegal nth week: " + nth + ", " + week);
+        }
+        return new SchemeRule(FREQ_MONTHLY_BY_WEEK, start, interval, 1 << week, nth, 0, 0, scheme);
+    }
+
+    /**
+     * 每隔interval年的同一天
+     *
+     * @param start    开始日期
+     * @param interval 间隔
+     * @param scheme   标记
+     * @return 规则
+     */
+    public static SchemeRule yearly(Calendar start, int interval, Calendar scheme) {
+        return new SchemeRule(FREQ_YEARLY, start, interval, 0, 0, 0, 0, scheme);
+    }
+
+    /**
+     * 每年农历的同一天，如农历生日，不包括闰月
+     *
+     * @param start      开始日期，之前的不标记
+     * @param lunarMonth 农历月 1-12
+     * @param lunarDay   农历日 1-30
+     * @param scheme     标记
+     * @return 规则
+     */
+    public static SchemeRule lunarYearly(Calendar start, int lunarMonth, int lunarDay, Calendar scheme) {
+        if (lunarMonth < 1 || lunarMonth > 12 || lunarDay < 1 || lunarDay > 30) {
+            throw new IllegalArgumentException("illegal lunar date: " + lunarMonth + "-" + lunarDay);
+        }
+        return new SchemeRule(FREQ_LUNAR_YEARLY, start, 1, 0, 0, lunarMonth, lunarDay, scheme);
+    }
+
+    /**
+     * 设置结束日期，包含这一天
+     *
+     * @param until 结束日期，null不结束
+     * @return this
+     */
+    public SchemeRule setUntil(Calendar until) {
+        mUntilDay = until == null ? Integer.MAX_VALUE :
+                CalendarUtil.getEpochDay(until.getYear(), until.getMonth(), until.getDay());
+        return this;
+    }
+
+    public int getFrequency() {
+        return mFrequency;
+    }
+
+    public Calendar getScheme() {
+        return mScheme;
+    }
+
+    /**
+     * 计算[startDay, endDay]内命中的日期，写入out
+     *
+     * @param startDay 开始，距离1970-01-01的天数
+     * @param endDay   结束，包含
+     * @param out      key为yyyyMMdd
+     * @param set      合并同一天的多个标记
+     */
+    void expand(int startDay, int endDay, Map<Integer, Calendar> out, SchemeRuleSet set) {
+        startDay = Math.max(startDay, mStartDay);
+        endDay = Math.min(endDay, mUntilDay);
+        if (startDay > endDay) {
+            return;
+        }
+        switch (mFrequency) {
+            case FREQ_DAILY:
+                int offset = (startDay - mStartDay) % mInterval;
+                for (int day = offset == 0 ? startDay : startDay + mInterval - offset; day <= endDay; day += mInterval) {
+                    set.putOccurrence(out, day, this);
+                }
+                break;
+            case FREQ_WEEKLY:
+                int startWeek = getWeekIndex(mStartDay);
+                for (int day = startDay; day <= endDay; day++) {
+                    if ((mWeekDays & (1 << CalendarUtil.getDayOfWeek(day))) != 0 &&
+                            (getWeekIndex(day) - startWeek) % mInterval == 0) {
+                        set.putOccurrence(out, day, this);
+                    }
+                }
+                break;
+            case FREQ_MONTHLY:
+            case FREQ_MONTHLY_BY_WEEK:
+            case FREQ_YEARLY:
+                expandByMonth(startDay, endDay, out, set);
+                break;
+            case FREQ_LUNAR_YEARLY:
+                expandLunar(startDay, endDay, out, set);
+                break;
+        }
+    }
+
+    private void expandByMonth(int startDay, int endDay, Map<Integer, Calendar> out, SchemeRuleSet set) {
+        Calendar calendar = new Calendar();
+        CalendarUtil.setupCalendarFromEpochDay(calendar, startDay);
+        int year = calendar.getYear();
+        int month = calendar.getMonth();
+        CalendarUtil.setupCalendarFromEpochDay(calendar, endDay);
+        int endMonths = calendar.getYear() * 12 + calendar.getMonth();
+        for (int months = year * 12 + month; months <= endMonths; months++) {
+            int y = (months - 1) / 12;
+            int m = (months - 1) % 12 + 1;
+            int diff = months - (mStartYear * 12 + mStartMonth);
+            int day;
+            if (mFrequency == FREQ_YEARLY) {
+                if (m != mStartMonth || (diff / 12) % mInterval != 0 ||
+                        mStartDate > CalendarUtil.getMonthDaysCount(y, m)) {
+                    continue;
+                }
+                day = mStartDate;
+            } else {
+                if (diff % mInterval != 0) {
+                    continue;
+                }
+                day = mFrequency == FREQ_MONTHLY ? mStartDate : getNthWeekDay(y, m);
+                if (day < 1 || day > CalendarUtil.getMonthDaysCount(y, m)) {
+                    continue;
+                }
+            }
+            int epochDay = CalendarUtil.getEpochDay(y, m, day);
+            if (epochDay >= startDay && epochDay <= endDay) {
+                set.putOccurrence(out, epochDay, this);
+            }
+        }
+    }
+
+    /**
+     * 第mNth个星期几
+     *
+     * @param year  year
+     * @param month month
+     * @return 日期，不存在时为0
+     */
+    private int getNthWeekDay(int year, int month) {
+        int week = Integer.numberOfTrailingZeros(mWeekDays);
+        int monthDays = CalendarUtil.getMonthDaysCount(year, month);
+        if (mNth > 0) {
+            int first = CalendarUtil.getDayOfWeek(CalendarUtil.getEpochDay(year, month, 1));
+            int day = 1 + (week - first + 7) % 7 + (mNth - 1) * 7;
+            return day <= monthDays ? day : 0;
+        }
+        int last = CalendarUtil.getDayOfWeek(CalendarUtil.getEpochDay(year, month, monthDays));
+        return monthDays - (last - week + 7) % 7;
+    }
+
+    private void expandLunar(int startDay, int endDay, Map<Integer, Calendar> out, SchemeRuleSet set) {
+        Calendar calendar = new Calendar();
+        CalendarUtil.setupCalendarFromEpochDay(calendar, startDay);
+        int startLunarYear = LunarUtil.solarToLunar(calendar.getYear(), calendar.getMonth(), calendar.getDay())[0];
+        CalendarUtil.setupCalendarFromEpochDay(calendar, endDay);
+        int endLunarYear = LunarUtil.solarToLunar(calendar.getYear(), calendar.getMonth(), calendar.getDay())[0];
+        startLunarYear = Math.max(startLunarYear, CalendarViewDelegate.MIN_YEAR);
+        endLunarYear = Math.min(endLunarYear, CalendarViewDelegate.MAX_YEAR);
+        for (int lunarYear = startLunarYear; lunarYear <= endLunarYear; lunarYear++) {
+            int[] solar = LunarUtil.lunarToSolar(lunarYear, mLunarMonth, mLunarDay, false);
+            int[] lunar = LunarUtil.solarToLunar(solar[0], solar[1], solar[2]);
+            if (lunar[1] != mLunarMonth || lunar[2] != mLunarDay || lunar[3] == 1) {
+                continue;//小月没有三十
+            }
+            int epochDay = CalendarUtil.getEpochDay(solar[0], solar[1], solar[2]);
+            if (epochDay >= startDay && epochDay <= endDay) {
+                set.putOccurrence(out, epochDay, this);
+            }
+        }
+    }
+
+    /**
+     * 以周日开始的周序号，1970-01-04是周日，所以减3后整除
+     *
+     * @param epochDay 距离1970-01-01的天数
+     * @return 周序号
+     */
+    private static int getWeekIndex(int epochDay) {
+        return (epochDay - CalendarUtil.getDayOfWeek(epochDay) - 3) / 7;
+    }
+}
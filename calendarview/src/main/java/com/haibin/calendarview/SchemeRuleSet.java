@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 重复事件规则集合，按页面的日期窗口展开，结果按窗口缓存
+ * 月视图、周视图、年视图的每一页只展开自己的42或7天，不为整个范围生成标记
+ */
+final class SchemeRuleSet {
+
+    /**
+     * 缓存的窗口数，覆盖月视图、周视图相邻页面和年视图12个月
+     */
+    private static final int CACHE_WINDOWS = 24;
+
+    /**
+     * 查找上一个、下一个事件时每次展开的天数
+     */
+    private static final int SEARCH_WINDOW = 64;
+
+    private final List<SchemeRule> mRules = new ArrayList<>();
+
+    private final CalendarCache<Long, Map<Integer, Calendar>> mCache = new CalendarCache<>("scheme_rules",
+            CACHE_WINDOWS, new CalendarCache.Sizer<Map<Integer, Calendar>>() {
+        @Override
+        public int sizeOf(Map<Integer, Calendar> value) {
+            return 48 + 32 * value.size();
+        }
+    });
+
+    /**
+     * 本次展开中合并生成的标记，再次命中时直接追加
+     */
+    private final Map<Calendar, Boolean> mMerged = new IdentityHashMap<>();
+
+    boolean isEmpty() {
+        return mRules.isEmpty();
+    }
+
+    List<SchemeRule> getRules() {
+        return Collections.unmodifiableList(mRules);
+    }
+
+    void setRules(List<SchemeRule> rules) {
+        mRules.clear();
+        if (rules != null) {
+            for (SchemeRule rule : rules) {
+                if (rule != null) {
+                    mRules.add(rule);
+                }
+            }
+        }
+        mCache.evictAll();
+    }
+
+    void add(SchemeRule rule) {
+        if (rule == null) {
+            return;
+        }
+        mRules.add(rule);
+        mCache.evictAll();
+    }
+
+    boolean remove(SchemeRule rule) {
+        if (!mRules.remove(rule)) {
+            return false;
+        }
+        mCache.evictAll();
+        return true;
+    }
+
+    /**
+     * 展开日期窗口内的所有事件，同一窗口再次请求时使用缓存
+     *
+     * @param startDate 开始日期 yyyyMMdd
+     * @param endDate   结束日期 yyyyMMdd，包含
+     * @return key为yyyyMMdd，没有规则时为null
+     */
+    Map<Integer, Calendar> expand(int startDate, int endDate) {
+        if (mRules.isEmpty()) {
+            return null;
+        }
+        int startDay = getEpochDay(startDate);
+        int endDay = getEpochDay(endDate);
+        long key = ((long) startDay << 32) | (endDay & 0xFFFFFFFFL);
+        Map<Integer, Calendar> schemes = mCache.get(key);
+        if (schemes == null) {
+            schemes = expandDays(startDay, endDay);
+            mCache.put(key, schemes);
+        }
+        return schemes;
+    }
+
+    /**
+     * 某一天的事件，不缓存
+     *
+     * @param year  year
+     * @param month month
+     * @param day   day
+     * @return 事件，没有时为null
+     */
+    Calendar get(int year, int month, int day) {
+        if (mRules.isEmpty()) {
+            return null;
+        }
+        int epochDay = CalendarUtil.getEpochDay(year, month, day);
+        return expandDays(epochDay, epochDay).get(year * 10000 + month * 100 + day);
+    }
+
+    /**
+     * 展开日期范围内的所有事件，不缓存，用于查找
+     *
+     * @param startDate 开始日期 yyyyMMdd
+     * @param endDate   结束日期 yyyyMMdd，包含
+     * @return key为yyyyMMdd
+     */
+    Map<Integer, Calendar> expandAll(int startDate, int endDate) {
+        if (mRules.isEmpty() || startDate > endDate) {
+            return new HashMap<>();
+        }
+        return expandDays(getEpochDay(startDate), getEpochDay(endDate));
+    }
+
+    /**
+     * 查找之后或之前最近的一次事件，每次展开SEARCH_WINDOW天，不缓存
+     *
+     * @param date      yyyyMMdd，不包含
+     * @param limitDate 查找的边界 yyyyMMdd，包含
+     * @param isNext    向后还是向前
+     * @return yyyyMMdd，没有时为0
+     */
+    int findOccurrence(int date, int limitDate, boolean isNext) {
+        if (mRules.isEmpty()) {
+            return 0;
+        }
+        int day = getEpochDay(date);
+        int limit = getEpochDay(limitDate);
+        if (isNext) {
+            for (int start = day + 1; start <= limit; start += SEARCH_WINDOW) {
+                Map<Integer, Calendar> schemes = expandDays(start, Math.min(start + SEARCH_WINDOW - 1, limit));
+                if (!schemes.isEmpty()) {
+                    return Collections.min(schemes.keySet());
+                }
+            }
+        } else {
+            for (int end = day - 1; end >= limit; end -= SEARCH_WINDOW) {
+                Map<Integer, Calendar> schemes = expandDays(Math.max(end - SEARCH_WINDOW + 1, limit), end);
+                if (!schemes.isEmpty()) {
+                    return Collections.max(schemes.keySet());
+                }
+            }
+        }
+        return 0;
+    }
+
+    private Map<Integer, Calendar> expandDays(int startDay, int endDay) {
+        Map<Integer, Calendar> schemes = new HashMap<>();
+        for (SchemeRule rule : mRules) {
+            rule.expand(startDay, endDay, schemes, this);
+        }
+        mMerged.clear();
+        return schemes;
+    }
+
+    /**
+     * 添加一次事件，同一天有多个规则时合并成多个Scheme
+     *
+     * @param out      结果
+     * @param epochDay 距离1970-01-01的天数
+     * @param rule     规则
+     */
+    void putOccurrence(Map<Integer, Calendar> out, int epochDay, SchemeRule rule) {
+        Calendar calendar = new Calendar();
+        CalendarUtil.setupCalendarFromEpochDay(calendar, epochDay);
+        int date = calendar.getYear() * 10000 + calendar.getMonth() * 100 + calendar.getDay();
+        Calendar existing = out.get(date);
+        if (existing == null) {
+            out.put(date, rule.getScheme());
+            return;
+        }
+        if (!mMerged.containsKey(existing)) {
+            Calendar merged = new Calendar();
+            merged.setScheme(existing.getScheme());
+            merged.setSchemeColor(existing.getSchemeColor());
+            addSchemes(merged, existing);
+            mMerged.put(merged, Boolean.TRUE);
+            out.put(date, merged);
+            existing = merged;
+        }
+        addSchemes(existing, rule.getScheme());
+    }
+
+    private static void addSchemes(Calendar target, Calendar scheme) {
+        if (scheme.getSchemes() != null) {
+            for (Calendar.Scheme s : scheme.getSchemes()) {
+                target.addScheme(s);
+            }
+        } else if (!TextUtils.isEmpty(scheme.getScheme())) {
+            target.addScheme(scheme.getSchemeColor(), scheme.getScheme());
+        }
+    }
+
+    private static int getEpochDay(int date) {
+        return CalendarUtil.getEpochDay(date / 10000, date / 100 % 100, date % 100);
+    }
+}
@@ -0,0 +1,510 @@
+/*
+ * Copyright (C) 2016 huanghaibin_dev <huanghaibin_dev@163.com>
+ * WebSite https://github.com/MiracleTimes-Dev
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.haibin.calendarview;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 事件标记的二进制快照，启动时通过内存映射直接使用，不需要先从数据库创建所有Calendar
+ * 格式，大端：
+ * 头部：MAGIC、VERSION、日期数、Scheme数、字符串数
+ * 日期表：每条DAY_SIZE字节，距离1970-01-01的天数(升序)、标记文本、颜色、Scheme起始位置、Scheme数量
+ * Scheme表：每条SCHEME_SIZE字节，type、颜色、文本、other
+ * 字符串表：字符串数 + 1个字节偏移，之后是UTF-8数据，文本为-1表示null
+ * 查找时在映射上二分，只为查到的日期创建Calendar，Scheme的obj不保存
+ */
+@SuppressWarnings("unused")
+public final class SchemeSnapshot {
+
+    private static final int MAGIC = 0x43565353;//CVSS
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 20;
+
+    private static final int DAY_SIZE = 20;
+
+    private static final int SCHEME_SIZE = 16;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer mBuffer;
+
+    private final int mDayCount;
+
+    private final int mSchemeOffset;
+
+    private final int mStringCount;
+
+    private final int mStringOffset;
+
+    private final int mStringDataOffset;
+
+    /**
+     * 已解码的字符串，按需解码
+     */
+    private final String[] mStrings;
+
+    private SchemeSnapshot(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a scheme snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported scheme snapshot version: " + buffer.getInt(4));
+        }
+        mBuffer = buffer;
+        mDayCount = buffer.getInt(8);
+        int schemeCount = buffer.getInt(12);
+        mStringCount = buffer.getInt(16);
+        mSchemeOffset = HEADER_SIZE + mDayCount * DAY_SIZE;
+        mStringOffset = mSchemeOffset + schemeCount * SCHEME_SIZE;
+        mStringDataOffset = mStringOffset + (mStringCount + 1) * 4;
+        if (mDayCount < 0 || schemeCount < 0 || mStringCount < 0 || mStringDataOffset > buffer.capacity() ||
+                mStringDataOffset + buffer.getInt(mStringOffset + mStringCount * 4) > buffer.capacity()) {
+            throw new IOException("corrupted scheme snapshot");
+        }
+        mStrings = new String[mStringCount];
+    }
+
+    /**
+     * 内存映射打开快照，文件在映射期间不能被修改
+     *
+     * @param file 快照文件
+     * @return 快照
+     * @throws IOException 文件不存在或格式错误
+     */
+    public static SchemeSnapshot open(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new SchemeSnapshot(buffer);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * 把标记写成快照，先写临时文件再重命名，写入失败时不影响原来的快照
+     *
+     * @param file    快照文件
+     * @param schemes 标记，key为yyyyMMdd
+     * @throws IOException 写入失败
+     */
+    public static void write(File file, Map<String, Calendar> schemes) throws IOException {
+        List<Calendar> days = new ArrayList<>();
+        for (Map.Entry<String, Calendar> entry : schemes.entrySet()) {
+            Calendar calendar = entry.getValue();
+            int date = SchemeIndex.parseDate(entry.getKey());
+            if (calendar == null || date == 0) {
+                continue;
+            }
+            Calendar day = new Calendar();
+            day.setYear(date / 10000);
+            day.setMonth(date / 100 % 100);
+            day.setDay(date % 100);
+            day.setScheme(calendar.getScheme());
+            day.setSchemeColor(calendar.getSchemeColor());
+            day.setSchemes(calendar.getSchemes());
+            days.add(day);
+        }
+        Collections.sort(days);
+
+        Map<String, Integer> stringIndexes = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        int schemeCount = 0;
+        for (Calendar day : days) {
+            putString(day.getScheme(), stringIndexes, strings);
+            if (day.getSchemes() != null) {
+                for (Calendar.Scheme scheme : day.getSchemes()) {
+                    putString(scheme.getScheme(), stringIndexes, strings);
+                    putString(scheme.getOther(), stringIndexes, strings);
+                    ++schemeCount;
+                }
+            }
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(days.size());
+            out.writeInt(schemeCount);
+            out.writeInt(strings.size());
+            int schemeIndex = 0;
+            for (Calendar day : days) {
+                int count = day.getSchemes() == null ? 0 : day.getSchemes().size();
+                out.writeInt(CalendarUtil.getEpochDay(day.getYear(), day.getMonth(), day.getDay()));
+                out.writeInt(getStringIndex(day.getScheme(), stringIndexes));
+                out.writeInt(day.getSchemeColor());
+                out.writeInt(schemeIndex);
+                out.writeInt(count);
+                schemeIndex += count;
+            }
+            for (Calendar day : days) {
+                if (day.getSchemes() == null) {
+                    continue;
+                }
+                for (Calendar.Scheme scheme : day.getSchemes()) {
+                    out.writeInt(scheme.getType());
+                    out.writeInt(scheme.getShcemeColor());
+                    out.writeInt(getStringIndex(scheme.getScheme(), stringIndexes));
+                    out.writeInt(getStringIndex(scheme.getOther(), stringIndexes));
+                }
+            }
+            byte[][] bytes = new byte[strings.size()][];
+            int offset = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = strings.get(i).getBytes(UTF_8);
+                out.writeInt(offset);
+                offset += bytes[i].length;
+            }
+            out.writeInt(offset);
+            for (byte[] b : bytes) {
+                out.write(b);
+            }
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(file)) {
+            if (!file.delete() || !temp.renameTo(file)) {
+                throw new IOException("rename " + temp + " to " + file + " failed");
+            }
+        }
+    }
+
+    private static void putString(String s, Map<String, Integer> indexes, List<String> strings) {
+        if (s != null && !indexes.containsKey(s)) {
+            indexes.put(s, strings.size());
+            strings.add(s);
+        }
+    }
+
+    private static int getStringIndex(String s, Map<String, Integer> indexes) {
+        return s == null ? -1 : indexes.get(s);
+    }
+
+    /**
+     * 有标记的日期数量
+     *
+     * @return 数量
+     */
+    public int size() {
+        return mDayCount;
+    }
+
+    /**
+     * 某天的标记，只创建这一天的Calendar
+     *
+     * @param year  year
+     * @param month month
+     * @param day   day
+     * @return 标记，没有时为null
+     */
+    public Calendar get(int year, int month, int day) {
+        int index = indexOf(CalendarUtil.getEpochDay(year, month, day));
+        return index < 0 ? null : getCalendar(index);
+    }
+
+    /**
+     * 作为标记Map使用：CalendarView.setSchemeDate(snapshot.asMap())
+     * 查找直接在映射上二分；增删保存在内存中的覆盖层，不修改文件
+     *
+     * @return 标记Map
+     */
+    public Map<String, Calendar> asMap() {
+        return new SnapshotMap(this);
+    }
+
+    /**
+     * 二分查找日期
+     *
+     * @param epochDay 距离1970-01-01的天数
+     * @return 位置，没有时为负数
+     */
+    int indexOf(int epochDay) {
+        int low = 0;
+        int high = mDayCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = getEpochDay(mid);
+            if (value < epochDay) {
+                low = mid + 1;
+            } else if (value > epochDay) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    int getEpochDay(int index) {
+        return mBuffer.getInt(HEADER_SIZE + index * DAY_SIZE);
+    }
+
+    /**
+     * 某个位置的日期
+     *
+     * @param index 位置
+     * @return yyyyMMdd
+     */
+    int getDate(int index) {
+        Calendar calendar = new Calendar();
+        CalendarUtil.setupCalendarFromEpochDay(calendar, getEpochDay(index));
+        return calendar.getYear() * 10000 + calendar.getMonth() * 100 + calendar.getDay();
+    }
+
+    /**
+     * 某个位置的事件数量，和SchemeIndex.getSchemeCount一致
+     *
+     * @param index 位置
+     * @return 数量，至少1
+     */
+    int getSchemeCount(int index) {
+        return Math.max(1, mBuffer.getInt(HEADER_SIZE + index * DAY_SIZE + 16));
+    }
+
+    /**
+     * 创建某个位置的Calendar
+     *
+     * @param index 位置
+     * @return Calendar
+     */
+    Calendar getCalendar(int index) {
+        int offset = HEADER_SIZE + index * DAY_SIZE;
+        Calendar calendar = new Calendar();
+        CalendarUtil.setupCalendarFromEpochDay(calendar, mBuffer.getInt(offset));
+        calendar.setScheme(getString(mBuffer.getInt(offset + 4)));
+        calendar.setSchemeColor(mBuffer.getInt(offset + 8));
+        int schemeIndex = mBuffer.getInt(offset + 12);
+        int count = mBuffer.getInt(offset + 16);
+        for (int i = 0; i < count; i++) {
+            int schemeOffset = mSchemeOffset + (schemeIndex + i) * SCHEME_SIZE;
+            calendar.addScheme(new Calendar.Scheme(mBuffer.getInt(schemeOffset),
+                    mBuffer.getInt(schemeOffset + 4),
+                    getString(mBuffer.getInt(schemeOffset + 8)),
+                    getString(mBuffer.getInt(schemeOffset + 12))));
+        }
+        return calendar;
+    }
+
+    private String getString(int index) {
+        if (index < 0 || index >= mStringCount) {
+            return null;
+        }
+        synchronized (mStrings) {
+            if (mStrings[index] == null) {
+                int start = mBuffer.getInt(mStringOffset + index * 4);
+                int end = mBuffer.getInt(mStringOffset + index * 4 + 4);
+                byte[] bytes = new byte[end - start];
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[i] = mBuffer.get(mStringDataOffset + start + i);
+                }
+                mStrings[index] = new String(bytes, UTF_8);
+            }
+            return mStrings[index];
+        }
+    }
+
+    /**
+     * 快照的Map视图，修改保存在覆盖层中，key为yyyyMMdd
+     */
+    static final class SnapshotMap extends AbstractMap<String, Calendar> {
+
+        private final SchemeSnapshot mSnapshot;
+
+        /**
+         * 覆盖层，值为null表示已删除
+         */
+        private final Map<Integer, Calendar> mOverlay = new HashMap<>();
+
+        /**
+         * 调用过clear，快照中的日期全部失效，只剩覆盖层
+         */
+        private boolean isCleared;
+
+        private int mSize;
+
+        private SnapshotMap(SchemeSnapshot snapshot) {
+            this.mSnapshot = snapshot;
+            this.mSize = snapshot.size();
+        }
+
+        @Override
+        public Calendar get(Object key) {
+            int date = key instanceof String ? SchemeIndex.parseDate((String) key) : 0;
+            return date == 0 ? null : get(date);
+        }
+
+        private Calendar get(int date) {
+            if (!mOverlay.isEmpty() && mOverlay.containsKey(date)) {
+                return mOverlay.get(date);
+            }
+            if (isCleared) {
+                return null;
+            }
+            int index = mSnapshot.indexOf(CalendarUtil.getEpochDay(date / 10000, date / 100 % 100, date % 100));
+            return index < 0 ? null : mSnapshot.getCalendar(index);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Calendar put(String key, Calendar value) {
+            int date = SchemeIndex.parseDate(key);
+            if (date == 0 || value == null) {
+                throw new IllegalArgumentException("illegal scheme: " + key);
+            }
+            Calendar previous = get(date);
+            mOverlay.put(date, value);
+            if (previous == null) {
+                ++mSize;
+            }
+            return previous;
+        }
+
+        @Override
+        public Calendar remove(Object key) {
+            int date = key instanceof String ? SchemeIndex.parseDate((String) key) : 0;
+            Calendar previous = date == 0 ? null : get(date);
+            if (previous != null) {
+                mOverlay.put(date, null);
+                --mSize;
+            }
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            mOverlay.clear();
+            isCleared = true;
+            mSize = 0;
+        }
+
+        @Override
+        public int size() {
+            return mSize;
+        }
+
+        /**
+         * 不创建Calendar，把所有日期和数量写入索引
+         *
+         * @param index 索引
+         */
+        void fillIndex(SchemeIndex index) {
+            for (int i = 0; !isCleared && i < mSnapshot.size(); i++) {
+                int date = mSnapshot.getDate(i);
+                if (mOverlay.isEmpty() || !mOverlay.containsKey(date)) {
+                    index.addDate(date, mSnapshot.getSchemeCount(i));
+                }
+            }
+            for (Map.Entry<Integer, Calendar> entry : mOverlay.entrySet()) {
+                if (entry.getValue() != null) {
+                    index.addDate(entry.getKey(), SchemeIndex.getSchemeCount(entry.getValue()));
+                }
+            }
+        }
+
+        @Override
+        public Set<Entry<String, Calendar>> entrySet() {
+            return new AbstractSet<Entry<String, Calendar>>() {
+                @Override
+                public Iterator<Entry<String, Calendar>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return mSize;
+                }
+            };
+        }
+
+        /**
+         * 先遍历快照中没有被覆盖的日期，再遍历覆盖层新增的，只读
+         */
+        private final class EntryIterator implements Iterator<Entry<String, Calendar>> {
+
+            private int mIndex;
+
+            private final Iterator<Map.Entry<Integer, Calendar>> mOverlayIterator = mOverlay.entrySet().iterator();
+
+            private Entry<String, Calendar> mNext;
+
+            @Override
+            public boolean hasNext() {
+                if (mNext != null) {
+                    return true;
+                }
+                while (!isCleared && mIndex < mSnapshot.size()) {
+                    int index = mIndex++;
+                    int date = mSnapshot.getDate(index);
+                    if (mOverlay.isEmpty() || !mOverlay.containsKey(date)) {
+                        mNext = new SimpleImmutableEntry<>(String.valueOf(date), mSnapshot.getCalendar(index));
+                        return true;
+                    }
+                }
+                while (mOverlayIterator.hasNext()) {
+                    Map.Entry<Integer, Calendar> entry = mOverlayIterator.next();
+                    if (entry.getValue() != null) {
+                        mNext = new SimpleImmutableEntry<>(String.valueOf(entry.getKey()), entry.getValue());
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public Entry<String, Calendar> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Entry<String, Calendar> next = mNext;
+                mNext = null;
+                return next;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        }
+    }
+}
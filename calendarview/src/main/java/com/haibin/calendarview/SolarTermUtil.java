@@ -432,18 +432,17 @@ public final class SolarTermUtil {
             3.20170955005E-08, -1.53637455544E-10};
 
 
-    private static double EnnT = 0; // 调用Enn前先设置EnnT时间变量
-
     /**
-     * 计算E10,E11,E20等,即:某一组周期项或泊松项算出,计算前先设置EnnT时间
+     * 计算E10,E11,E20等,即:某一组周期项或泊松项算出
      *
      * @param F F
+     * @param t 儒略千年数
      * @return 计算E10, E11, E20等
      */
-    private static double Enn(double[] F) {
+    private static double Enn(double[] F, double t) {
         double v = 0;
         for (int i = 0; i < F.length; i += 3)
-            v += F[i] * Math.cos(F[i + 1] + EnnT * F[i + 2]);
+            v += F[i] * Math.cos(F[i + 1] + t * F[i + 2]);
         return v;
     }
 
@@ -454,30 +453,28 @@ public final class SolarTermUtil {
      * @return 返回地球位置, 日心Date黄道分点坐标
      */
     private static double[] earCal(double jd) {
-        EnnT = jd / 365250;
         double llr[] = new double[3];
-        double t1 = EnnT, t2 = t1 * t1, t3 = t2 * t1, t4 = t3 * t1, t5 = t4
+        double t1 = jd / 365250, t2 = t1 * t1, t3 = t2 * t1, t4 = t3 * t1, t5 = t4
                 * t1;
-        llr[0] = Enn(E10) + Enn(E11) * t1 + Enn(E12) * t2 + Enn(E13) * t3
-                + Enn(E14) * t4 + Enn(E15) * t5;
-        llr[1] = Enn(E20) + Enn(E21) * t1;
-        llr[2] = Enn(E30) + Enn(E31) * t1 + Enn(E32) * t2 + Enn(E33) * t3;
+        llr[0] = Enn(E10, t1) + Enn(E11, t1) * t1 + Enn(E12, t1) * t2 + Enn(E13, t1) * t3
+                + Enn(E14, t1) * t4 + Enn(E15, t1) * t5;
+        llr[1] = Enn(E20, t1) + Enn(E21, t1) * t1;
+        llr[2] = Enn(E30, t1) + Enn(E31, t1) * t1 + Enn(E32, t1) * t2 + Enn(E33, t1) * t3;
         llr[0] = rad2mrad(llr[0]);
         return llr;
     }
 
 
     // ==================月位置计算===================
-    private static double MnnT = 0; // 调用Mnn前先设置MnnT时间变量
-
     /**
-     * 计算M10,M11,M20等,计算前先设置MnnT时间
+     * 计算M10,M11,M20等
      *
      * @param F F
-     * @return 计算M10, M11, M20等, 计算前先设置MnnT时间
+     * @param t 儒略世纪数
+     * @return 计算M10, M11, M20等
      */
-    private static double Mnn(double[] F) {
-        double v = 0, t1 = MnnT, t2 = t1 * t1, t3 = t2 * t1, t4 = t3 * t1;
+    private static double Mnn(double[] F, double t) {
+        double v = 0, t1 = t, t2 = t1 * t1, t3 = t2 * t1, t4 = t3 * t1;
         for (int i = 0; i < F.length; i += 6)
             v += F[i]
                     * Math.sin(F[i + 1] + t1 * F[i + 2] + t2 * F[i + 3] + t3
@@ -493,12 +490,11 @@ public final class SolarTermUtil {
      * @return return 地心黄道坐标
      */
     private static double[] moonCoord(double julian) {
-        MnnT = julian / 36525;
-        double t1 = MnnT, t2 = t1 * t1, t3 = t2 * t1, t4 = t3 * t1;
+        double t1 = julian / 36525, t2 = t1 * t1, t3 = t2 * t1, t4 = t3 * t1;
         double[] llr = new double[3];
-        llr[0] = (Mnn(M10) + Mnn(M11) * t1 + Mnn(M12) * t2) / SECOND_PER_RAD;
-        llr[1] = (Mnn(M20) + Mnn(M21) * t1) / SECOND_PER_RAD;
-        llr[2] = (Mnn(M30) + Mnn(M31) * t1) * 0.999999949827;
+        llr[0] = (Mnn(M10, t1) + Mnn(M11, t1) * t1 + Mnn(M12, t1) * t2) / SECOND_PER_RAD;
+        llr[1] = (Mnn(M20, t1) + Mnn(M21, t1) * t1) / SECOND_PER_RAD;
+        llr[2] = (Mnn(M30, t1) + Mnn(M31, t1) * t1) * 0.999999949827;
         llr[0] = llr[0] + M1n[0] + M1n[1] * t1 + M1n[2] * t2 + M1n[3] * t3
                 + M1n[4] * t4;
         llr[0] = rad2mrad(llr[0]); // 地心Date黄道原点坐标(不含岁差)
@@ -36,17 +36,17 @@ public abstract class WeekView extends BaseWeekView {
      */
     @Override
     protected void onDraw(Canvas canvas) {
-        if (mItems.size() == 0)
+        if (mGrid.size() == 0)
             return;
         mItemWidth = (getWidth() -
                  mDelegate.getCalendarPaddingLeft() -
                  mDelegate.getCalendarPaddingRight()) / 7;
         onPreviewHook();
 
-        for (int i = 0; i < mItems.size(); i++) {
+        for (int i = 0; i < mGrid.size(); i++) {
             int x = i * mItemWidth + mDelegate.getCalendarPaddingLeft();
             onLoopStart(x);
-            Calendar calendar = mItems.get(i);
+            Calendar calendar = getDrawCalendar(i);
             boolean isSelected = i == mCurrentItem;
             boolean hasScheme = calendar.hasScheme();
             if (hasScheme) {
@@ -89,7 +89,7 @@ public abstract class WeekView extends BaseWeekView {
             return;
         }
 
-        mCurrentItem = mItems.indexOf(calendar);
+        mCurrentItem = mGrid.indexOf(calendar);
 
         if (mDelegate.mInnerListener != null) {
             mDelegate.mInnerListener.onWeekDateSelected(calendar, true);
@@ -139,7 +139,7 @@ public abstract class WeekView extends BaseWeekView {
         }
 
 
-        mCurrentItem = mItems.indexOf(calendar);
+        mCurrentItem = mGrid.indexOf(calendar);
 
         mDelegate.mIndexCalendar = mDelegate.mSelectedCalendar;
 
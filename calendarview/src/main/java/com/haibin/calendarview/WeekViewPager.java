@@ -38,6 +38,16 @@ import java.util.List;
 public final class WeekViewPager extends ViewPager {
     private boolean isUpdateWeekView;
     private int mWeekCount;
+
+    /**
+     * 页面缓存，开启pager_view_recycle时使用
+     */
+    private final PagerViewPool mViewPool;
+
+    /**
+     * 虚拟日期范围向前扩展时，已创建页面的位置偏移量
+     */
+    private int mPositionShift;
     private CalendarViewDelegate mDelegate;
 
     /**
@@ -56,6 +66,7 @@ public final class WeekViewPager extends ViewPager {
 
     public WeekViewPager(Context context, AttributeSet attrs) {
         super(context, attrs);
+        mViewPool = new PagerViewPool(context);
     }
 
     void setup(CalendarViewDelegate delegate) {
@@ -81,6 +92,9 @@ public final class WeekViewPager extends ViewPager {
 
             @Override
             public void onPageSelected(int position) {
+                if (mPositionShift != 0) {//扩展日期范围只是平移位置，周没有改变
+                    return;
+                }
                 //默认的显示星期四，周视图切换就显示星期4
                 if (getVisibility() != VISIBLE) {
                     isUsingScrollToCalendar = false;
@@ -136,10 +150,40 @@ public final class WeekViewPager extends ViewPager {
         notifyAdapterDataSetChanged();
     }
 
+    /**
+     * 关闭页面复用时清空缓存
+     */
+    final void clearViewPool() {
+        mViewPool.clear();
+    }
+
+    /**
+     * 虚拟日期范围扩展，已经创建的页面不重建，只平移位置
+     *
+     * @param shift 最小日期向前扩展的周数
+     */
+    final void extendRange(int shift) {
+        mWeekCount = CalendarUtil.getWeekCountBetweenBothCalendar(
+                mDelegate.getMinYear(),
+                mDelegate.getMinYearMonth(),
+                mDelegate.getMinYearDay(),
+                mDelegate.getMaxYear(),
+                mDelegate.getMaxYearMonth(),
+                mDelegate.getMaxYearDay(),
+                mDelegate.getWeekStart());
+        mPositionShift = shift;
+        notifyAdapterDataSetChanged();
+        mPositionShift = 0;
+        for (int i = 0; i < getChildCount(); i++) {//边缘页面的日期可能进入了范围
+            getChildAt(i).invalidate();
+        }
+    }
+
     /**
      * 更新周视图布局
      */
     void updateWeekViewClass() {
+        mViewPool.clear();
         isUpdateWeekView = true;
         notifyAdapterDataSetChanged();
         isUpdateWeekView = false;
@@ -372,6 +416,21 @@ public final class WeekViewPager extends ViewPager {
         }
     }
 
+    /**
+     * 只重绘包含日期范围的页面
+     *
+     * @param fromDate 开始日期 yyyyMMdd
+     * @param toDate   结束日期 yyyyMMdd，包含
+     */
+    final void invalidateRange(int fromDate, int toDate) {
+        for (int i = 0; i < getChildCount(); i++) {
+            BaseWeekView view = (BaseWeekView) getChildAt(i);
+            if (view.mGrid.intersects(fromDate, toDate)) {
+                view.invalidate();
+            }
+        }
+    }
+
     /**
      * 清除选择范围
      */
@@ -437,7 +496,20 @@ public final class WeekViewPager extends ViewPager {
 
         @Override
         public int getItemPosition(@NonNull Object object) {
-            return isUpdateWeekView ? POSITION_NONE : super.getItemPosition(object);
+            if (isUpdateWeekView) {
+                return POSITION_NONE;
+            }
+            if (mPositionShift != 0) {
+                //页面tag保存的是position，虚拟日期范围扩展后整体平移
+                View view = (View) object;
+                if (!(view.getTag() instanceof Integer)) {
+                    return POSITION_NONE;
+                }
+                int position = (int) view.getTag() + mPositionShift;
+                view.setTag(position);
+                return position;
+            }
+            return super.getItemPosition(object);
         }
 
         @Override
@@ -448,18 +520,26 @@ public final class WeekViewPager extends ViewPager {
         @NonNull
         @Override
         public Object instantiateItem(@NonNull ViewGroup container, int position) {
+            CalendarMetrics metrics = mDelegate.mMetrics;
+            long start = metrics == null ? 0 : metrics.begin(CalendarView.CalendarMetricsListener.EVENT_WEEK_INSTANTIATE);
             Calendar calendar = CalendarUtil.getFirstCalendarStartWithMinCalendar(mDelegate.getMinYear(),
                     mDelegate.getMinYearMonth(),
                     mDelegate.getMinYearDay(),
                     position + 1,
                     mDelegate.getWeekStart());
-            BaseWeekView view;
-            try {
-                Constructor constructor = mDelegate.getWeekViewClass().getConstructor(Context.class);
-                view = (BaseWeekView) constructor.newInstance(getContext());
-            } catch (Exception e) {
-                e.printStackTrace();
-                return new DefaultWeekView(getContext());
+            boolean isRecycle = mDelegate.isPagerViewRecycle();
+            BaseWeekView view = isRecycle ? (BaseWeekView) mViewPool.obtain(mDelegate.getWeekViewClass()) : null;
+            if (view == null) {
+                try {
+                    Constructor constructor = mDelegate.getWeekViewClass().getConstructor(Context.class);
+                    view = (BaseWeekView) constructor.newInstance(getContext());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    if (metrics != null) {
+                        metrics.end(CalendarView.CalendarMetricsListener.EVENT_WEEK_INSTANTIATE, start);
+                    }
+                    return new DefaultWeekView(getContext());
+                }
             }
             view.mParentLayout = mParentLayout;
             view.setup(mDelegate);
@@ -467,6 +547,12 @@ public final class WeekViewPager extends ViewPager {
             view.setTag(position);
             view.setSelectedCalendar(mDelegate.mSelectedCalendar);
             container.addView(view);
+            if (isRecycle) {
+                mViewPool.schedulePrefetch(mDelegate.getWeekViewClass());
+            }
+            if (metrics != null) {
+                metrics.end(CalendarView.CalendarMetricsListener.EVENT_WEEK_INSTANTIATE, start);
+            }
             return view;
         }
 
@@ -475,6 +561,9 @@ public final class WeekViewPager extends ViewPager {
             BaseWeekView view = (BaseWeekView) object;
             view.onDestroy();
             container.removeView(view);
+            if (mDelegate.isPagerViewRecycle()) {
+                mViewPool.recycle(view);
+            }
         }
     }
 }
@@ -37,7 +37,9 @@ public final class YearRecyclerView extends RecyclerView {
     public YearRecyclerView(Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
         mAdapter = new YearViewAdapter(context);
-        setLayoutManager(new GridLayoutManager(context, 3));
+        GridLayoutManager layoutManager = new GridLayoutManager(context, 3);
+        layoutManager.setRecycleChildrenOnDetach(true);
+        setLayoutManager(layoutManager);
         setAdapter(mAdapter);
         mAdapter.setOnItemClickListener(new BaseRecyclerAdapter.OnItemClickListener() {
             @Override
@@ -20,14 +20,11 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
-import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.view.View;
 
 import androidx.annotation.Nullable;
 
-import java.util.List;
-
 /**
  * 年视图
  * Created by huanghaibin on 2018/10/9.
@@ -108,9 +105,19 @@ public abstract class YearView extends View {
     protected Paint mWeekTextPaint = new Paint();
 
     /**
-     * 日历项
+     * 日历网格，默认不计算农历
+     */
+    private final DayGrid mGrid = new DayGrid();
+
+    /**
+     * 绘制时复用的日历对象
      */
-    List<Calendar> mItems;
+    private final Calendar mDrawCalendar = new Calendar();
+
+    /**
+     * 本月有标记的日期掩码
+     */
+    private int mSchemeMask;
 
     /**
      * 每一项的高度
@@ -162,6 +169,13 @@ public abstract class YearView extends View {
      */
     protected int mLineCount;
 
+    /**
+     * 上次测量的宽高，相同时复用测量结果
+     */
+    private int mLastWidth = -1, mLastHeight = -1;
+
+    private final Rect mTextRect = new Rect();
+
     public YearView(Context context) {
         this(context, null);
     }
@@ -266,6 +280,8 @@ public abstract class YearView extends View {
         this.mMonthTextPaint.setColor(mDelegate.getYearViewMonthTextColor());
         this.mWeekTextPaint.setColor(mDelegate.getYearViewWeekTextColor());
         this.mWeekTextPaint.setTextSize(mDelegate.getYearViewWeekTextSize());
+        mLastWidth = -1;
+        mLastHeight = -1;
     }
 
     /**
@@ -275,16 +291,58 @@ public abstract class YearView extends View {
      * @param month month
      */
     final void init(int year, int month) {
+        CalendarMetrics metrics = mDelegate.mMetrics;
+        long start = metrics == null ? 0 : metrics.begin(CalendarView.CalendarMetricsListener.EVENT_YEAR_GRID_BUILD);
         mYear = year;
         mMonth = month;
         mNextDiff = CalendarUtil.getMonthEndDiff(mYear, mMonth, mDelegate.getWeekStart());
-        int preDiff = CalendarUtil.getMonthViewStartDiff(mYear, mMonth, mDelegate.getWeekStart());
+        mLineCount = 6;
 
-        mItems = CalendarUtil.initCalendarForMonthView(mYear, mMonth, mDelegate.getCurrentDay(), mDelegate.getWeekStart());
+        boolean isLunar = isLunarRequired();
+        mGrid.initMonth(mYear, mMonth, mDelegate.getCurrentDay(), mDelegate.getWeekStart(), isLunar);
+        mSchemeMask = mDelegate.getSchemeMask(mYear, mMonth);
+        int schemeCount = mGrid.updateMonthSchemes(mSchemeMask,
+                mDelegate.mSchemeDatesMap, mDelegate.mSchemeRules, mDelegate.getSchemeText());
+        if (metrics != null) {
+            metrics.end(CalendarView.CalendarMetricsListener.EVENT_YEAR_GRID_BUILD, start);
+            metrics.count(CalendarView.CalendarMetricsListener.COUNT_SCHEME, schemeCount);
+            if (isLunar) {
+                metrics.count(CalendarView.CalendarMetricsListener.COUNT_LUNAR, DayGrid.MONTH_SIZE);
+            }
+            metrics.countCacheStats();
+        }
+    }
 
-        mLineCount = 6;
-        addSchemesFromMap();
+    /**
+     * 本月有标记的日期掩码
+     *
+     * @return 第day - 1位表示这一天有标记
+     */
+    protected final int getSchemeMask() {
+        return mSchemeMask;
+    }
+
+    /**
+     * 本月某天的标记数量，多个Scheme时为Scheme数量，用于热力图
+     *
+     * @param day day
+     * @return 数量，没有标记为0
+     */
+    protected final int getSchemeCount(int day) {
+        if ((mSchemeMask & (1 << (day - 1))) == 0) {
+            return 0;
+        }
+        return mDelegate.getSchemeCount(mYear, mMonth, day);
+    }
 
+    /**
+     * 是否需要农历、节气、节日数据，默认不需要，年视图只生成轻量网格
+     * 自定义年视图需要绘制农历时复写返回true
+     *
+     * @return 是否需要农历数据
+     */
+    protected boolean isLunarRequired() {
+        return false;
     }
 
     /**
@@ -295,10 +353,22 @@ public abstract class YearView extends View {
      */
     @SuppressWarnings("IntegerDivisionInFloatingPointContext")
     final void measureSize(int width, int height) {
+        CalendarMetrics calendarMetrics = mDelegate.mMetrics;
+        if (width == mLastWidth && height == mLastHeight) {
+            if (calendarMetrics != null) {
+                calendarMetrics.count(CalendarView.CalendarMetricsListener.COUNT_YEAR_SIZE_CACHE_HIT, 1);
+            }
+            invalidate();
+            return;
+        }
+        if (calendarMetrics != null) {
+            calendarMetrics.count(CalendarView.CalendarMetricsListener.COUNT_YEAR_SIZE_CACHE_MISS, 1);
+        }
+        mLastWidth = width;
+        mLastHeight = height;
 
-        Rect rect = new Rect();
-        mCurMonthTextPaint.getTextBounds("1", 0, 1, rect);
-        int textHeight = rect.height();
+        mCurMonthTextPaint.getTextBounds("1", 0, 1, mTextRect);
+        int textHeight = mTextRect.height();
         int mMinHeight = 12 * textHeight + getMonthViewTop();
 
         int h = height >= mMinHeight ? height : mMinHeight;
@@ -321,32 +391,11 @@ public abstract class YearView extends View {
         invalidate();
     }
 
-    /**
-     * 添加事件标记，来自Map
-     */
-    private void addSchemesFromMap() {
-        if (mDelegate.mSchemeDatesMap == null || mDelegate.mSchemeDatesMap.size() == 0) {
-            return;
-        }
-        for (Calendar a : mItems) {
-            if (mDelegate.mSchemeDatesMap.containsKey(a.toString())) {
-                Calendar d = mDelegate.mSchemeDatesMap.get(a.toString());
-                if(d == null){
-                    continue;
-                }
-                a.setScheme(TextUtils.isEmpty(d.getScheme()) ? mDelegate.getSchemeText() : d.getScheme());
-                a.setSchemeColor(d.getSchemeColor());
-                a.setSchemes(d.getSchemes());
-            } else {
-                a.setScheme("");
-                a.setSchemeColor(0);
-                a.setSchemes(null);
-            }
-        }
-    }
 
     @Override
     protected void onDraw(Canvas canvas) {
+        CalendarMetrics metrics = mDelegate.mMetrics;
+        long start = metrics == null ? 0 : metrics.begin(CalendarView.CalendarMetricsListener.EVENT_YEAR_DRAW);
         mItemWidth = (getWidth() -
                 mDelegate.getYearViewMonthPaddingLeft() -
                 mDelegate.getYearViewMonthPaddingRight()) / 7;
@@ -354,6 +403,9 @@ public abstract class YearView extends View {
         onDrawMonth(canvas);
         onDrawWeek(canvas);
         onDrawMonthView(canvas);
+        if (metrics != null) {
+            metrics.end(CalendarView.CalendarMetricsListener.EVENT_YEAR_DRAW, start);
+        }
     }
 
     /**
@@ -422,21 +474,20 @@ public abstract class YearView extends View {
         int d = 0;
         for (int i = 0; i < mLineCount; i++) {
             for (int j = 0; j < 7; j++) {
-                Calendar calendar = mItems.get(d);
-                if (d > mItems.size() - mNextDiff) {
+                if (d > count - mNextDiff) {
                     return;
                 }
-                if (!calendar.isCurrentMonth()) {
+                if (!mGrid.isCurrentMonth(d)) {
                     ++d;
                     continue;
                 }
-                draw(canvas, calendar, i, j, d);
+                mGrid.fillCalendar(d, mDrawCalendar);
+                draw(canvas, mDrawCalendar, i, j, d);
                 ++d;
             }
         }
     }
 
-
     /**
      * 开始绘制
      *
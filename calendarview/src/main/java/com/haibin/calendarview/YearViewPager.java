@@ -25,6 +25,7 @@ import android.view.ViewGroup;
 import android.view.WindowManager;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
 import androidx.viewpager.widget.PagerAdapter;
 import androidx.viewpager.widget.ViewPager;
 
@@ -36,9 +37,19 @@ import androidx.viewpager.widget.ViewPager;
 public final class YearViewPager extends ViewPager {
     private int mYearCount;
     private boolean isUpdateYearView;
+
+    /**
+     * 虚拟日期范围向前扩展时，已创建页面的位置偏移量
+     */
+    private int mPositionShift;
     private CalendarViewDelegate mDelegate;
     private YearRecyclerView.OnMonthSelectedListener mListener;
 
+    /**
+     * 所有年份页面共享的YearView缓存池
+     */
+    private final RecyclerView.RecycledViewPool mRecycledViewPool = new RecyclerView.RecycledViewPool();
+
     public YearViewPager(Context context) {
         this(context, null);
     }
@@ -51,6 +62,7 @@ public final class YearViewPager extends ViewPager {
     void setup(CalendarViewDelegate delegate) {
         this.mDelegate = delegate;
         this.mYearCount = mDelegate.getMaxYear() - mDelegate.getMinYear() + 1;
+        updatePrefetchCount();
         setAdapter(new PagerAdapter() {
             @Override
             public int getCount() {
@@ -59,7 +71,20 @@ public final class YearViewPager extends ViewPager {
 
             @Override
             public int getItemPosition(@NonNull Object object) {
-                return isUpdateYearView ? POSITION_NONE : super.getItemPosition(object);
+                if (isUpdateYearView) {
+                    return POSITION_NONE;
+                }
+                if (mPositionShift != 0) {
+                    //页面tag保存的是position，虚拟日期范围扩展后整体平移
+                    View view = (View) object;
+                    if (!(view.getTag() instanceof Integer)) {
+                        return POSITION_NONE;
+                    }
+                    int position = (int) view.getTag() + mPositionShift;
+                    view.setTag(position);
+                    return position;
+                }
+                return super.getItemPosition(object);
             }
 
             @Override
@@ -70,11 +95,18 @@ public final class YearViewPager extends ViewPager {
             @NonNull
             @Override
             public Object instantiateItem(@NonNull ViewGroup container, int position) {
+                CalendarMetrics metrics = mDelegate.mMetrics;
+                long start = metrics == null ? 0 : metrics.begin(CalendarView.CalendarMetricsListener.EVENT_YEAR_INSTANTIATE);
                 YearRecyclerView view = new YearRecyclerView(getContext());
+                view.setRecycledViewPool(mRecycledViewPool);
                 container.addView(view);
                 view.setup(mDelegate);
                 view.setOnMonthSelectedListener(mListener);
+                view.setTag(position);
                 view.init(position + mDelegate.getMinYear());
+                if (metrics != null) {
+                    metrics.end(CalendarView.CalendarMetricsListener.EVENT_YEAR_INSTANTIATE, start);
+                }
                 return view;
             }
 
@@ -100,6 +132,15 @@ public final class YearViewPager extends ViewPager {
         }
     }
 
+    /**
+     * 更新预加载年份数量，缓存池大小为可见和预加载页面的月份总数
+     */
+    final void updatePrefetchCount() {
+        int count = mDelegate.getYearViewPrefetchCount();
+        mRecycledViewPool.setMaxRecycledViews(0, 12 * (2 * count + 1));
+        setOffscreenPageLimit(count);
+    }
+
     /**
      * 通知刷新
      */
@@ -121,6 +162,20 @@ public final class YearViewPager extends ViewPager {
         setCurrentItem(year - mDelegate.getMinYear(), smoothScroll);
     }
 
+    /**
+     * 虚拟日期范围扩展，已经创建的页面不重建，只平移位置
+     *
+     * @param shift 最小年份向前扩展的年数
+     */
+    final void extendRange(int shift) {
+        this.mYearCount = mDelegate.getMaxYear() - mDelegate.getMinYear() + 1;
+        mPositionShift = shift;
+        if (getAdapter() != null) {
+            getAdapter().notifyDataSetChanged();
+        }
+        mPositionShift = 0;
+    }
+
     /**
      * 更新日期范围
      */
@@ -156,6 +211,7 @@ public final class YearViewPager extends ViewPager {
      * 更新字体颜色大小
      */
     final void updateStyle(){
+        mRecycledViewPool.clear();
         for (int i = 0; i < getChildCount(); i++) {
             YearRecyclerView view = (YearRecyclerView) getChildAt(i);
             view.updateStyle();